@@ -0,0 +1,66 @@
+package com.recipes.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableScheduling
+public class ExecutorConfig {
+
+    /**
+     * Pool para trabajos por lotes en paralelo (reconciliaciones, reconstrucción de índices).
+     * Se mantiene pequeño porque cada tarea ocupa una conexión del pool de base de datos.
+     */
+    @Bean(name = "batchExecutor", destroyMethod = "shutdown")
+    public ExecutorService batchExecutor(@Value("${app.batch.parallelism:4}") int parallelism) {
+        return Executors.newFixedThreadPool(Math.max(1, parallelism), new CustomizableThreadFactory("batch-"));
+    }
+
+    /**
+     * Hilo único para reconstruir los índices y tops en memoria (al arrancar y tras una importación).
+     * Las reconstrucciones corren una detrás de otra; cada una reparte su lectura en batchExecutor.
+     */
+    @Bean(name = "rebuildExecutor", destroyMethod = "shutdown")
+    public ExecutorService rebuildExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("rebuild-");
+        threadFactory.setDaemon(true);
+        return Executors.newSingleThreadExecutor(threadFactory);
+    }
+
+    /**
+     * Pool para generar las variantes de las imágenes subidas. La cola es acotada porque cada
+     * tarea retiene una imagen decodificada; si se llena, la tarea se rechaza y la imagen se
+     * sigue sirviendo en su tamaño original hasta que se vuelva a pedir una variante.
+     */
+    @Bean(name = "imageExecutor", destroyMethod = "shutdown")
+    public ExecutorService imageExecutor(@Value("${app.images.parallelism:2}") int parallelism,
+                                         @Value("${app.images.queue-capacity:32}") int queueCapacity) {
+        int threads = Math.max(1, parallelism);
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                new CustomizableThreadFactory("image-"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Pool para calcular y comprobar hashes BCrypt. Acota la CPU que pueden ocupar los logins y
+     * registros para que una ráfaga no frene al resto de endpoints; con la cola llena la petición
+     * se rechaza enseguida (429) en lugar de esperar.
+     */
+    @Bean(name = "passwordExecutor", destroyMethod = "shutdown")
+    public ThreadPoolExecutor passwordExecutor(@Value("${app.auth.hash-parallelism:2}") int parallelism,
+                                               @Value("${app.auth.hash-queue-capacity:32}") int queueCapacity) {
+        int threads = Math.max(1, parallelism);
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                new CustomizableThreadFactory("password-"), new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -0,0 +1,73 @@
+package com.recipes.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Límites por ruta del filtro de peticiones (app.rate-limit.*). Las rutas sin límite
+ * configurado no se limitan.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitConfig {
+
+    private boolean enabled = true;
+
+    // Segundos sin peticiones tras los que se olvida el cubo de un cliente
+    private long idleExpirySeconds = 600;
+
+    // Nombre de la ruta (login, register, refresh, comments, ratings) -> límite
+    private Map<String, Limit> routes = new HashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getIdleExpirySeconds() {
+        return idleExpirySeconds;
+    }
+
+    public void setIdleExpirySeconds(long idleExpirySeconds) {
+        this.idleExpirySeconds = idleExpirySeconds;
+    }
+
+    public Map<String, Limit> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Limit> routes) {
+        this.routes = routes;
+    }
+
+    public static class Limit {
+
+        // Peticiones seguidas que admite un cliente con el cubo lleno
+        private int capacity = 10;
+
+        // Ritmo al que se recupera el cubo
+        private int perMinute = 10;
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public int getPerMinute() {
+            return perMinute;
+        }
+
+        public void setPerMinute(int perMinute) {
+            this.perMinute = perMinute;
+        }
+    }
+}
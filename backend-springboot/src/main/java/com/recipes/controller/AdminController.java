@@ -1,15 +1,34 @@
 package com.recipes.controller;
 
 import com.recipes.dto.*;
+import com.recipes.security.BoundedPasswordEncoder;
+import com.recipes.security.RateLimiter;
+import com.recipes.security.UserDetailsServiceImpl;
 import com.recipes.service.AdminService;
 import com.recipes.service.CategoryService;
+import com.recipes.service.ExportFormat;
+import com.recipes.service.ImageByteCache;
+import com.recipes.service.RecipeExportService;
+import com.recipes.service.RecipeImportService;
 import com.recipes.service.RecipeService;
+import com.recipes.service.ReportService;
+import com.recipes.service.UploadSweeper;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -19,11 +38,31 @@ public class AdminController {
     private final AdminService adminService;
     private final RecipeService recipeService;
     private final CategoryService categoryService;
+    private final ReportService reportService;
+    private final RecipeExportService recipeExportService;
+    private final RecipeImportService recipeImportService;
+    private final UploadSweeper uploadSweeper;
+    private final ImageByteCache imageByteCache;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final RateLimiter rateLimiter;
     
-    public AdminController(AdminService adminService, RecipeService recipeService, CategoryService categoryService) {
+    public AdminController(AdminService adminService, RecipeService recipeService, CategoryService categoryService,
+                           ReportService reportService, RecipeExportService recipeExportService,
+                           RecipeImportService recipeImportService, UploadSweeper uploadSweeper,
+                           ImageByteCache imageByteCache, BoundedPasswordEncoder passwordEncoder,
+                           UserDetailsServiceImpl userDetailsService, RateLimiter rateLimiter) {
         this.adminService = adminService;
         this.recipeService = recipeService;
         this.categoryService = categoryService;
+        this.reportService = reportService;
+        this.recipeExportService = recipeExportService;
+        this.recipeImportService = recipeImportService;
+        this.uploadSweeper = uploadSweeper;
+        this.imageByteCache = imageByteCache;
+        this.passwordEncoder = passwordEncoder;
+        this.userDetailsService = userDetailsService;
+        this.rateLimiter = rateLimiter;
     }
     
     @PostMapping("/recipes")
@@ -128,9 +167,108 @@ public class AdminController {
         return ResponseEntity.noContent().build();
     }
     
+    @PostMapping("/recipes/aggregates/reconcile")
+    public ResponseEntity<Map<String, Integer>> reconcileAggregates() {
+        int repaired = adminService.reconcileAggregates();
+        return ResponseEntity.ok(Map.of("recetasCorregidas", repaired));
+    }
+    
     @GetMapping("/dashboard")
     public ResponseEntity<DashboardDTO> getDashboard() {
         DashboardDTO dashboard = adminService.getDashboard();
         return ResponseEntity.ok(dashboard);
     }
+    
+    @GetMapping("/reports")
+    public ResponseEntity<List<ReportDTO>> getReports(
+            @RequestParam(required = false) Long categoria,
+            @RequestParam(defaultValue = "10") int limite) {
+        List<ReportDTO> reports = reportService.getReports(categoria, limite);
+        return ResponseEntity.ok(reports);
+    }
+    
+    @PostMapping("/reports/recompute")
+    public ResponseEntity<Map<String, Integer>> recomputeReports() {
+        int recipes = reportService.recompute();
+        return ResponseEntity.ok(Map.of("recetas", recipes));
+    }
+    
+    /**
+     * Descarga todas las recetas en NDJSON o CSV. La respuesta se escribe mientras se lee
+     * la base de datos, opcionalmente comprimida con gzip
+     */
+    @GetMapping("/export/recipes")
+    public ResponseEntity<StreamingResponseBody> exportRecipes(
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat format = ExportFormat.fromParam(formato);
+        String fileName = "recetas-" + LocalDate.now() + "." + format.getParam() + (gzip ? ".gz" : "");
+        
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                recipeExportService.export(format, compressed);
+                compressed.finish();
+            } else {
+                recipeExportService.export(format, out);
+            }
+        };
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .header(HttpHeaders.CACHE_CONTROL, "no-store");
+        if (gzip) {
+            response.contentType(MediaType.parseMediaType("application/gzip"));
+        } else {
+            response.contentType(MediaType.parseMediaType(format.getContentType()));
+        }
+        return response.body(body);
+    }
+    
+    /**
+     * Importa recetas desde el cuerpo de la petición (NDJSON o JSON-LD de schema.org),
+     * que se lee a medida que llega; admite Content-Encoding: gzip
+     */
+    @PostMapping("/import/recipes")
+    public ResponseEntity<ImportResultDTO> importRecipes(HttpServletRequest request) throws IOException {
+        InputStream body = request.getInputStream();
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (encoding != null && encoding.toLowerCase().contains("gzip")) {
+            body = new GZIPInputStream(body, 64 * 1024);
+        }
+        ImportResultDTO result = recipeImportService.importRecipes(body);
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * Elimina las imágenes subidas que ninguna receta ni usuario referencia; con simulacion=true
+     * solo las cuenta
+     */
+    @PostMapping("/uploads/sweep")
+    public ResponseEntity<UploadSweepDTO> sweepUploads(@RequestParam(defaultValue = "false") boolean simulacion) {
+        return ResponseEntity.ok(uploadSweeper.sweep(simulacion));
+    }
+    
+    @GetMapping("/uploads/sweep")
+    public ResponseEntity<UploadSweepDTO> getLastUploadSweep() {
+        UploadSweepDTO last = uploadSweeper.getLastResult();
+        return last != null ? ResponseEntity.ok(last) : ResponseEntity.noContent().build();
+    }
+    
+    @GetMapping("/images/cache")
+    public ResponseEntity<ImageCacheStatsDTO> getImageCacheStats() {
+        return ResponseEntity.ok(imageByteCache.stats());
+    }
+
+    @GetMapping("/auth/hashing")
+    public ResponseEntity<PasswordHashStatsDTO> getPasswordHashStats() {
+        PasswordHashStatsDTO stats = passwordEncoder.stats();
+        stats.setRehashes(userDetailsService.getRehashes());
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/rate-limit")
+    public ResponseEntity<List<RateLimitStatsDTO>> getRateLimitStats() {
+        return ResponseEntity.ok(rateLimiter.stats());
+    }
 }
@@ -1,10 +1,12 @@
 package com.recipes.controller;
 
 import com.recipes.dto.JwtResponseDTO;
+import com.recipes.dto.RefreshTokenDTO;
 import com.recipes.dto.UserDTO;
 import com.recipes.dto.UserLoginDTO;
 import com.recipes.dto.UserRegistrationDTO;
-import com.recipes.model.User;
+import com.recipes.security.AuthenticatedUser;
+import com.recipes.security.CurrentUser;
 import com.recipes.service.AuthService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -33,24 +35,36 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<JwtResponseDTO> refresh(@RequestBody RefreshTokenDTO refreshDTO) {
+        JwtResponseDTO response = authService.refresh(refreshDTO);
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/logout")
-    public ResponseEntity<Void> logout() {
-        authService.logout();
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                       @RequestBody(required = false) RefreshTokenDTO refreshDTO) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7) : null;
+        authService.logout(accessToken, refreshDTO);
         return ResponseEntity.ok().build();
     }
 
     @GetMapping("/validate")
     public ResponseEntity<Map<String, Object>> validateToken() {
-        User user = authService.getCurrentUser();
+        AuthenticatedUser principal = CurrentUser.get();
+        // Los tokens emitidos antes de incluir el nombre lo cargan de la base de datos
+        String username = principal.getDisplayName() != null
+                ? principal.getDisplayName() : authService.getCurrentUser().getUsername();
         
         Map<String, Object> response = new HashMap<>();
         response.put("valid", true);
         
         Map<String, Object> userInfo = new HashMap<>();
-        userInfo.put("id", user.getId());
-        userInfo.put("username", user.getUsername());
-        if (!user.getRoles().isEmpty()) {
-            userInfo.put("role", user.getRoles().iterator().next().getNombre());
+        userInfo.put("id", principal.getId());
+        userInfo.put("username", username);
+        if (principal.getRole() != null) {
+            userInfo.put("role", principal.getRole());
         }
         
         response.put("user", userInfo);
@@ -4,6 +4,7 @@ import com.recipes.dto.CategoryDTO;
 import com.recipes.service.CategoryService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -19,8 +20,11 @@ public class CategoryController {
     }
     
     @GetMapping
-    public ResponseEntity<List<CategoryDTO>> getAllCategories() {
+    public ResponseEntity<List<CategoryDTO>> getAllCategories(WebRequest request) {
+        if (request.checkNotModified(ConditionalGet.versionTag("categorias", categoryService.version()))) {
+            return null;
+        }
         List<CategoryDTO> categories = categoryService.findAll();
-        return ResponseEntity.ok(categories);
+        return ResponseEntity.ok().cacheControl(ConditionalGet.REVALIDATE).body(categories);
     }
 }
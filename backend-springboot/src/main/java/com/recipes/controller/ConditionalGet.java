@@ -0,0 +1,52 @@
+package com.recipes.controller;
+
+import com.recipes.repository.RecipeVersion;
+import org.springframework.http.CacheControl;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * ETags y Last-Modified de las respuestas que admiten peticiones condicionales.
+ * Las ETags son débiles: el JSON puede variar en formato sin que cambie el contenido.
+ */
+final class ConditionalGet {
+
+    /**
+     * El navegador y el proxy pueden guardar la respuesta pero deben revalidarla siempre
+     */
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
+    // Las versiones en memoria reinician con el proceso; el prefijo evita que una ETag
+    // de antes de un reinicio coincida por casualidad con la misma versión después
+    private static final String INSTANCE = Long.toString(System.currentTimeMillis(), 36);
+
+    private ConditionalGet() {
+    }
+
+    static String versionTag(String recurso, long version) {
+        return "W/\"" + recurso + "-" + INSTANCE + "-" + version + "\"";
+    }
+
+    static String recipeTag(RecipeVersion version) {
+        return "W/\"receta-" + version.getId()
+                + "-" + toMillis(version.getUpdatedAt())
+                + "-" + toMillis(version.getAutorUpdatedAt())
+                + "-" + toMillis(version.getCategoriaUpdatedAt())
+                + "-" + version.getSumaCalificaciones()
+                + "-" + version.getTotalCalificaciones()
+                + "-" + version.getTotalComentariosAprobados() + "\"";
+    }
+
+    /**
+     * La más reciente de las fechas de la receta, su autor y su categoría; -1 si no hay ninguna
+     */
+    static long recipeLastModified(RecipeVersion version) {
+        return Math.max(toMillis(version.getUpdatedAt()),
+                Math.max(toMillis(version.getAutorUpdatedAt()), toMillis(version.getCategoriaUpdatedAt())));
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
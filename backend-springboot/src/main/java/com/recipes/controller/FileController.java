@@ -1,18 +1,19 @@
 package com.recipes.controller;
 
+import com.recipes.exception.BadRequestException;
+import com.recipes.service.FileServingService;
 import com.recipes.service.FileStorageService;
+import com.recipes.service.ImageSize;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
@@ -27,6 +28,9 @@ public class FileController {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private FileServingService fileServingService;
+
     /**
      * Endpoint para subir una imagen
      * POST /api/files/upload
@@ -47,7 +51,7 @@ public class FileController {
             
             return ResponseEntity.ok(response);
             
-        } catch (IllegalArgumentException e) {
+        } catch (BadRequestException e) {
             log.warn("Error de validación al subir archivo: {}", e.getMessage());
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -66,77 +70,25 @@ public class FileController {
      * GET /api/files/download/{fileName}
      * 
      * @param fileName Nombre del archivo a descargar
-     * @param request HttpServletRequest para determinar el tipo de contenido
-     * @return El archivo como Resource
      */
     @GetMapping("/download/{fileName:.+}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable String fileName, HttpServletRequest request) {
-        try {
-            // Cargar archivo como Resource
-            Resource resource = fileStorageService.loadFileAsResource(fileName);
-            
-            // Determinar tipo de contenido
-            String contentType = null;
-            try {
-                contentType = request.getServletContext().getMimeType(resource.getFile().getAbsolutePath());
-            } catch (IOException ex) {
-                log.info("No se pudo determinar el tipo de archivo.");
-            }
-            
-            // Por defecto usar application/octet-stream
-            if (contentType == null) {
-                contentType = "application/octet-stream";
-            }
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                    .body(resource);
-                    
-        } catch (Exception e) {
-            log.error("Error al descargar archivo: {}", fileName, e);
-            return ResponseEntity.notFound().build();
-        }
+    public void downloadFile(@PathVariable String fileName, HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        fileServingService.serve(fileName, true, request, response);
     }
     
     /**
      * Endpoint para servir imágenes directamente (sin forzar descarga)
      * GET /api/files/images/{fileName}
-     * Útil para mostrar imágenes en <img> tags
+     * Útil para mostrar imágenes en <img> tags. Admite Range e If-None-Match,
+     * y se cachea como inmutable porque el nombre de cada archivo es único.
+     * Con ?size=thumb|card|hero sirve la variante reducida (o el original si aún no existe)
      */
     @GetMapping("/images/{fileName:.+}")
-    public ResponseEntity<Resource> serveImage(@PathVariable String fileName) {
-        try {
-            Resource resource = fileStorageService.loadFileAsResource(fileName);
-            
-            // Determinar tipo MIME de la imagen
-            String contentType = "image/jpeg"; // Por defecto
-            String extension = fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
-            
-            switch (extension) {
-                case "png":
-                    contentType = "image/png";
-                    break;
-                case "gif":
-                    contentType = "image/gif";
-                    break;
-                case "webp":
-                    contentType = "image/webp";
-                    break;
-                case "jpg":
-                case "jpeg":
-                default:
-                    contentType = "image/jpeg";
-                    break;
-            }
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .body(resource);
-                    
-        } catch (Exception e) {
-            log.error("Error al servir imagen: {}", fileName, e);
-            return ResponseEntity.notFound().build();
-        }
+    public void serveImage(@PathVariable String fileName,
+                           @RequestParam(required = false) String size,
+                           HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+        fileServingService.serve(fileName, ImageSize.fromParam(size), false, request, response);
     }
 }
@@ -3,19 +3,29 @@ package com.recipes.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.recipes.dto.CategoryDTO;
 import com.recipes.dto.CommentDTO;
+import com.recipes.dto.CursorPageDTO;
+import com.recipes.dto.PantryMatchDTO;
 import com.recipes.dto.RatingDTO;
 import com.recipes.dto.RecipeDTO;
+import com.recipes.dto.ReportDTO;
+import com.recipes.dto.TrendingRecipeDTO;
+import com.recipes.repository.RecipeVersion;
 import com.recipes.service.CategoryService;
 import com.recipes.service.CommentService;
 import com.recipes.service.FileStorageService;
 import com.recipes.service.RatingService;
+import com.recipes.service.RecipeSearchMode;
 import com.recipes.service.RecipeService;
+import com.recipes.service.ReportService;
+import com.recipes.service.ReportType;
+import com.recipes.service.TrendingEngine;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -30,16 +40,21 @@ public class RecipeController {
     private final RatingService ratingService;
     private final CategoryService categoryService;
     private final FileStorageService fileStorageService;
+    private final ReportService reportService;
+    private final TrendingEngine trendingEngine;
     private final ObjectMapper objectMapper;
     
     public RecipeController(RecipeService recipeService, CommentService commentService, 
                           RatingService ratingService, CategoryService categoryService,
-                          FileStorageService fileStorageService, ObjectMapper objectMapper) {
+                          FileStorageService fileStorageService, ReportService reportService,
+                          TrendingEngine trendingEngine, ObjectMapper objectMapper) {
         this.recipeService = recipeService;
         this.commentService = commentService;
         this.ratingService = ratingService;
         this.categoryService = categoryService;
         this.fileStorageService = fileStorageService;
+        this.reportService = reportService;
+        this.trendingEngine = trendingEngine;
         this.objectMapper = objectMapper;
     }
     
@@ -47,30 +62,102 @@ public class RecipeController {
     public ResponseEntity<Page<RecipeDTO>> getAllRecipes(
             @RequestParam(required = false) Long categoria,
             @RequestParam(required = false) String busqueda,
+            @RequestParam(required = false) String modo,
             @RequestParam(defaultValue = "0") int pagina,
             @RequestParam(defaultValue = "12") int limite) {
         
         PageRequest pageRequest = PageRequest.of(pagina, limite);
-        Page<RecipeDTO> recipes = recipeService.findAll(categoria, busqueda, pageRequest);
+        Page<RecipeDTO> recipes = recipeService.findAll(categoria, busqueda, RecipeSearchMode.fromParam(modo), pageRequest);
+        return ResponseEntity.ok(recipes);
+    }
+    
+    /**
+     * Listado por cursor (scroll infinito)
+     * GET /api/recipes/scroll?cursor=...
+     * 
+     * La primera página se pide sin cursor; las siguientes con el siguienteCursor de la respuesta.
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDTO<RecipeDTO>> scrollRecipes(
+            @RequestParam(required = false) Long categoria,
+            @RequestParam(required = false) String busqueda,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int limite,
+            @RequestParam(defaultValue = "false") boolean aproximado) {
+        CursorPageDTO<RecipeDTO> recipes = recipeService.scroll(categoria, busqueda, cursor, limite, aproximado);
+        return ResponseEntity.ok(recipes);
+    }
+    
+    /**
+     * ¿Qué puedo cocinar? Recetas ordenadas por cuántos ingredientes de la despensa cubren
+     * GET /api/recipes/pantry?ingredientes=harina,huevo,leche&faltantes=1
+     */
+    @GetMapping("/pantry")
+    public ResponseEntity<List<PantryMatchDTO>> getRecipesByPantry(
+            @RequestParam List<String> ingredientes,
+            @RequestParam(defaultValue = "0") int faltantes,
+            @RequestParam(required = false) Long categoria,
+            @RequestParam(defaultValue = "12") int limite) {
+        List<PantryMatchDTO> recipes = recipeService.findByPantry(ingredientes, faltantes, categoria, limite);
         return ResponseEntity.ok(recipes);
     }
     
     @GetMapping("/categories")
-    public ResponseEntity<List<CategoryDTO>> getAllCategories() {
+    public ResponseEntity<List<CategoryDTO>> getAllCategories(WebRequest request) {
+        if (request.checkNotModified(ConditionalGet.versionTag("categorias", categoryService.version()))) {
+            return null;
+        }
         List<CategoryDTO> categories = categoryService.findAll();
-        return ResponseEntity.ok(categories);
+        return ResponseEntity.ok().cacheControl(ConditionalGet.REVALIDATE).body(categories);
     }
     
+    /**
+     * Detalle de una receta. Con If-None-Match / If-Modified-Since vigentes responde 304
+     * consultando solo la versión (fechas y agregados), sin armar el DTO
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<RecipeDTO> getRecipeById(@PathVariable Long id) {
-        RecipeDTO recipe = recipeService.findById(id);
-        return ResponseEntity.ok(recipe);
+    public ResponseEntity<RecipeDTO> getRecipeById(@PathVariable Long id, WebRequest request) {
+        RecipeVersion version = recipeService.findVersion(id);
+        if (request.checkNotModified(ConditionalGet.recipeTag(version), ConditionalGet.recipeLastModified(version))) {
+            recipeService.countView(id);
+            return null;
+        }
+        RecipeDTO recipe = recipeService.view(id);
+        return ResponseEntity.ok().cacheControl(ConditionalGet.REVALIDATE).body(recipe);
+    }
+    
+    /**
+     * Recetas en tendencia según la actividad de las últimas horas
+     * GET /api/recipes/trending?categoria=2&limite=10
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingRecipeDTO>> getTrendingRecipes(
+            @RequestParam(required = false) Long categoria,
+            @RequestParam(defaultValue = "10") int limite) {
+        List<TrendingRecipeDTO> recipes = trendingEngine.trending(categoria, limite);
+        return ResponseEntity.ok(recipes);
     }
     
     @GetMapping("/featured")
-    public ResponseEntity<List<RecipeDTO>> getFeaturedRecipes() {
+    public ResponseEntity<List<RecipeDTO>> getFeaturedRecipes(WebRequest request) {
+        if (request.checkNotModified(ConditionalGet.versionTag("destacadas", recipeService.featuredVersion()))) {
+            return null;
+        }
         List<RecipeDTO> recipes = recipeService.findFeatured();
-        return ResponseEntity.ok(recipes);
+        return ResponseEntity.ok().cacheControl(ConditionalGet.REVALIDATE).body(recipes);
+    }
+    
+    /**
+     * Reporte público: top-rated, most-rated o most-commented
+     * GET /api/recipes/reports/top-rated?categoria=2&limite=5
+     */
+    @GetMapping("/reports/{tipo}")
+    public ResponseEntity<ReportDTO> getReport(
+            @PathVariable String tipo,
+            @RequestParam(required = false) Long categoria,
+            @RequestParam(defaultValue = "10") int limite) {
+        ReportDTO report = reportService.getReport(ReportType.fromParam(tipo), categoria, limite);
+        return ResponseEntity.ok(report);
     }
     
     @GetMapping("/{id}/comments")
@@ -161,12 +248,10 @@ public class RecipeController {
             RecipeDTO recipeDTO = objectMapper.readValue(recipeJson, RecipeDTO.class);
             
             // Si se proporciona una nueva imagen
+            String oldImage = null;
             if (image != null && !image.isEmpty()) {
-                // Obtener la receta actual para eliminar la imagen vieja
-                RecipeDTO currentRecipe = recipeService.findById(id);
-                if (currentRecipe.getImagenUrl() != null) {
-                    fileStorageService.deleteFile(currentRecipe.getImagenUrl());
-                }
+                // La imagen vieja se elimina recién después de confirmar la actualización
+                oldImage = recipeService.findById(id).getImagenUrl();
                 
                 // Guardar la nueva imagen
                 String imagePath = fileStorageService.storeFile(image);
@@ -174,6 +259,9 @@ public class RecipeController {
             }
             
             RecipeDTO updated = recipeService.update(id, recipeDTO);
+            if (oldImage != null && !oldImage.equals(updated.getImagenUrl())) {
+                fileStorageService.deleteFile(oldImage);
+            }
             return ResponseEntity.ok(updated);
             
         } catch (Exception e) {
@@ -184,23 +272,35 @@ public class RecipeController {
     @DeleteMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> deleteRecipe(@PathVariable Long id) {
-        // Obtener la receta para eliminar su imagen
+        // Obtener la receta para eliminar su imagen una vez confirmado el borrado
         RecipeDTO recipe = recipeService.findById(id);
+        recipeService.delete(id);
         if (recipe.getImagenUrl() != null) {
             fileStorageService.deleteFile(recipe.getImagenUrl());
         }
-        
-        recipeService.delete(id);
         return ResponseEntity.noContent().build();
     }
     
     @GetMapping("/search")
     public ResponseEntity<Page<RecipeDTO>> searchRecipes(
             @RequestParam String query,
+            @RequestParam(required = false) Long categoria,
+            @RequestParam(required = false) String modo,
             @RequestParam(defaultValue = "0") int pagina,
             @RequestParam(defaultValue = "12") int limite) {
         PageRequest pageRequest = PageRequest.of(pagina, limite);
-        Page<RecipeDTO> recipes = recipeService.findAll(null, query, pageRequest);
+        RecipeSearchMode searchMode = RecipeSearchMode.fromParam(modo, RecipeSearchMode.INDICE);
+        Page<RecipeDTO> recipes = recipeService.findAll(categoria, query, searchMode, pageRequest);
+        return ResponseEntity.ok(recipes);
+    }
+    
+    @GetMapping("/search/scroll")
+    public ResponseEntity<CursorPageDTO<RecipeDTO>> scrollSearch(
+            @RequestParam String query,
+            @RequestParam(required = false) Long categoria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int limite) {
+        CursorPageDTO<RecipeDTO> recipes = recipeService.scroll(categoria, query, cursor, limite, false);
         return ResponseEntity.ok(recipes);
     }
 }
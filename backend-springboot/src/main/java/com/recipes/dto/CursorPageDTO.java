@@ -0,0 +1,17 @@
+package com.recipes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> contenido;
+    private String siguienteCursor;
+    private Boolean hayMas;
+    private Long totalAproximado;
+}
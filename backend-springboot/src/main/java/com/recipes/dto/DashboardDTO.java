@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,4 +16,14 @@ public class DashboardDTO {
     private Integer totalComentariosPendientes;
     private Integer totalComentariosAprobados;
     private Integer totalRecetasDestacadas;
+
+    // Altas en las últimas 24 horas
+    private Integer nuevosUsuarios24h;
+    private Integer nuevasRecetas24h;
+    private Integer nuevosComentarios24h;
+    private Integer nuevasCalificaciones24h;
+
+    // Momento en que se calcularon los conteos y su antigüedad al responder
+    private LocalDateTime generadoEn;
+    private Long antiguedadSegundos;
 }
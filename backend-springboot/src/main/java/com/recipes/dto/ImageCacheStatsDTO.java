@@ -0,0 +1,20 @@
+package com.recipes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageCacheStatsDTO {
+    private Long capacidadBytes;
+    private Long bytesUsados;
+    private Integer entradas;
+    private Long aciertos;
+    private Long fallos;
+    // Imágenes que no entraron porque eran menos pedidas que las que habría que desalojar
+    private Long rechazadas;
+    private Long desalojadas;
+    private Long bytesServidos;
+}
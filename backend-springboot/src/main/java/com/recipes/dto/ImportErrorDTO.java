@@ -0,0 +1,14 @@
+package com.recipes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportErrorDTO {
+    // Posición de la receta en el archivo, empezando en 1
+    private Long registro;
+    private String mensaje;
+}
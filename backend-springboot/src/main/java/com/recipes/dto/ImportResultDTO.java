@@ -0,0 +1,19 @@
+package com.recipes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDTO {
+    private Long procesadas;
+    private Long importadas;
+    private Long fallidas;
+    // Solo los primeros errores; el resto se cuenta en fallidas
+    private List<ImportErrorDTO> errores;
+    private Long duracionMs;
+}
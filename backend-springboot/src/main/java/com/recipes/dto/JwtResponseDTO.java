@@ -12,6 +12,9 @@ public class JwtResponseDTO {
     private String type = "Bearer";
     private Long expiresIn;
     private UserDTO user;
+    // Para POST /auth/refresh; se reemplaza en cada uso
+    private String refreshToken;
+    private Long refreshExpiresIn;
 
     public JwtResponseDTO(String token, Long expiresIn, UserDTO user) {
         this.token = token;
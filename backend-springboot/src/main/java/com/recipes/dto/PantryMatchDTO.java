@@ -0,0 +1,15 @@
+package com.recipes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PantryMatchDTO {
+    private RecipeDTO receta;
+    private Integer coincidencias;
+    private Integer faltantes;
+    private Integer totalIngredientes;
+}
@@ -0,0 +1,27 @@
+package com.recipes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PasswordHashStatsDTO {
+    // Coste BCrypt configurado (log2 de las rondas)
+    private Integer coste;
+    private Integer hilos;
+    private Integer activos;
+    private Integer enCola;
+    private Integer capacidadCola;
+    private Long completados;
+    // Peticiones rechazadas con 429 porque la cola estaba llena
+    private Long rechazados;
+    // Hashes recalculados al iniciar sesión porque cambió el coste
+    private Long rehashes;
+    // Tiempo de cálculo de cada hash, sin contar la espera en cola
+    private Double latenciaMediaMs;
+    private Double latenciaMaxMs;
+    // Espera media en cola hasta que un hilo toma el hash
+    private Double esperaMediaMs;
+}
@@ -0,0 +1,20 @@
+package com.recipes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitStatsDTO {
+    private String ruta;
+    // Limitada por IP o por usuario
+    private String clave;
+    private Integer capacidad;
+    private Integer porMinuto;
+    // Clientes con cubo en memoria
+    private Long clientes;
+    private Long permitidas;
+    private Long rechazadas;
+}
@@ -1,5 +1,6 @@
 package com.recipes.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -26,4 +27,8 @@ public class RecipeDTO {
     private Double calificacionPromedio;
     private Integer totalCalificaciones;
     private Integer totalComentarios;
+
+    // Solo presente en resultados de búsqueda
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double relevancia;
 }
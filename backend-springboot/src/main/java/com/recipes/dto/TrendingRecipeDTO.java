@@ -0,0 +1,14 @@
+package com.recipes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingRecipeDTO {
+    private RecipeDTO receta;
+    // Actividad reciente ponderada y con decaimiento exponencial
+    private Double puntaje;
+}
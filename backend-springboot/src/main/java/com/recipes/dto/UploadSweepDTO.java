@@ -0,0 +1,25 @@
+package com.recipes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSweepDTO {
+    // En modo simulación solo se cuentan los huérfanos, no se elimina nada
+    private Boolean simulacion;
+    private LocalDateTime iniciadoEn;
+    private Long archivosRevisados;
+    private Long referenciados;
+    // Huérfanos más nuevos que el periodo de gracia (posiblemente aún por asociar a una receta)
+    private Long recientes;
+    private Long huerfanos;
+    private Long eliminados;
+    private Long bytesLiberados;
+    private Long errores;
+    private Long duracionMs;
+}
@@ -0,0 +1,19 @@
+package com.recipes.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica cuando un administrador crea, renombra o elimina una categoría
+ */
+@Getter
+@AllArgsConstructor
+public class CategoryChangedEvent {
+
+    public enum Tipo { CREADA, ACTUALIZADA, ELIMINADA }
+
+    private final Tipo tipo;
+    private final Long categoriaId;
+    // null si la categoría se eliminó
+    private final String nombre;
+}
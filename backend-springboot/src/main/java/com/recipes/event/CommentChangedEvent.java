@@ -0,0 +1,23 @@
+package com.recipes.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica al crear, moderar o eliminar un comentario.
+ * Los estados son los nombres de Estados_Comentario (PENDIENTE, APROBADO, RECHAZADO).
+ */
+@Getter
+@AllArgsConstructor
+public class CommentChangedEvent {
+    private final Long commentId;
+    private final Long recipeId;
+    // null si el comentario es nuevo
+    private final String estadoAnterior;
+    // null si el comentario se eliminó
+    private final String estadoNuevo;
+
+    public boolean cambiaAprobados() {
+        return "APROBADO".equals(estadoAnterior) != "APROBADO".equals(estadoNuevo);
+    }
+}
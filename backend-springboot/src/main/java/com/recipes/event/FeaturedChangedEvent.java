@@ -0,0 +1,14 @@
+package com.recipes.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica cuando un administrador destaca una receta o le quita el destacado
+ */
+@Getter
+@AllArgsConstructor
+public class FeaturedChangedEvent {
+    private final Long recipeId;
+    private final boolean destacada;
+}
@@ -0,0 +1,15 @@
+package com.recipes.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica al guardar una imagen subida, para generar sus variantes de tamaño
+ */
+@Getter
+@AllArgsConstructor
+public class ImageStoredEvent {
+
+    // Nombre del archivo en el directorio de almacenamiento
+    private final String fileName;
+}
@@ -0,0 +1,26 @@
+package com.recipes.event;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Transacciones para las lecturas que hacen los listeners de eventos
+ */
+public final class ListenerTransactions {
+
+    private ListenerTransactions() {
+    }
+
+    /**
+     * Plantilla de solo lectura para usar desde listeners posteriores al commit. Abre siempre una
+     * transacción propia: el EntityManager de la escritura sigue ligado al hilo tras el commit y
+     * unirse a él devolvería entidades viejas en lugar de los datos recién confirmados.
+     */
+    public static TransactionTemplate afterCommitReadTemplate(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
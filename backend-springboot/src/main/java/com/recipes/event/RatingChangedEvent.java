@@ -0,0 +1,17 @@
+package com.recipes.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica cuando un usuario califica una receta o cambia su calificación
+ */
+@Getter
+@AllArgsConstructor
+public class RatingChangedEvent {
+    private final Long recipeId;
+    private final Long usuarioId;
+    // null si es la primera calificación del usuario para la receta
+    private final Integer puntuacionAnterior;
+    private final Integer puntuacionNueva;
+}
@@ -0,0 +1,23 @@
+package com.recipes.event;
+
+import com.recipes.dto.RecipeDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica al crear, actualizar o eliminar una receta.
+ * Los componentes en memoria (índices, cachés) lo escuchan después del commit.
+ */
+@Getter
+@AllArgsConstructor
+public class RecipeChangedEvent {
+
+    public enum Tipo { CREADA, ACTUALIZADA, ELIMINADA }
+
+    private final Tipo tipo;
+    private final Long recipeId;
+    // Estado nuevo de la receta; null si se eliminó
+    private final RecipeDTO receta;
+    // Categoría antes del cambio; null si la receta es nueva
+    private final Long categoriaAnteriorId;
+}
@@ -0,0 +1,13 @@
+package com.recipes.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica cada vez que se consulta el detalle de una receta
+ */
+@Getter
+@AllArgsConstructor
+public class RecipeViewedEvent {
+    private final Long recipeId;
+}
@@ -0,0 +1,15 @@
+package com.recipes.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica al terminar una importación masiva de recetas. Las recetas importadas no
+ * generan un RecipeChangedEvent cada una: los componentes en memoria se reconstruyen completos.
+ */
+@Getter
+@AllArgsConstructor
+public class RecipesImportedEvent {
+
+    private final long importadas;
+}
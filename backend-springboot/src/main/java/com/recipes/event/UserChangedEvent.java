@@ -0,0 +1,17 @@
+package com.recipes.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica cuando un usuario se registra, edita su perfil o un administrador lo elimina
+ */
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    public enum Tipo { REGISTRADO, ACTUALIZADO, ELIMINADO }
+
+    private final Tipo tipo;
+    private final Long usuarioId;
+}
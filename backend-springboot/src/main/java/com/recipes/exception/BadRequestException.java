@@ -0,0 +1,10 @@
+package com.recipes.exception;
+
+/**
+ * Datos de la petición inválidos; se responde 400 con el mensaje
+ */
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
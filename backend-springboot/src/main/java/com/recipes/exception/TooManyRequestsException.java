@@ -0,0 +1,16 @@
+package com.recipes.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+
+    // Segundos que el cliente debería esperar antes de reintentar (cabecera Retry-After)
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -42,9 +42,20 @@ public class Recipe {
     @Column(name = "image_url", length = 255)
     private String imagenUrl;
 
-    @Column(name = "puntuacion_promedio")
+    // Los agregados se mantienen con SQL por conjuntos (RecipeAggregateService),
+    // por eso Hibernate nunca los escribe en un UPDATE de la entidad
+    @Column(name = "puntuacion_promedio", updatable = false)
     private Float puntuacionPromedio;
 
+    @Column(name = "suma_calificaciones", insertable = false, updatable = false)
+    private Integer sumaCalificaciones;
+
+    @Column(name = "total_calificaciones", insertable = false, updatable = false)
+    private Integer totalCalificaciones;
+
+    @Column(name = "total_comentarios_aprobados", insertable = false, updatable = false)
+    private Integer totalComentariosAprobados;
+
     @Column(name = "fecha_creacion", nullable = false, updatable = false)
     private LocalDateTime fechaCreacion;
 
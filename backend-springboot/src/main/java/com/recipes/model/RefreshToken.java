@@ -0,0 +1,53 @@
+package com.recipes.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh token emitido junto a un access token. Solo se guarda su SHA-256.
+ * Cada uso lo reemplaza por uno nuevo de la misma familia; presentar uno ya reemplazado
+ * indica que se filtró, y se revoca la familia entera.
+ */
+@Entity
+@Table(name = "Tokens_Refresco")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_token")
+    private Long id;
+
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @Column(name = "id_usuario", nullable = false)
+    private Long usuarioId;
+
+    @Column(name = "familia", nullable = false, length = 36)
+    private String familia;
+
+    @Column(name = "jti_acceso", nullable = false, length = 36)
+    private String jtiAcceso;
+
+    @Column(name = "acceso_expira_en", nullable = false)
+    private LocalDateTime accesoExpiraEn;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    @Column(name = "reemplazado_en")
+    private LocalDateTime reemplazadoEn;
+
+    @Column(name = "revocado_en")
+    private LocalDateTime revocadoEn;
+
+    @Column(name = "created_at", nullable = false, updatable = false, insertable = false)
+    private LocalDateTime createdAt;
+}
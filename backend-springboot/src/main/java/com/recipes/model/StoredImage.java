@@ -0,0 +1,44 @@
+package com.recipes.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Imagen guardada en disco con su SHA-256 como nombre (hash.extension).
+ * Las referencias cuentan las subidas de ese contenido; el archivo se borra cuando ninguna
+ * receta ni foto de perfil lo usa.
+ */
+@Entity
+@Table(name = "Imagenes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredImage {
+
+    @Id
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    @Column(name = "extension", nullable = false, length = 10)
+    private String extension;
+
+    @Column(name = "tamano_bytes", nullable = false)
+    private Long tamanoBytes;
+
+    @Column(name = "referencias", nullable = false)
+    private Integer referencias;
+
+    @Column(name = "created_at", nullable = false, updatable = false, insertable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false, updatable = false, insertable = false)
+    private LocalDateTime updatedAt;
+
+    public String getFileName() {
+        return hash + "." + extension;
+    }
+}
@@ -0,0 +1,10 @@
+package com.recipes.repository;
+
+/**
+ * Categoría con su número de recetas
+ */
+public interface CategoryCount {
+    Long getId();
+    String getNombre();
+    Long getTotalRecetas();
+}
@@ -2,12 +2,18 @@ package com.recipes.repository;
 
 import com.recipes.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     Optional<Category> findByNombre(String nombre);
     Boolean existsByNombre(String nombre);
+
+    @Query("SELECT c.id AS id, c.nombre AS nombre, COUNT(r.id) AS totalRecetas " +
+           "FROM Category c LEFT JOIN c.recetas r GROUP BY c.id, c.nombre ORDER BY c.id")
+    List<CategoryCount> findAllWithRecipeCount();
 }
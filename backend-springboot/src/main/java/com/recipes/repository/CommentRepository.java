@@ -4,8 +4,11 @@ import com.recipes.model.Comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -14,4 +17,10 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     Page<Comment> findByEstado_Nombre(String estadoNombre, Pageable pageable);
     List<Comment> findByUsuario_Id(Long usuarioId);
     Long countByEstado_Nombre(String estadoNombre);
+
+    @Query(value = "SELECT c.id_receta AS recipeId, c.id_comentario AS ref, c.created_at AS fecha FROM Comentarios c " +
+                   "JOIN Estados_Comentario e ON e.id_estado = c.id_estado " +
+                   "WHERE e.nombre_estado = 'APROBADO' AND c.created_at >= :desde AND c.created_at < :hasta",
+           nativeQuery = true)
+    List<RecipeActivity> findApprovedActivityBetween(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
 }
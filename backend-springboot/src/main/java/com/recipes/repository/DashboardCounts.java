@@ -0,0 +1,17 @@
+package com.recipes.repository;
+
+/**
+ * Todos los conteos del panel de administración en una sola fila
+ */
+public interface DashboardCounts {
+    Long getTotalUsuarios();
+    Long getTotalRecetas();
+    Long getTotalCategorias();
+    Long getTotalComentariosPendientes();
+    Long getTotalComentariosAprobados();
+    Long getTotalRecetasDestacadas();
+    Long getNuevosUsuarios();
+    Long getNuevasRecetas();
+    Long getNuevosComentarios();
+    Long getNuevasCalificaciones();
+}
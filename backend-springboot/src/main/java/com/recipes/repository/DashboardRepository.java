@@ -0,0 +1,34 @@
+package com.recipes.repository;
+
+import com.recipes.model.User;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Consultas del panel de administración. No expone operaciones CRUD.
+ */
+@Repository
+public interface DashboardRepository extends org.springframework.data.repository.Repository<User, Long> {
+
+    /**
+     * Totales y altas desde :desde en una sola consulta (un round trip en lugar de uno por conteo)
+     */
+    @Query(value = "SELECT " +
+                   "  (SELECT COUNT(*) FROM Usuarios) AS totalUsuarios, " +
+                   "  (SELECT COUNT(*) FROM Recetas) AS totalRecetas, " +
+                   "  (SELECT COUNT(*) FROM Categorias) AS totalCategorias, " +
+                   "  (SELECT COUNT(*) FROM Comentarios c JOIN Estados_Comentario e ON e.id_estado = c.id_estado " +
+                   "     WHERE e.nombre_estado = 'PENDIENTE') AS totalComentariosPendientes, " +
+                   "  (SELECT COUNT(*) FROM Comentarios c JOIN Estados_Comentario e ON e.id_estado = c.id_estado " +
+                   "     WHERE e.nombre_estado = 'APROBADO') AS totalComentariosAprobados, " +
+                   "  (SELECT COUNT(*) FROM Recetas_Destacadas) AS totalRecetasDestacadas, " +
+                   "  (SELECT COUNT(*) FROM Usuarios WHERE created_at >= :desde) AS nuevosUsuarios, " +
+                   "  (SELECT COUNT(*) FROM Recetas WHERE fecha_creacion >= :desde) AS nuevasRecetas, " +
+                   "  (SELECT COUNT(*) FROM Comentarios WHERE created_at >= :desde) AS nuevosComentarios, " +
+                   "  (SELECT COUNT(*) FROM Calificaciones WHERE created_at >= :desde) AS nuevasCalificaciones",
+           nativeQuery = true)
+    DashboardCounts loadCounts(@Param("desde") LocalDateTime desde);
+}
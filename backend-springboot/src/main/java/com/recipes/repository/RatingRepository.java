@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,4 +24,8 @@ public interface RatingRepository extends JpaRepository<Rating, Long> {
     
     @Query("SELECT r.receta FROM Rating r WHERE r.usuario.id = :usuarioId AND r.puntuacion >= 4")
     List findFavoritesByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query(value = "SELECT id_receta AS recipeId, id_usuario AS ref, created_at AS fecha FROM Calificaciones " +
+                   "WHERE created_at >= :desde AND created_at < :hasta", nativeQuery = true)
+    List<RecipeActivity> findActivityBetween(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
 }
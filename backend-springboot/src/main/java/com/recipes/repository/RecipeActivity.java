@@ -0,0 +1,13 @@
+package com.recipes.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Actividad sobre una receta (una calificación, un comentario) y cuándo ocurrió
+ */
+public interface RecipeActivity {
+    Long getRecipeId();
+    // Calificación: id del usuario (califica una vez cada receta); comentario: id del comentario
+    Long getRef();
+    LocalDateTime getFecha();
+}
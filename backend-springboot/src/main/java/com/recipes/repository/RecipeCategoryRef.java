@@ -0,0 +1,9 @@
+package com.recipes.repository;
+
+/**
+ * Id de una receta y de su categoría
+ */
+public interface RecipeCategoryRef {
+    Long getId();
+    Long getCategoriaId();
+}
@@ -0,0 +1,26 @@
+package com.recipes.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila plana de la exportación de recetas: columnas escalares de Recetas con autor y categoría
+ * ya resueltos. Al no ser entidades, no quedan en el contexto de persistencia mientras se recorre.
+ */
+public interface RecipeExportRow {
+    Long getId();
+    String getTitulo();
+    String getDescripcion();
+    String getIngredientes();
+    String getInstrucciones();
+    String getPaisOrigen();
+    String getImagenUrl();
+    LocalDateTime getFechaCreacion();
+    LocalDateTime getUpdatedAt();
+    Long getAutorId();
+    String getAutorNombre();
+    Long getCategoriaId();
+    String getCategoriaNombre();
+    Float getPuntuacionPromedio();
+    Integer getTotalCalificaciones();
+    Integer getTotalComentariosAprobados();
+}
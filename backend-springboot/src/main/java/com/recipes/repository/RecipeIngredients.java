@@ -0,0 +1,11 @@
+package com.recipes.repository;
+
+/**
+ * Ingredientes de una receta para construir el índice de despensa sin cargar la entidad
+ */
+public interface RecipeIngredients {
+    Long getId();
+    Long getCategoriaId();
+    String getIngredientesJson();
+    String getIngredientes();
+}
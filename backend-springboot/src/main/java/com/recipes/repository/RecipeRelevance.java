@@ -0,0 +1,9 @@
+package com.recipes.repository;
+
+/**
+ * Resultado de una búsqueda FULLTEXT: id de la receta y su puntaje de relevancia
+ */
+public interface RecipeRelevance {
+    Long getId();
+    Double getRelevancia();
+}
@@ -1,14 +1,24 @@
 package com.recipes.repository;
 
 import com.recipes.model.Recipe;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface RecipeRepository extends JpaRepository<Recipe, Long> {
@@ -20,15 +30,189 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
     Page<Recipe> findByTituloContainingIgnoreCase(String titulo, Pageable pageable);
     
     long countByCategoriaId(Long categoriaId);
+
+    List<Recipe> findByIdBetween(Long desde, Long hasta);
+
+    @Query("SELECT r.id AS id, c.id AS categoriaId, r.ingredientesJson AS ingredientesJson, " +
+           "r.ingredientes AS ingredientes FROM Recipe r LEFT JOIN r.categoria c " +
+           "WHERE r.id BETWEEN :desde AND :hasta")
+    List<RecipeIngredients> findIngredientsByIdBetween(@Param("desde") Long desde, @Param("hasta") Long hasta);
+
+    @Query("SELECT r.id AS id, c.id AS categoriaId FROM Recipe r LEFT JOIN r.categoria c " +
+           "WHERE r.id BETWEEN :desde AND :hasta")
+    List<RecipeCategoryRef> findCategoryRefsByIdBetween(@Param("desde") Long desde, @Param("hasta") Long hasta);
+
+    @Query("SELECT r.id AS id, c.id AS categoriaId, r.sumaCalificaciones AS sumaCalificaciones, " +
+           "r.totalCalificaciones AS totalCalificaciones, r.totalComentariosAprobados AS totalComentariosAprobados " +
+           "FROM Recipe r LEFT JOIN r.categoria c WHERE r.id BETWEEN :desde AND :hasta")
+    List<RecipeStats> findStatsByIdBetween(@Param("desde") Long desde, @Param("hasta") Long hasta);
+
+    @Query("SELECT r.id AS id, c.id AS categoriaId, r.sumaCalificaciones AS sumaCalificaciones, " +
+           "r.totalCalificaciones AS totalCalificaciones, r.totalComentariosAprobados AS totalComentariosAprobados " +
+           "FROM Recipe r LEFT JOIN r.categoria c WHERE r.id IN :ids")
+    List<RecipeStats> findStatsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Paginación por cursor (keyset) ordenada por (fechaCreacion DESC, id DESC).
+    // Devuelven Slice para no ejecutar el COUNT(*) de Page.
+    @Query("SELECT r FROM Recipe r WHERE r.fechaCreacion <= :fecha " +
+           "AND (r.fechaCreacion < :fecha OR r.id < :id) " +
+           "ORDER BY r.fechaCreacion DESC, r.id DESC")
+    Slice<Recipe> findSliceAfter(@Param("fecha") LocalDateTime fecha, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT r FROM Recipe r WHERE r.categoria.id = :categoriaId AND r.fechaCreacion <= :fecha " +
+           "AND (r.fechaCreacion < :fecha OR r.id < :id) " +
+           "ORDER BY r.fechaCreacion DESC, r.id DESC")
+    Slice<Recipe> findSliceByCategoriaAfter(@Param("categoriaId") Long categoriaId,
+                                            @Param("fecha") LocalDateTime fecha, @Param("id") Long id,
+                                            Pageable pageable);
+
+    @Query("SELECT r FROM Recipe r WHERE LOWER(r.titulo) LIKE LOWER(CONCAT('%', :titulo, '%')) " +
+           "AND r.fechaCreacion <= :fecha AND (r.fechaCreacion < :fecha OR r.id < :id) " +
+           "ORDER BY r.fechaCreacion DESC, r.id DESC")
+    Slice<Recipe> findSliceByTituloAfter(@Param("titulo") String titulo,
+                                         @Param("fecha") LocalDateTime fecha, @Param("id") Long id,
+                                         Pageable pageable);
+
+    @Query("SELECT r FROM Recipe r WHERE r.categoria.id = :categoriaId " +
+           "AND LOWER(r.titulo) LIKE LOWER(CONCAT('%', :titulo, '%')) " +
+           "AND r.fechaCreacion <= :fecha AND (r.fechaCreacion < :fecha OR r.id < :id) " +
+           "ORDER BY r.fechaCreacion DESC, r.id DESC")
+    Slice<Recipe> findSliceByCategoriaAndTituloAfter(@Param("categoriaId") Long categoriaId,
+                                                     @Param("titulo") String titulo,
+                                                     @Param("fecha") LocalDateTime fecha, @Param("id") Long id,
+                                                     Pageable pageable);
+
+    /**
+     * Total aproximado de recetas según las estadísticas de InnoDB (sin recorrer la tabla)
+     */
+    @Query(value = "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+                   "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Recetas'", nativeQuery = true)
+    Long estimateCount();
     
     @Query("SELECT r FROM Recipe r WHERE LOWER(r.titulo) LIKE LOWER(CONCAT('%', :search, '%')) OR LOWER(r.ingredientes) LIKE LOWER(CONCAT('%', :search, '%'))")
     Page<Recipe> searchByTituloOrIngredientes(@Param("search") String search, Pageable pageable);
     
+    // Búsqueda sobre el índice FULLTEXT ft_recetas_busqueda, ordenada por relevancia
+    String FT_NATURAL = "MATCH(r.nombre_receta, r.descripcion_corta, r.ingredientes_text) AGAINST (:texto IN NATURAL LANGUAGE MODE)";
+    String FT_BOOLEANO = "MATCH(r.nombre_receta, r.descripcion_corta, r.ingredientes_text) AGAINST (:texto IN BOOLEAN MODE)";
+
+    @Query(value = "SELECT r.id_receta AS id, " + FT_NATURAL + " AS relevancia FROM Recetas r " +
+                   "WHERE " + FT_NATURAL + " ORDER BY relevancia DESC, r.id_receta DESC",
+           countQuery = "SELECT COUNT(*) FROM Recetas r WHERE " + FT_NATURAL,
+           nativeQuery = true)
+    Page<RecipeRelevance> searchNatural(@Param("texto") String texto, Pageable pageable);
+
+    @Query(value = "SELECT r.id_receta AS id, " + FT_NATURAL + " AS relevancia FROM Recetas r " +
+                   "WHERE r.id_categoria = :categoriaId AND " + FT_NATURAL + " ORDER BY relevancia DESC, r.id_receta DESC",
+           countQuery = "SELECT COUNT(*) FROM Recetas r WHERE r.id_categoria = :categoriaId AND " + FT_NATURAL,
+           nativeQuery = true)
+    Page<RecipeRelevance> searchNaturalByCategoria(@Param("categoriaId") Long categoriaId,
+                                                   @Param("texto") String texto, Pageable pageable);
+
+    @Query(value = "SELECT r.id_receta AS id, " + FT_BOOLEANO + " AS relevancia FROM Recetas r " +
+                   "WHERE " + FT_BOOLEANO + " ORDER BY relevancia DESC, r.id_receta DESC",
+           countQuery = "SELECT COUNT(*) FROM Recetas r WHERE " + FT_BOOLEANO,
+           nativeQuery = true)
+    Page<RecipeRelevance> searchBoolean(@Param("texto") String texto, Pageable pageable);
+
+    @Query(value = "SELECT r.id_receta AS id, " + FT_BOOLEANO + " AS relevancia FROM Recetas r " +
+                   "WHERE r.id_categoria = :categoriaId AND " + FT_BOOLEANO + " ORDER BY relevancia DESC, r.id_receta DESC",
+           countQuery = "SELECT COUNT(*) FROM Recetas r WHERE r.id_categoria = :categoriaId AND " + FT_BOOLEANO,
+           nativeQuery = true)
+    Page<RecipeRelevance> searchBooleanByCategoria(@Param("categoriaId") Long categoriaId,
+                                                   @Param("texto") String texto, Pageable pageable);
+    
     @Query("SELECT r FROM Recipe r JOIN FeaturedRecipe f ON r.id = f.idReceta ORDER BY f.createdAt DESC")
     List<Recipe> findFeaturedRecipes();
     
     @Query("SELECT COALESCE(AVG(c.puntuacion), 0.0) FROM Rating c WHERE c.receta.id = :recipeId")
     Double getAverageRating(@Param("recipeId") Long recipeId);
+
+    @Query("SELECT r.id AS id, r.updatedAt AS updatedAt, a.updatedAt AS autorUpdatedAt, " +
+           "c.updatedAt AS categoriaUpdatedAt, r.sumaCalificaciones AS sumaCalificaciones, " +
+           "r.totalCalificaciones AS totalCalificaciones, r.totalComentariosAprobados AS totalComentariosAprobados " +
+           "FROM Recipe r JOIN r.autor a LEFT JOIN r.categoria c WHERE r.id = :id")
+    Optional<RecipeVersion> findVersionById(@Param("id") Long id);
+
+    /**
+     * Nombres de autor y categoría para un lote de recetas en una sola consulta
+     */
+    @Query("SELECT r.id AS id, a.id AS autorId, a.username AS autorNombre, " +
+           "c.id AS categoriaId, c.nombre AS categoriaNombre " +
+           "FROM Recipe r JOIN r.autor a LEFT JOIN r.categoria c WHERE r.id IN :ids")
+    List<RecipeSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Aplica el cambio de una calificación a los agregados de la receta.
+     * MySQL evalúa las asignaciones de izquierda a derecha, así que el promedio
+     * se calcula con la suma y el total ya actualizados.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE Recetas SET suma_calificaciones = suma_calificaciones + :deltaSuma, " +
+                   "total_calificaciones = total_calificaciones + :deltaTotal, " +
+                   "puntuacion_promedio = IF(total_calificaciones > 0, suma_calificaciones / total_calificaciones, 0) " +
+                   "WHERE id_receta = :recipeId", nativeQuery = true)
+    int applyRatingDelta(@Param("recipeId") Long recipeId,
+                         @Param("deltaSuma") int deltaSuma,
+                         @Param("deltaTotal") int deltaTotal);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE Recetas SET total_comentarios_aprobados = GREATEST(total_comentarios_aprobados + :delta, 0) " +
+                   "WHERE id_receta = :recipeId", nativeQuery = true)
+    int applyApprovedCommentDelta(@Param("recipeId") Long recipeId, @Param("delta") int delta);
+
+    /**
+     * Recalcula los agregados de un rango de recetas desde Calificaciones y Comentarios.
+     * Solo toca las filas que se desviaron, y devuelve cuántas se corrigieron.
+     */
+    @Modifying
+    @Query(value = "UPDATE Recetas r " +
+                   "LEFT JOIN (SELECT id_receta, SUM(puntuacion) AS suma, COUNT(*) AS total FROM Calificaciones " +
+                   "           WHERE id_receta BETWEEN :desde AND :hasta GROUP BY id_receta) cal " +
+                   "       ON cal.id_receta = r.id_receta " +
+                   "LEFT JOIN (SELECT c.id_receta, COUNT(*) AS total FROM Comentarios c " +
+                   "           JOIN Estados_Comentario e ON e.id_estado = c.id_estado " +
+                   "           WHERE e.nombre_estado = 'APROBADO' AND c.id_receta BETWEEN :desde AND :hasta " +
+                   "           GROUP BY c.id_receta) com " +
+                   "       ON com.id_receta = r.id_receta " +
+                   "SET r.suma_calificaciones = COALESCE(cal.suma, 0), " +
+                   "    r.total_calificaciones = COALESCE(cal.total, 0), " +
+                   "    r.puntuacion_promedio = IF(COALESCE(cal.total, 0) > 0, cal.suma / cal.total, 0), " +
+                   "    r.total_comentarios_aprobados = COALESCE(com.total, 0) " +
+                   "WHERE r.id_receta BETWEEN :desde AND :hasta " +
+                   "  AND (r.suma_calificaciones <> COALESCE(cal.suma, 0) " +
+                   "       OR r.total_calificaciones <> COALESCE(cal.total, 0) " +
+                   "       OR r.total_comentarios_aprobados <> COALESCE(com.total, 0))", nativeQuery = true)
+    int reconcileAggregates(@Param("desde") Long desde, @Param("hasta") Long hasta);
+
+    /**
+     * Todas las recetas en orden de id para la exportación. Con fetch size Integer.MIN_VALUE
+     * el driver de MySQL entrega las filas de a una en lugar de cargar el resultado completo;
+     * el Stream debe consumirse y cerrarse dentro de una transacción.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT r.id AS id, r.titulo AS titulo, r.descripcion AS descripcion, r.ingredientes AS ingredientes, " +
+           "r.instrucciones AS instrucciones, r.paisOrigen AS paisOrigen, r.imagenUrl AS imagenUrl, " +
+           "r.fechaCreacion AS fechaCreacion, r.updatedAt AS updatedAt, a.id AS autorId, a.username AS autorNombre, " +
+           "c.id AS categoriaId, c.nombre AS categoriaNombre, r.puntuacionPromedio AS puntuacionPromedio, " +
+           "r.totalCalificaciones AS totalCalificaciones, r.totalComentariosAprobados AS totalComentariosAprobados " +
+           "FROM Recipe r JOIN r.autor a LEFT JOIN r.categoria c ORDER BY r.id")
+    Stream<RecipeExportRow> streamAllForExport();
+
+    @Query("SELECT MIN(r.id) FROM Recipe r")
+    Long findMinId();
+
+    @Query("SELECT MAX(r.id) FROM Recipe r")
+    Long findMaxId();
+
+    @Query("SELECT r.imagenUrl FROM Recipe r WHERE r.id BETWEEN :desde AND :hasta AND r.imagenUrl IS NOT NULL")
+    List<String> findImageUrlsByIdBetween(@Param("desde") Long desde, @Param("hasta") Long hasta);
+
+    boolean existsByImagenUrlEndingWith(String fileName);
     
     @Query("SELECT r FROM Recipe r LEFT JOIN r.calificaciones c GROUP BY r ORDER BY AVG(c.puntuacion) DESC")
     List<Recipe> findTopByCalificacion(Pageable pageable);
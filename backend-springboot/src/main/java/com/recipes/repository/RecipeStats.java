@@ -0,0 +1,12 @@
+package com.recipes.repository;
+
+/**
+ * Agregados de una receta (columnas de Recetas) para los reportes
+ */
+public interface RecipeStats {
+    Long getId();
+    Long getCategoriaId();
+    Integer getSumaCalificaciones();
+    Integer getTotalCalificaciones();
+    Integer getTotalComentariosAprobados();
+}
@@ -0,0 +1,13 @@
+package com.recipes.repository;
+
+/**
+ * Proyección con los datos de listado de una receta que no viven en la fila de Recetas:
+ * nombre del autor y nombre de la categoría.
+ */
+public interface RecipeSummary {
+    Long getId();
+    Long getAutorId();
+    String getAutorNombre();
+    Long getCategoriaId();
+    String getCategoriaNombre();
+}
@@ -0,0 +1,17 @@
+package com.recipes.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Todo lo que puede cambiar el detalle de una receta, para validar peticiones condicionales
+ * (ETag / Last-Modified) sin armar el DTO
+ */
+public interface RecipeVersion {
+    Long getId();
+    LocalDateTime getUpdatedAt();
+    LocalDateTime getAutorUpdatedAt();
+    LocalDateTime getCategoriaUpdatedAt();
+    Integer getSumaCalificaciones();
+    Integer getTotalCalificaciones();
+    Integer getTotalComentariosAprobados();
+}
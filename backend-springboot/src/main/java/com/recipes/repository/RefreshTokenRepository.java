@@ -0,0 +1,44 @@
+package com.recipes.repository;
+
+import com.recipes.model.RefreshToken;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Bloquea la fila para que dos renovaciones simultáneas con el mismo token no roten ambas
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM RefreshToken t WHERE t.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHashForUpdate(@Param("tokenHash") String tokenHash);
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    Optional<RefreshToken> findByJtiAcceso(String jtiAcceso);
+
+    List<RefreshToken> findByFamiliaAndRevocadoEnIsNull(String familia);
+
+    /**
+     * Access tokens revocados que aún no vencen, para reconstruir la lista en memoria al arrancar
+     */
+    @Query("SELECT t FROM RefreshToken t WHERE t.revocadoEn IS NOT NULL AND t.accesoExpiraEn > :now")
+    List<RefreshToken> findRevokedAccessAfter(@Param("now") LocalDateTime now);
+
+    /**
+     * Borra los tokens ya inservibles: vencidos tanto el refresh como su access token
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.expiraEn < :now AND t.accesoExpiraEn < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
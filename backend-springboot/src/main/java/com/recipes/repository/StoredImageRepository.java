@@ -0,0 +1,34 @@
+package com.recipes.repository;
+
+import com.recipes.model.StoredImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StoredImageRepository extends JpaRepository<StoredImage, String> {
+
+    /**
+     * Registra una subida de la imagen, creando la fila si es la primera de ese contenido.
+     * updated_at marca la última subida: desde ahí corre el periodo de gracia del barrido
+     */
+    @Modifying
+    @Query(value = "INSERT INTO Imagenes (hash, extension, tamano_bytes, referencias) " +
+                   "VALUES (:hash, :extension, :tamano, 1) " +
+                   "ON DUPLICATE KEY UPDATE referencias = referencias + 1, updated_at = CURRENT_TIMESTAMP",
+           nativeQuery = true)
+    int addReference(@Param("hash") String hash, @Param("extension") String extension, @Param("tamano") long tamano);
+
+    /**
+     * Imágenes subidas (o vueltas a subir) desde la fecha dada, todavía en periodo de gracia
+     */
+    @Query(value = "SELECT hash FROM Imagenes WHERE updated_at >= :desde", nativeQuery = true)
+    List<String> findHashesReferencedSince(@Param("desde") LocalDateTime desde);
+
+    boolean existsByHashAndUpdatedAtGreaterThanEqual(String hash, LocalDateTime desde);
+}
@@ -2,11 +2,13 @@ package com.recipes.repository;
 
 import com.recipes.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -32,4 +34,19 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmailOrUsername(String email, String username);
     Boolean existsByEmail(String email);
     Boolean existsByUsername(String username);
+
+    @Query("SELECT MIN(u.id) FROM User u")
+    Long findMinId();
+
+    @Query("SELECT MAX(u.id) FROM User u")
+    Long findMaxId();
+
+    @Query("SELECT u.fotoPerfilUrl FROM User u WHERE u.id BETWEEN :desde AND :hasta AND u.fotoPerfilUrl IS NOT NULL")
+    List<String> findPhotoUrlsByIdBetween(@Param("desde") Long desde, @Param("hasta") Long hasta);
+
+    boolean existsByFotoPerfilUrlEndingWith(String fileName);
+
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.id = :id")
+    int updatePasswordHash(@Param("id") Long id, @Param("passwordHash") String passwordHash);
 }
@@ -0,0 +1,60 @@
+package com.recipes.search;
+
+import com.recipes.dto.RecipeDTO;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receta ya analizada, lista para agregarse al índice. Solo conserva el id y la categoría:
+ * los resultados se completan con los datos actuales de la receta al leer cada página.
+ * El análisis se hace fuera del lock del índice (y en paralelo durante la construcción).
+ */
+final class AnalyzedRecipe {
+
+    // Peso de cada campo en la frecuencia del término (BM25 con campos ponderados)
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 2;
+    private static final int INGREDIENTS_WEIGHT = 1;
+
+    final long recipeId;
+    final long categoryId;
+    final String[] terms;
+    final int[] freqs;
+    final int length;
+
+    private AnalyzedRecipe(long recipeId, long categoryId, String[] terms, int[] freqs, int length) {
+        this.recipeId = recipeId;
+        this.categoryId = categoryId;
+        this.terms = terms;
+        this.freqs = freqs;
+        this.length = length;
+    }
+
+    static AnalyzedRecipe of(RecipeDTO recipe) {
+        Map<String, Integer> termFreqs = new HashMap<>();
+        int length = addField(termFreqs, recipe.getTitulo(), TITLE_WEIGHT)
+                + addField(termFreqs, recipe.getDescripcion(), DESCRIPTION_WEIGHT)
+                + addField(termFreqs, recipe.getIngredientes(), INGREDIENTS_WEIGHT);
+
+        String[] terms = new String[termFreqs.size()];
+        int[] freqs = new int[termFreqs.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : termFreqs.entrySet()) {
+            terms[i] = entry.getKey();
+            freqs[i] = entry.getValue();
+            i++;
+        }
+        return new AnalyzedRecipe(recipe.getId(),
+                recipe.getCategoriaId() != null ? recipe.getCategoriaId() : 0L, terms, freqs, length);
+    }
+
+    private static int addField(Map<String, Integer> termFreqs, String text, int weight) {
+        List<String> terms = SpanishAnalyzer.analyze(text);
+        for (String term : terms) {
+            termFreqs.merge(term, weight, Integer::sum);
+        }
+        return terms.size() * weight;
+    }
+}
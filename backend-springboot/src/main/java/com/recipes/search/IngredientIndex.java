@@ -0,0 +1,212 @@
+package com.recipes.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Índice de ingredientes: para cada ingrediente, el BitSet de las recetas que lo usan.
+ * Una consulta de despensa suma, por receta, cuántos de sus ingredientes están disponibles
+ * recorriendo solo los bits de los ingredientes de la despensa.
+ *
+ * No es thread-safe: PantryMatcher lo protege con un ReadWriteLock (las consultas
+ * concurrentes bajo el lock de lectura solo comparten el pool de contadores).
+ */
+final class IngredientIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // Límites del empaquetado de la clave de orden en un long
+    private static final int MAX_PACKED_COUNT = 0x7FFF;
+    private static final int SCRATCH_POOL_SIZE = 4;
+
+    private final Map<String, Integer> ingredientIds = new HashMap<>();
+    private final List<BitSet> recipesByIngredient = new ArrayList<>();
+    // Palabra -> ingredientes que la contienen ("harin" -> {"harin", "harin trig", ...})
+    private final Map<String, BitSet> ingredientsByWord = new HashMap<>();
+
+    private final Map<Long, Integer> docByRecipe = new HashMap<>();
+    private long[] recipeIds = new long[INITIAL_CAPACITY];
+    private long[] categoryIds = new long[INITIAL_CAPACITY];
+    private int[][] docIngredients = new int[INITIAL_CAPACITY][];
+    // Números de documento liberados por borrados, se reutilizan al agregar
+    private int[] freeDocs = new int[16];
+    private int freeCount;
+    private int maxDoc;
+
+    // Contadores reutilizados entre consultas. Pertenecen al índice, así que se liberan con él
+    // al reconstruirlo; las consultas concurrentes por encima del tope usan uno nuevo
+    private final ArrayBlockingQueue<Scratch> scratchPool = new ArrayBlockingQueue<>(SCRATCH_POOL_SIZE);
+
+    int size() {
+        return docByRecipe.size();
+    }
+
+    int ingredientCount() {
+        return ingredientIds.size();
+    }
+
+    void add(long recipeId, Long categoryId, List<String> ingredientKeys) {
+        remove(recipeId);
+        if (ingredientKeys.isEmpty()) {
+            return;
+        }
+
+        int doc = freeCount > 0 ? freeDocs[--freeCount] : maxDoc++;
+        ensureCapacity(maxDoc);
+        recipeIds[doc] = recipeId;
+        categoryIds[doc] = categoryId != null ? categoryId : 0L;
+
+        int[] ingredients = new int[ingredientKeys.size()];
+        for (int i = 0; i < ingredients.length; i++) {
+            int ingredient = ingredientId(ingredientKeys.get(i));
+            recipesByIngredient.get(ingredient).set(doc);
+            ingredients[i] = ingredient;
+        }
+        docIngredients[doc] = ingredients;
+        docByRecipe.put(recipeId, doc);
+    }
+
+    boolean remove(long recipeId) {
+        Integer doc = docByRecipe.remove(recipeId);
+        if (doc == null) {
+            return false;
+        }
+        for (int ingredient : docIngredients[doc]) {
+            recipesByIngredient.get(ingredient).clear(doc);
+        }
+        docIngredients[doc] = null;
+        if (freeCount == freeDocs.length) {
+            freeDocs = Arrays.copyOf(freeDocs, freeCount * 2);
+        }
+        freeDocs[freeCount++] = doc;
+        return true;
+    }
+
+    /**
+     * Recetas que se pueden preparar con la despensa dejando fuera como máximo maxMissing ingredientes,
+     * ordenadas por ingredientes faltantes (menos primero) y luego por ingredientes cubiertos (más primero)
+     */
+    List<PantryMatch> match(List<String> pantryKeys, int maxMissing, Long categoria, int limit) {
+        List<PantryMatch> matches = new ArrayList<>();
+        if (docByRecipe.isEmpty() || pantryKeys.isEmpty() || limit <= 0) {
+            return matches;
+        }
+
+        BitSet pantry = new BitSet();
+        for (String key : pantryKeys) {
+            pantry.or(resolve(key));
+        }
+        if (pantry.isEmpty()) {
+            return matches;
+        }
+
+        Scratch s = scratchPool.poll();
+        if (s == null) {
+            s = new Scratch();
+        }
+        s.ensureCapacity(maxDoc);
+        int[] counts = s.counts;
+        int[] touched = s.touched;
+        int touchedCount = 0;
+
+        for (int ingredient = pantry.nextSetBit(0); ingredient >= 0; ingredient = pantry.nextSetBit(ingredient + 1)) {
+            BitSet docs = recipesByIngredient.get(ingredient);
+            for (int doc = docs.nextSetBit(0); doc >= 0; doc = docs.nextSetBit(doc + 1)) {
+                if (counts[doc]++ == 0) {
+                    touched[touchedCount++] = doc;
+                }
+            }
+        }
+
+        try {
+            long categoryFilter = categoria != null ? categoria : -1L;
+            long[] keys = new long[touchedCount];
+            int candidates = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                int doc = touched[i];
+                int missing = docIngredients[doc].length - counts[doc];
+                if (missing > maxMissing || (categoryFilter >= 0 && categoryIds[doc] != categoryFilter)) {
+                    continue;
+                }
+                // faltantes | (máximo - cubiertos) | documento: ordenar los long da el ranking
+                keys[candidates++] = ((long) Math.min(missing, MAX_PACKED_COUNT) << 47)
+                        | ((long) (MAX_PACKED_COUNT - Math.min(counts[doc], MAX_PACKED_COUNT)) << 32)
+                        | doc;
+            }
+            Arrays.sort(keys, 0, candidates);
+
+            int count = Math.min(candidates, limit);
+            for (int i = 0; i < count; i++) {
+                int doc = (int) (keys[i] & 0xFFFFFFFFL);
+                int total = docIngredients[doc].length;
+                matches.add(new PantryMatch(recipeIds[doc], counts[doc], total - counts[doc], total));
+            }
+            return matches;
+        } finally {
+            for (int i = 0; i < touchedCount; i++) {
+                counts[touched[i]] = 0;
+            }
+            scratchPool.offer(s);
+        }
+    }
+
+    /**
+     * Ingredientes del índice que contienen todas las palabras de la clave:
+     * "harin" en la despensa cubre "harin" y "harin trig" en las recetas
+     */
+    private BitSet resolve(String key) {
+        BitSet result = null;
+        for (String word : key.split(" ")) {
+            BitSet withWord = ingredientsByWord.get(word);
+            if (withWord == null) {
+                return new BitSet();
+            }
+            if (result == null) {
+                result = (BitSet) withWord.clone();
+            } else {
+                result.and(withWord);
+            }
+        }
+        return result != null ? result : new BitSet();
+    }
+
+    private int ingredientId(String key) {
+        Integer id = ingredientIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        int newId = recipesByIngredient.size();
+        ingredientIds.put(key, newId);
+        recipesByIngredient.add(new BitSet());
+        for (String word : key.split(" ")) {
+            ingredientsByWord.computeIfAbsent(word, w -> new BitSet()).set(newId);
+        }
+        return newId;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= recipeIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, recipeIds.length + (recipeIds.length >> 1));
+        recipeIds = Arrays.copyOf(recipeIds, newCapacity);
+        categoryIds = Arrays.copyOf(categoryIds, newCapacity);
+        docIngredients = Arrays.copyOf(docIngredients, newCapacity);
+    }
+
+    private static final class Scratch {
+        int[] counts = new int[0];
+        int[] touched = new int[0];
+
+        void ensureCapacity(int maxDoc) {
+            if (counts.length < maxDoc) {
+                counts = new int[maxDoc];
+                touched = new int[maxDoc];
+            }
+        }
+    }
+}
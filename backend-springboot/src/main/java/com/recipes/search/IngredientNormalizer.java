@@ -0,0 +1,69 @@
+package com.recipes.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Convierte la lista de ingredientes en texto libre en claves canónicas
+ * ("2 tazas de harina de trigo" -> "harin trig", "3 Huevos" -> "huev").
+ * Se usa al guardar la receta y al interpretar la despensa del usuario,
+ * así que ambos lados se comparan con las mismas claves.
+ */
+public final class IngredientNormalizer {
+
+    // Ya sin acentos; cantidades, utensilios de medida y formas de preparación
+    private static final Set<String> IGNORED_WORDS = Set.of(
+            "taza", "tazas", "cucharada", "cucharadas", "cucharadita", "cucharaditas", "cda", "cdas",
+            "cdta", "cdtas", "cdita", "cditas", "g", "gr", "grs", "gramo", "gramos", "kg", "kilo", "kilos",
+            "mg", "ml", "l", "lt", "litro", "litros", "oz", "onza", "onzas", "lb", "libra", "libras",
+            "pizca", "pizcas", "chorro", "chorrito", "diente", "dientes", "lata", "latas", "paquete",
+            "paquetes", "sobre", "sobres", "rebanada", "rebanadas", "rodaja", "rodajas", "trozo", "trozos",
+            "pieza", "piezas", "unidad", "unidades", "manojo", "ramita", "ramitas", "hoja", "hojas",
+            "media", "medio", "gusto", "opcional", "picado", "picada", "picados", "picadas", "rallado",
+            "rallada", "molido", "molida", "finamente", "cortado", "cortada", "cortados", "cortadas",
+            "cubos", "cubitos", "tiras", "fresco", "fresca", "frescos", "frescas", "grande", "grandes",
+            "mediano", "mediana", "medianos", "medianas", "pequeno", "pequena", "pequenos", "pequenas",
+            "aprox", "aproximadamente");
+
+    private IngredientNormalizer() {
+    }
+
+    /**
+     * Claves de todos los ingredientes de una receta, sin repetir y en orden de aparición.
+     * Acepta un ingrediente por línea o separados por coma o punto y coma.
+     */
+    public static List<String> normalizeList(String ingredientes) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (ingredientes == null || ingredientes.isBlank()) {
+            return new ArrayList<>();
+        }
+        for (String item : ingredientes.split("[\\n\\r,;]+")) {
+            String key = normalize(item);
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Clave de un ingrediente; vacía si no queda ninguna palabra significativa
+     */
+    public static String normalize(String ingrediente) {
+        String folded = SpanishAnalyzer.fold(ingrediente)
+                .replaceAll("\\([^)]*\\)", " ");
+        StringBuilder key = new StringBuilder();
+        for (String token : folded.split("[^\\p{L}]+")) {
+            if (token.length() < 2 || IGNORED_WORDS.contains(token) || SpanishAnalyzer.isStopWord(token)) {
+                continue;
+            }
+            if (key.length() > 0) {
+                key.append(' ');
+            }
+            key.append(SpanishAnalyzer.stem(token));
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,341 @@
+package com.recipes.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Índice invertido con puntaje BM25.
+ * Cada término tiene una lista de postings en arreglos primitivos (documento, frecuencia)
+ * ordenada por número de documento. Los documentos borrados se marcan en un BitSet y se
+ * eliminan físicamente al compactar.
+ *
+ * No es thread-safe: RecipeSearchEngine lo protege con un ReadWriteLock (las búsquedas
+ * concurrentes bajo el lock de lectura solo comparten el pool de acumuladores).
+ */
+final class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MIN_DELETED_FOR_COMPACTION = 1024;
+    private static final int SCRATCH_POOL_SIZE = 4;
+
+    private final Map<String, Postings> postingsByTerm = new HashMap<>();
+    private final Map<Long, Integer> docByRecipe = new HashMap<>();
+
+    // Datos por documento, indexados por número de documento
+    private long[] recipeIds = new long[INITIAL_CAPACITY];
+    private long[] categoryIds = new long[INITIAL_CAPACITY];
+    private int[] docLengths = new int[INITIAL_CAPACITY];
+    private Postings[][] docPostings = new Postings[INITIAL_CAPACITY][];
+
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private int maxDoc;
+    private int liveDocs;
+    private long liveLength;
+
+    // Acumuladores de puntaje reutilizados entre consultas. Pertenecen al índice, así que se
+    // liberan con él al reconstruirlo; las consultas concurrentes por encima del tope usan uno nuevo
+    private final ArrayBlockingQueue<Scratch> scratchPool = new ArrayBlockingQueue<>(SCRATCH_POOL_SIZE);
+
+    int size() {
+        return liveDocs;
+    }
+
+    boolean contains(long recipeId) {
+        return docByRecipe.containsKey(recipeId);
+    }
+
+    void add(AnalyzedRecipe analyzed) {
+        long recipeId = analyzed.recipeId;
+        remove(recipeId);
+        ensureCapacity(maxDoc + 1);
+
+        int doc = maxDoc++;
+        recipeIds[doc] = recipeId;
+        categoryIds[doc] = analyzed.categoryId;
+        docLengths[doc] = analyzed.length;
+
+        Postings[] lists = new Postings[analyzed.terms.length];
+        for (int i = 0; i < analyzed.terms.length; i++) {
+            Postings postings = postingsByTerm.computeIfAbsent(analyzed.terms[i], term -> new Postings());
+            postings.add(doc, analyzed.freqs[i]);
+            lists[i] = postings;
+        }
+        docPostings[doc] = lists;
+
+        docByRecipe.put(recipeId, doc);
+        liveDocs++;
+        liveLength += analyzed.length;
+    }
+
+    boolean remove(long recipeId) {
+        Integer doc = docByRecipe.remove(recipeId);
+        if (doc == null) {
+            return false;
+        }
+        deleted.set(doc);
+        deletedCount++;
+        for (Postings postings : docPostings[doc]) {
+            postings.liveDf--;
+        }
+        liveDocs--;
+        liveLength -= docLengths[doc];
+        docPostings[doc] = null;
+
+        if (deletedCount >= MIN_DELETED_FOR_COMPACTION && deletedCount > maxDoc / 4) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Busca los términos (ya analizados) y devuelve la ventana [offset, offset + limit)
+     * de los resultados ordenados por puntaje BM25
+     */
+    SearchResult search(List<String> queryTerms, Long categoria, int offset, int limit) {
+        if (liveDocs == 0 || queryTerms.isEmpty() || limit <= 0) {
+            return SearchResult.EMPTY;
+        }
+
+        Scratch s = scratchPool.poll();
+        if (s == null) {
+            s = new Scratch();
+        }
+        s.ensureCapacity(maxDoc);
+        float[] scores = s.scores;
+        int[] touched = s.touched;
+        int touchedCount = 0;
+
+        float avgLength = Math.max(1f, (float) liveLength / liveDocs);
+        long categoryFilter = categoria != null ? categoria : -1L;
+
+        for (String term : new LinkedHashSet<>(queryTerms)) {
+            Postings postings = postingsByTerm.get(term);
+            if (postings == null || postings.liveDf == 0) {
+                continue;
+            }
+            float idf = (float) Math.log(1 + (liveDocs - postings.liveDf + 0.5) / (postings.liveDf + 0.5));
+            int[] docs = postings.docs;
+            int[] freqs = postings.freqs;
+            for (int i = 0; i < postings.size; i++) {
+                int doc = docs[i];
+                if (deleted.get(doc) || (categoryFilter >= 0 && categoryIds[doc] != categoryFilter)) {
+                    continue;
+                }
+                float tf = freqs[i];
+                float norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+                if (scores[doc] == 0f) {
+                    touched[touchedCount++] = doc;
+                }
+                scores[doc] += idf * tf * (K1 + 1) / (tf + norm);
+            }
+        }
+
+        try {
+            return topDocs(scores, touched, touchedCount, offset, limit);
+        } finally {
+            for (int i = 0; i < touchedCount; i++) {
+                scores[touched[i]] = 0f;
+            }
+            // Tras una compactación grande no vale la pena retener arreglos sobredimensionados
+            if (s.scores.length <= 2 * Math.max(maxDoc, INITIAL_CAPACITY)) {
+                scratchPool.offer(s);
+            }
+        }
+    }
+
+    private SearchResult topDocs(float[] scores, int[] touched, int touchedCount, int offset, int limit) {
+        int k = (int) Math.min((long) offset + limit, touchedCount);
+        if (k <= offset) {
+            return new SearchResult(touchedCount, new long[0], new float[0]);
+        }
+
+        // Min-heap de tamaño k: la raíz es el peor de los k mejores
+        int[] heap = new int[k];
+        int heapSize = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = touched[i];
+            if (heapSize < k) {
+                heap[heapSize] = doc;
+                siftUp(heap, heapSize++, scores);
+            } else if (ranksBelow(heap[0], doc, scores)) {
+                heap[0] = doc;
+                siftDown(heap, heapSize, scores);
+            }
+        }
+
+        // Vaciar el heap deja los documentos del peor al mejor
+        int[] ordered = new int[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            ordered[i] = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, scores);
+        }
+
+        int count = ordered.length - offset;
+        long[] ids = new long[count];
+        float[] resultScores = new float[count];
+        for (int i = 0; i < count; i++) {
+            int doc = ordered[offset + i];
+            ids[i] = recipeIds[doc];
+            resultScores[i] = scores[doc];
+        }
+        return new SearchResult(touchedCount, ids, resultScores);
+    }
+
+    /** Orden de resultados: mayor puntaje primero y, a igual puntaje, la receta más nueva */
+    private boolean ranksBelow(int a, int b, float[] scores) {
+        if (scores[a] != scores[b]) {
+            return scores[a] < scores[b];
+        }
+        return recipeIds[a] < recipeIds[b];
+    }
+
+    private void siftUp(int[] heap, int index, float[] scores) {
+        int doc = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksBelow(doc, heap[parent], scores)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = doc;
+    }
+
+    private void siftDown(int[] heap, int size, float[] scores) {
+        if (size == 0) {
+            return;
+        }
+        int index = 0;
+        int doc = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && ranksBelow(heap[child + 1], heap[child], scores)) {
+                child++;
+            }
+            if (!ranksBelow(heap[child], doc, scores)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = doc;
+    }
+
+    /**
+     * Elimina físicamente los documentos borrados y renumera los restantes
+     * (la renumeración es monótona, así que los postings siguen ordenados)
+     */
+    private void compact() {
+        int[] remap = new int[maxDoc];
+        int next = 0;
+        for (int doc = 0; doc < maxDoc; doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+                continue;
+            }
+            remap[doc] = next;
+            recipeIds[next] = recipeIds[doc];
+            categoryIds[next] = categoryIds[doc];
+            docLengths[next] = docLengths[doc];
+            docPostings[next] = docPostings[doc];
+            docByRecipe.put(recipeIds[next], next);
+            next++;
+        }
+        Arrays.fill(docPostings, next, maxDoc, null);
+
+        Iterator<Postings> it = postingsByTerm.values().iterator();
+        while (it.hasNext()) {
+            Postings postings = it.next();
+            postings.remap(remap);
+            if (postings.size == 0) {
+                it.remove();
+            }
+        }
+
+        maxDoc = next;
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= recipeIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, recipeIds.length + (recipeIds.length >> 1));
+        recipeIds = Arrays.copyOf(recipeIds, newCapacity);
+        categoryIds = Arrays.copyOf(categoryIds, newCapacity);
+        docLengths = Arrays.copyOf(docLengths, newCapacity);
+        docPostings = Arrays.copyOf(docPostings, newCapacity);
+    }
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+        int liveDf;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+            liveDf++;
+        }
+
+        void remap(int[] remap) {
+            int next = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc >= 0) {
+                    docs[next] = doc;
+                    freqs[next] = freqs[i];
+                    next++;
+                }
+            }
+            size = next;
+        }
+    }
+
+    private static final class Scratch {
+        float[] scores = new float[0];
+        int[] touched = new int[0];
+
+        void ensureCapacity(int maxDoc) {
+            if (scores.length < maxDoc) {
+                scores = new float[maxDoc];
+                touched = new int[maxDoc];
+            }
+        }
+    }
+
+    static final class SearchResult {
+        static final SearchResult EMPTY = new SearchResult(0, new long[0], new float[0]);
+
+        final int totalHits;
+        final long[] recipeIds;
+        final float[] scores;
+
+        SearchResult(int totalHits, long[] recipeIds, float[] scores) {
+            this.totalHits = totalHits;
+            this.recipeIds = recipeIds;
+            this.scores = scores;
+        }
+    }
+}
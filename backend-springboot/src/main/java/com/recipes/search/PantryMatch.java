@@ -0,0 +1,16 @@
+package com.recipes.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Receta encontrada para una despensa y cuántos de sus ingredientes cubre
+ */
+@Getter
+@AllArgsConstructor
+public class PantryMatch {
+    private final long recipeId;
+    private final int coincidencias;
+    private final int faltantes;
+    private final int totalIngredientes;
+}
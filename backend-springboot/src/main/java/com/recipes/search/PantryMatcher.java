@@ -0,0 +1,253 @@
+package com.recipes.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recipes.event.ListenerTransactions;
+import com.recipes.event.RecipeChangedEvent;
+import com.recipes.event.RecipesImportedEvent;
+import com.recipes.repository.RecipeIngredients;
+import com.recipes.repository.RecipeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Búsqueda de recetas por despensa ("¿qué puedo cocinar con esto?") sobre el índice de ingredientes.
+ * Se construye en paralelo al arrancar y se actualiza con cada RecipeChangedEvent, igual que
+ * RecipeSearchEngine.
+ */
+@Component
+public class PantryMatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(PantryMatcher.class);
+    private static final TypeReference<List<String>> KEY_LIST = new TypeReference<>() { };
+
+    private final RecipeRepository recipeRepository;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService batchExecutor;
+    private final ExecutorService rebuildExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long chunkSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IngredientIndex index = new IngredientIndex();
+    // Cambios recibidos mientras se construye un índice nuevo; se reaplican antes de publicarlo
+    private List<IngredientChange> pendingChanges;
+    // Se pidió otra construcción mientras corría una; se repite al terminar
+    private boolean rebuildRequested;
+    private volatile boolean ready;
+
+    public PantryMatcher(RecipeRepository recipeRepository,
+                         ObjectMapper objectMapper,
+                         @Qualifier("batchExecutor") ExecutorService batchExecutor,
+                         @Qualifier("rebuildExecutor") ExecutorService rebuildExecutor,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.search.build-chunk-size:2000}") long chunkSize) {
+        this.recipeRepository = recipeRepository;
+        this.objectMapper = objectMapper;
+        this.batchExecutor = batchExecutor;
+        this.rebuildExecutor = rebuildExecutor;
+        this.readOnlyTransaction = ListenerTransactions.afterCommitReadTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * Las recetas importadas no llegan como eventos individuales: se reconstruye el índice completo
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipesImported(RecipesImportedEvent event) {
+        rebuildExecutor.execute(this::rebuild);
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null) {
+                // La construcción en curso pudo leer las recetas antes de este cambio
+                rebuildRequested = true;
+                log.info("Ya hay una construcción del índice de ingredientes en curso; se repetirá al terminar");
+                return;
+            }
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        while (build()) {
+            log.info("Repitiendo la construcción del índice de ingredientes pedida mientras corría la anterior");
+        }
+    }
+
+    /**
+     * Devuelve true si mientras tanto se pidió otra construcción; en ese caso
+     * pendingChanges queda iniciado para ella
+     */
+    private boolean build() {
+        long start = System.currentTimeMillis();
+        try {
+            IngredientIndex fresh = new IngredientIndex();
+            Long minId = recipeRepository.findMinId();
+            Long maxId = recipeRepository.findMaxId();
+            if (minId != null && maxId != null) {
+                List<CompletableFuture<List<IngredientChange>>> chunks = new ArrayList<>();
+                for (long desde = minId; desde <= maxId; desde += chunkSize) {
+                    long from = desde;
+                    long to = Math.min(desde + chunkSize - 1, maxId);
+                    chunks.add(CompletableFuture.supplyAsync(() -> loadChunk(from, to), batchExecutor));
+                }
+                for (CompletableFuture<List<IngredientChange>> chunk : chunks) {
+                    for (IngredientChange change : chunk.join()) {
+                        change.applyTo(fresh);
+                    }
+                }
+            }
+
+            boolean again;
+            lock.writeLock().lock();
+            try {
+                for (IngredientChange change : pendingChanges) {
+                    change.applyTo(fresh);
+                }
+                index = fresh;
+                ready = true;
+                again = finishBuild();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Índice de ingredientes construido: {} recetas, {} ingredientes en {} ms",
+                    fresh.size(), fresh.ingredientCount(), System.currentTimeMillis() - start);
+            return again;
+        } catch (RuntimeException e) {
+            log.error("No se pudo construir el índice de ingredientes", e);
+            lock.writeLock().lock();
+            try {
+                return finishBuild();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Cierra una construcción (con el lock de escritura tomado) y deja lista la siguiente si se pidió
+     */
+    private boolean finishBuild() {
+        boolean again = rebuildRequested;
+        rebuildRequested = false;
+        pendingChanges = again ? new ArrayList<>() : null;
+        return again;
+    }
+
+    private List<IngredientChange> loadChunk(long from, long to) {
+        List<RecipeIngredients> rows = readOnlyTransaction.execute(status ->
+                recipeRepository.findIngredientsByIdBetween(from, to));
+        List<IngredientChange> changes = new ArrayList<>(rows.size());
+        for (RecipeIngredients row : rows) {
+            changes.add(new IngredientChange(row.getId(), row.getCategoriaId(), ingredientKeys(row)));
+        }
+        return changes;
+    }
+
+    /**
+     * Las claves se guardan normalizadas en la columna JSON al escribir la receta;
+     * las recetas anteriores a eso (JSON vacío) se normalizan desde el texto
+     */
+    private List<String> ingredientKeys(RecipeIngredients row) {
+        String json = row.getIngredientesJson();
+        if (json != null && !json.isBlank()) {
+            try {
+                List<String> keys = objectMapper.readValue(json, KEY_LIST);
+                if (!keys.isEmpty()) {
+                    return new ArrayList<>(new LinkedHashSet<>(keys));
+                }
+            } catch (JsonProcessingException e) {
+                log.debug("Ingredientes JSON no reconocidos en la receta {}, se usa el texto", row.getId());
+            }
+        }
+        return IngredientNormalizer.normalizeList(row.getIngredientes());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        IngredientChange change = event.getReceta() != null
+                ? new IngredientChange(event.getRecipeId(), event.getReceta().getCategoriaId(),
+                        IngredientNormalizer.normalizeList(event.getReceta().getIngredientes()))
+                : new IngredientChange(event.getRecipeId(), null, null);
+
+        lock.writeLock().lock();
+        try {
+            change.applyTo(index);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param despensa Ingredientes disponibles, en texto libre
+     * @param maxFaltantes Ingredientes de la receta que pueden faltar (0 = todos disponibles)
+     */
+    public List<PantryMatch> match(List<String> despensa, int maxFaltantes, Long categoria, int limite) {
+        List<String> keys = new ArrayList<>();
+        for (String ingrediente : despensa) {
+            String key = IngredientNormalizer.normalize(ingrediente);
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            return index.match(keys, Math.max(0, maxFaltantes), categoria, limite);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class IngredientChange {
+        private final long recipeId;
+        private final Long categoryId;
+        // null si la receta se eliminó
+        private final List<String> ingredientKeys;
+
+        IngredientChange(long recipeId, Long categoryId, List<String> ingredientKeys) {
+            this.recipeId = recipeId;
+            this.categoryId = categoryId;
+            this.ingredientKeys = ingredientKeys;
+        }
+
+        void applyTo(IngredientIndex target) {
+            if (ingredientKeys != null) {
+                target.add(recipeId, categoryId, ingredientKeys);
+            } else {
+                target.remove(recipeId);
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.recipes.search;
+
+import com.recipes.dto.RecipeDTO;
+import com.recipes.event.ListenerTransactions;
+import com.recipes.event.RecipeChangedEvent;
+import com.recipes.event.RecipesImportedEvent;
+import com.recipes.repository.RecipeRepository;
+import com.recipes.service.RecipeAssembler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Motor de búsqueda en memoria sobre título, descripción e ingredientes de las recetas.
+ * Se construye en paralelo al arrancar y se actualiza con cada RecipeChangedEvent. El índice
+ * solo guarda ids y puntajes: cada página se completa leyendo por clave primaria las recetas
+ * que muestra, con sus nombres y agregados actuales.
+ */
+@Component
+public class RecipeSearchEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeSearchEngine.class);
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeAssembler recipeAssembler;
+    private final ExecutorService batchExecutor;
+    private final ExecutorService rebuildExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long chunkSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private InvertedIndex index = new InvertedIndex();
+    // Cambios recibidos mientras se construye un índice nuevo; se reaplican antes de publicarlo
+    private List<AnalyzedChange> pendingChanges;
+    // Se pidió otra construcción mientras corría una; se repite al terminar
+    private boolean rebuildRequested;
+    private volatile boolean ready;
+
+    public RecipeSearchEngine(RecipeRepository recipeRepository,
+                              RecipeAssembler recipeAssembler,
+                              @Qualifier("batchExecutor") ExecutorService batchExecutor,
+                              @Qualifier("rebuildExecutor") ExecutorService rebuildExecutor,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.search.build-chunk-size:2000}") long chunkSize) {
+        this.recipeRepository = recipeRepository;
+        this.recipeAssembler = recipeAssembler;
+        this.batchExecutor = batchExecutor;
+        this.rebuildExecutor = rebuildExecutor;
+        this.readOnlyTransaction = ListenerTransactions.afterCommitReadTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * Las recetas importadas no llegan como eventos individuales: se reconstruye el índice completo
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipesImported(RecipesImportedEvent event) {
+        rebuildExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * Construye un índice nuevo leyendo las recetas por rangos de id en paralelo
+     * y lo publica de forma atómica. Mientras tanto se sigue usando el índice anterior.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null) {
+                // La construcción en curso pudo leer las recetas antes de este cambio
+                rebuildRequested = true;
+                log.info("Ya hay una construcción del índice de búsqueda en curso; se repetirá al terminar");
+                return;
+            }
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        while (build()) {
+            log.info("Repitiendo la construcción del índice de búsqueda pedida mientras corría la anterior");
+        }
+    }
+
+    /**
+     * Devuelve true si mientras tanto se pidió otra construcción; en ese caso
+     * pendingChanges queda iniciado para ella
+     */
+    private boolean build() {
+        long start = System.currentTimeMillis();
+        try {
+            InvertedIndex fresh = new InvertedIndex();
+            Long minId = recipeRepository.findMinId();
+            Long maxId = recipeRepository.findMaxId();
+            if (minId != null && maxId != null) {
+                List<CompletableFuture<List<AnalyzedRecipe>>> chunks = new ArrayList<>();
+                for (long desde = minId; desde <= maxId; desde += chunkSize) {
+                    long from = desde;
+                    long to = Math.min(desde + chunkSize - 1, maxId);
+                    chunks.add(CompletableFuture.supplyAsync(() -> loadChunk(from, to), batchExecutor));
+                }
+                // El índice nuevo todavía es privado de este hilo: se llena sin lock
+                for (CompletableFuture<List<AnalyzedRecipe>> chunk : chunks) {
+                    for (AnalyzedRecipe analyzed : chunk.join()) {
+                        fresh.add(analyzed);
+                    }
+                }
+            }
+
+            boolean again;
+            lock.writeLock().lock();
+            try {
+                for (AnalyzedChange change : pendingChanges) {
+                    change.applyTo(fresh);
+                }
+                index = fresh;
+                ready = true;
+                again = finishBuild();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Índice de búsqueda construido: {} recetas en {} ms",
+                    fresh.size(), System.currentTimeMillis() - start);
+            return again;
+        } catch (RuntimeException e) {
+            log.error("No se pudo construir el índice de búsqueda", e);
+            lock.writeLock().lock();
+            try {
+                return finishBuild();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Cierra una construcción (con el lock de escritura tomado) y deja lista la siguiente si se pidió
+     */
+    private boolean finishBuild() {
+        boolean again = rebuildRequested;
+        rebuildRequested = false;
+        pendingChanges = again ? new ArrayList<>() : null;
+        return again;
+    }
+
+    private List<AnalyzedRecipe> loadChunk(long from, long to) {
+        List<RecipeDTO> recipes = readOnlyTransaction.execute(status ->
+                recipeAssembler.toDTOs(recipeRepository.findByIdBetween(from, to)));
+        List<AnalyzedRecipe> analyzed = new ArrayList<>(recipes.size());
+        for (RecipeDTO recipe : recipes) {
+            analyzed.add(AnalyzedRecipe.of(recipe));
+        }
+        return analyzed;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        AnalyzedChange change = new AnalyzedChange(event.getRecipeId(),
+                event.getReceta() != null ? AnalyzedRecipe.of(event.getReceta()) : null);
+
+        lock.writeLock().lock();
+        try {
+            change.applyTo(index);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Page<RecipeDTO> search(String texto, Long categoria, Pageable pageable) {
+        List<String> terms = SpanishAnalyzer.analyze(texto);
+        int offset = (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE);
+
+        InvertedIndex.SearchResult result;
+        lock.readLock().lock();
+        try {
+            result = index.search(terms, categoria, offset, pageable.getPageSize());
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (result.recipeIds.length == 0) {
+            return new PageImpl<>(new ArrayList<>(), pageable, result.totalHits);
+        }
+
+        List<Long> ids = new ArrayList<>(result.recipeIds.length);
+        for (long id : result.recipeIds) {
+            ids.add(id);
+        }
+        Map<Long, RecipeDTO> byId = new HashMap<>();
+        for (RecipeDTO recipe : readOnlyTransaction.execute(status ->
+                recipeAssembler.toDTOs(recipeRepository.findAllById(ids)))) {
+            byId.put(recipe.getId(), recipe);
+        }
+
+        List<RecipeDTO> content = new ArrayList<>(ids.size());
+        for (int i = 0; i < result.recipeIds.length; i++) {
+            // Una receta eliminada después de consultar el índice se omite
+            RecipeDTO recipe = byId.get(result.recipeIds[i]);
+            if (recipe != null) {
+                recipe.setRelevancia((double) result.scores[i]);
+                content.add(recipe);
+            }
+        }
+        return new PageImpl<>(content, pageable, result.totalHits);
+    }
+
+    private static final class AnalyzedChange {
+        private final Long recipeId;
+        // null si la receta se eliminó
+        private final AnalyzedRecipe analyzed;
+
+        AnalyzedChange(Long recipeId, AnalyzedRecipe analyzed) {
+            this.recipeId = recipeId;
+            this.analyzed = analyzed;
+        }
+
+        void applyTo(InvertedIndex target) {
+            if (analyzed != null) {
+                target.add(analyzed);
+            } else {
+                target.remove(recipeId);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.recipes.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Análisis de texto en español para el índice de búsqueda:
+ * minúsculas, sin acentos, sin palabras vacías y con un stemming ligero
+ * que unifica singular/plural y género ("tomates" y "tomate" -> "tomat").
+ */
+public final class SpanishAnalyzer {
+
+    private static final int MIN_TOKEN_LENGTH = 2;
+
+    // Ya sin acentos, porque se comparan después de fold()
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "al", "algo", "algunas", "algunos", "ante", "antes", "como", "con", "contra", "cual",
+            "cuando", "de", "del", "desde", "donde", "durante", "e", "el", "ella", "ellas", "ellos", "en",
+            "entre", "era", "es", "esa", "esas", "ese", "eso", "esos", "esta", "estan", "estas", "este",
+            "esto", "estos", "fue", "ha", "hasta", "hay", "la", "las", "le", "les", "lo", "los", "mas",
+            "me", "mi", "mis", "mucho", "muchos", "muy", "nada", "ni", "no", "nos", "o", "otra", "otras",
+            "otro", "otros", "para", "pero", "poco", "por", "porque", "que", "quien", "se", "sea", "ser",
+            "si", "sin", "sobre", "son", "su", "sus", "tambien", "te", "tiene", "todo", "todos", "tu",
+            "tus", "u", "un", "una", "unas", "uno", "unos", "y", "ya", "yo");
+
+    private SpanishAnalyzer() {
+    }
+
+    /**
+     * Minúsculas y sin marcas diacríticas ("Piñón" -> "pinon")
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                folded.append(Character.toLowerCase(c));
+            }
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Divide el texto en términos normalizados, en el orden en que aparecen
+     */
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean tokenChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                String token = folded.substring(start, i);
+                if (token.length() >= MIN_TOKEN_LENGTH && !STOP_WORDS.contains(token)) {
+                    terms.add(stem(token));
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    public static boolean isStopWord(String foldedToken) {
+        return STOP_WORDS.contains(foldedToken);
+    }
+
+    /**
+     * Stemming ligero: quita el plural y la vocal final de género.
+     * "nueces" -> "nuez", "limones" -> "limon", "papas" -> "pap", "papa" -> "pap"
+     */
+    public static String stem(String token) {
+        String term = token;
+        int len = term.length();
+
+        if (len >= 5 && term.endsWith("ces") && isVowel(term.charAt(len - 4))) {
+            term = term.substring(0, len - 3) + 'z';
+        } else if (len >= 5 && term.endsWith("es")) {
+            term = term.substring(0, len - 2);
+        } else if (len >= 4 && term.charAt(len - 1) == 's') {
+            term = term.substring(0, len - 1);
+        }
+
+        len = term.length();
+        if (len >= 4) {
+            char last = term.charAt(len - 1);
+            if (last == 'a' || last == 'o' || last == 'e') {
+                term = term.substring(0, len - 1);
+            }
+        }
+        return term;
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+}
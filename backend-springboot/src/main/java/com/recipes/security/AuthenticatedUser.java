@@ -0,0 +1,106 @@
+package com.recipes.security;
+
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Usuario autenticado. Se construye desde la base de datos al iniciar sesión y, en las
+ * peticiones con JWT, desde los claims del token (uid, subject = email, name, roles), sin consultas.
+ * Los servicios lo leen con {@link CurrentUser}.
+ */
+public class AuthenticatedUser implements UserDetails, CredentialsContainer {
+
+    private final Long id;
+    private final String email;
+    // Nombre de usuario visible; null en los tokens emitidos antes de incluirlo
+    private final String displayName;
+    // Solo se conoce al iniciar sesión (y se borra después); en las peticiones con token es null
+    private String password;
+    private final Set<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(Long id, String email, String displayName, String password,
+                             Set<GrantedAuthority> authorities) {
+        this.id = id;
+        this.email = email;
+        this.displayName = displayName;
+        this.password = password;
+        this.authorities = Set.copyOf(authorities);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Rol principal: ROLE_ADMIN si lo tiene, si no el primero que tenga
+     */
+    public String getRole() {
+        String role = null;
+        for (GrantedAuthority authority : authorities) {
+            if ("ROLE_ADMIN".equals(authority.getAuthority())) {
+                return authority.getAuthority();
+            }
+            if (role == null) {
+                role = authority.getAuthority();
+            }
+        }
+        return role;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser[id=" + id + ", email=" + email + ", authorities=" + authorities + "]";
+    }
+}
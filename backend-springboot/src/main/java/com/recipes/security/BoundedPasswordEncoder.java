@@ -0,0 +1,128 @@
+package com.recipes.security;
+
+import com.recipes.dto.PasswordHashStatsDTO;
+import com.recipes.exception.TooManyRequestsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt ejecutado en un pool propio y acotado (passwordExecutor). El hilo de la petición espera
+ * el resultado, pero como mucho tantos hashes como hilos del pool ocupan CPU a la vez; con la
+ * cola llena se rechaza al momento con 429 y un Retry-After estimado con la latencia medida.
+ *
+ * Si cambia el coste configurado, {@link #upgradeEncoding} lo detecta en los hashes guardados
+ * y RehashingAuthenticationProvider los recalcula en el siguiente login correcto si hay lugar
+ * en el pool.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final LongAdder rejected = new LongAdder();
+
+    public BoundedPasswordEncoder(int strength, ThreadPoolExecutor executor) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Cualquier hash BCrypt con un coste distinto del configurado, en ambos sentidos
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    /**
+     * Estado del pool; los rehashes los cuenta UserDetailsServiceImpl, que es quien los guarda
+     */
+    public PasswordHashStatsDTO stats() {
+        long count = hashes.sum();
+        return new PasswordHashStatsDTO(strength, executor.getMaximumPoolSize(), executor.getActiveCount(),
+                executor.getQueue().size(), executor.getQueue().size() + executor.getQueue().remainingCapacity(),
+                count, rejected.sum(), 0L,
+                count > 0 ? hashNanos.sum() / 1e6 / count : 0.0, maxHashNanos.get() / 1e6,
+                count > 0 ? waitNanos.sum() / 1e6 / count : 0.0);
+    }
+
+    private <T> T run(Callable<T> hash) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                waitNanos.add(start - submitted);
+                try {
+                    return hash.call();
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    hashes.increment();
+                    hashNanos.add(elapsed);
+                    maxHashNanos.accumulateAndGet(elapsed, Math::max);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Demasiados inicios de sesión simultáneos, intente de nuevo en unos segundos",
+                    retryAfterSeconds());
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se calculaba el hash", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Lo que tardaría en vaciarse la cola actual con la latencia media medida, al menos 1 s
+     */
+    private long retryAfterSeconds() {
+        long count = hashes.sum();
+        double avgMs = count > 0 ? hashNanos.sum() / 1e6 / count : 100.0;
+        int pending = executor.getQueue().size() + executor.getActiveCount();
+        double drainMs = pending * avgMs / Math.max(1, executor.getMaximumPoolSize());
+        return Math.max(1L, (long) Math.ceil(drainMs / 1000.0));
+    }
+}
@@ -0,0 +1,28 @@
+package com.recipes.security;
+
+import com.recipes.exception.UnauthorizedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Acceso al usuario de la petición en curso. El principal lo deja una sola vez el filtro JWT
+ * (o el login) en el contexto de seguridad, así que leerlo no consulta la base de datos.
+ * Para asociar entidades al usuario basta con {@code userRepository.getReferenceById(CurrentUser.id())}.
+ */
+public final class CurrentUser {
+
+    private CurrentUser() {
+    }
+
+    public static AuthenticatedUser get() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user;
+        }
+        throw new UnauthorizedException("Usuario no autenticado");
+    }
+
+    public static Long id() {
+        return get().getId();
+    }
+}
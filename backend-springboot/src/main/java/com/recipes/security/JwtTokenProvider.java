@@ -9,63 +9,189 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+/**
+ * Genera y verifica los JWT (HS512).
+ *
+ * La clave y el parser se construyen una sola vez. Los tokens ya verificados se guardan
+ * hasta su vencimiento en una caché acotada, indexada por el SHA-256 del token completo
+ * (no por el token en sí), de modo que las peticiones siguientes con el mismo token no
+ * vuelven a decodificarlo ni a comprobar la firma. La revocación no pasa por esta caché:
+ * el filtro la consulta en cada petición con el jti ({@link RevokedTokenStore}).
+ */
 @Component
 public class JwtTokenProvider {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private final long jwtExpiration;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
 
-    @Value("${jwt.expiration}")
-    private long jwtExpiration;
+    private final int cacheSize;
+    private final Map<TokenDigest, VerifiedToken> verified = new ConcurrentHashMap<>();
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    });
+
+    public JwtTokenProvider(@Value("${jwt.secret}") String jwtSecret,
+                            @Value("${jwt.expiration}") long jwtExpiration,
+                            @Value("${jwt.verified-cache-size:10000}") int cacheSize) {
+        this.jwtExpiration = jwtExpiration;
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.cacheSize = Math.max(0, cacheSize);
     }
 
-    public String generateToken(Authentication authentication) {
+    /**
+     * @param tokenId Id del token (jti), para poder revocarlo antes de que venza
+     */
+    public String generateToken(Authentication authentication, String tokenId) {
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
         String roles = userDetails.getAuthorities().stream()
-                .map(auth -> auth.getAuthority())
+                .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(","));
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
+                .setId(tokenId)
                 .setSubject(userDetails.getUsername())
-                .claim("roles", roles)
+                .claim("roles", roles);
+        if (userDetails instanceof AuthenticatedUser user) {
+            builder.claim("uid", user.getId());
+            if (user.getDisplayName() != null) {
+                builder.claim("name", user.getDisplayName());
+            }
+        }
+        return builder
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
-    }
+    /**
+     * Verifica firma y vencimiento en una sola pasada
+     * @return Los datos del token, o null si no es válido
+     */
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        TokenDigest digest = cacheSize > 0 ? TokenDigest.of(token) : null;
+        if (digest != null) {
+            VerifiedToken cached = verified.get(digest);
+            if (cached != null) {
+                if (cached.getExpiresAt() > now) {
+                    return cached;
+                }
+                verified.remove(digest);
+                return null;
+            }
+        }
 
-    public boolean validateToken(String authToken) {
+        Claims claims;
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
+            claims = parser.parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
+        }
+        Date issuedAt = claims.getIssuedAt();
+        Date expiration = claims.getExpiration();
+        VerifiedToken result = new VerifiedToken(claims.getId(), claims.get("uid", Long.class), claims.getSubject(),
+                claims.get("name", String.class), claims.get("roles", String.class),
+                issuedAt != null ? issuedAt.getTime() : 0L,
+                expiration != null ? expiration.getTime() : now + jwtExpiration);
+        if (digest != null) {
+            remember(digest, result, now);
         }
+        return result;
+    }
+
+    public String getUsernameFromToken(String token) {
+        VerifiedToken verifiedToken = verify(token);
+        if (verifiedToken == null) {
+            throw new JwtException("Token inválido");
+        }
+        return verifiedToken.getUsername();
+    }
+
+    public boolean validateToken(String authToken) {
+        return verify(authToken) != null;
     }
 
     public Long getExpirationTime() {
         return jwtExpiration;
     }
+
+    /**
+     * Guarda el token verificado; con la caché llena primero se descartan los vencidos
+     * y, si no alcanza, entradas cualquiera hasta dejar un 10% libre
+     */
+    private void remember(TokenDigest digest, VerifiedToken token, long now) {
+        if (verified.size() >= cacheSize) {
+            verified.values().removeIf(cached -> cached.getExpiresAt() <= now);
+            Iterator<TokenDigest> it = verified.keySet().iterator();
+            int target = cacheSize - Math.max(1, cacheSize / 10);
+            while (verified.size() > target && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        verified.put(digest, token);
+    }
+
+    /**
+     * SHA-256 de un token, como clave de la caché
+     */
+    private static final class TokenDigest {
+        private final long a;
+        private final long b;
+        private final long c;
+        private final long d;
+
+        private TokenDigest(long a, long b, long c, long d) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.d = d;
+        }
+
+        static TokenDigest of(String token) {
+            MessageDigest sha256 = SHA256.get();
+            ByteBuffer hash = ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new TokenDigest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TokenDigest)) return false;
+            TokenDigest that = (TokenDigest) o;
+            return a == that.a && b == that.b && c == that.c && d == that.d;
+        }
+
+        @Override
+        public int hashCode() {
+            // Los bits de un SHA-256 ya están bien distribuidos
+            return (int) a;
+        }
+    }
 }
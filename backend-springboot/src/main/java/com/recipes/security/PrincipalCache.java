@@ -0,0 +1,103 @@
+package com.recipes.security;
+
+import com.recipes.event.UserChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Obtiene el usuario autenticado de un JWT ya verificado sin ir a la base de datos: el token
+ * lleva el id, el email, el nombre y los roles del usuario, firmados al iniciar sesión.
+ *
+ * Los claims dejan de valer cuando el usuario cambia después de emitido el token (se edita su
+ * perfil o un administrador lo elimina). Para esos usuarios se recuerda el instante del cambio,
+ * y los tokens anteriores se resuelven con los datos actuales, que se cargan una vez y se guardan
+ * aquí hasta el siguiente cambio. Los cambios se olvidan cuando vencen todos los tokens previos.
+ * Los eventos son locales: con varias instancias cada una solo se entera de sus propios cambios.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserDetailsServiceImpl userDetailsService;
+    private final long tokenLifetime;
+    private final int maxFresh;
+
+    // Usuario -> instante (ms) del último cambio
+    private final Map<Long, Long> changedAt = new ConcurrentHashMap<>();
+    private final Set<Long> deleted = ConcurrentHashMap.newKeySet();
+    // Datos actuales de los usuarios que cambiaron, para sus tokens anteriores al cambio
+    private final Map<Long, AuthenticatedUser> fresh = new ConcurrentHashMap<>();
+
+    public PrincipalCache(UserDetailsServiceImpl userDetailsService,
+                          @Value("${jwt.expiration}") long tokenLifetime,
+                          @Value("${jwt.principal-cache-size:1000}") int maxFresh) {
+        this.userDetailsService = userDetailsService;
+        this.tokenLifetime = tokenLifetime;
+        this.maxFresh = Math.max(1, maxFresh);
+    }
+
+    /**
+     * El usuario del token, o null si ya no existe
+     */
+    public AuthenticatedUser resolve(VerifiedToken token) {
+        Long userId = token.getUserId();
+        if (userId == null) {
+            // Token emitido antes de incluir el id: se busca por email como antes
+            return (AuthenticatedUser) userDetailsService.loadUserByUsername(token.getUsername());
+        }
+
+        Long changed = changedAt.get(userId);
+        if (changed == null || token.getIssuedAt() > changed) {
+            return fromClaims(userId, token);
+        }
+        if (deleted.contains(userId)) {
+            return null;
+        }
+        AuthenticatedUser current = fresh.get(userId);
+        if (current == null) {
+            current = userDetailsService.loadUserById(userId);
+            if (fresh.size() >= maxFresh) {
+                fresh.clear();
+            }
+            fresh.put(userId, current);
+        }
+        return current;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getTipo() == UserChangedEvent.Tipo.REGISTRADO) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        changedAt.values().removeIf(changed -> changed < now - tokenLifetime);
+        deleted.removeIf(id -> !changedAt.containsKey(id));
+        fresh.keySet().removeIf(id -> !changedAt.containsKey(id));
+
+        Long userId = event.getUsuarioId();
+        if (event.getTipo() == UserChangedEvent.Tipo.ELIMINADO) {
+            deleted.add(userId);
+        }
+        changedAt.put(userId, now);
+        fresh.remove(userId);
+    }
+
+    private static AuthenticatedUser fromClaims(Long userId, VerifiedToken token) {
+        Set<GrantedAuthority> authorities = new HashSet<>();
+        if (token.getRoles() != null) {
+            for (String role : token.getRoles().split(",")) {
+                if (!role.isBlank()) {
+                    authorities.add(new SimpleGrantedAuthority(role.trim()));
+                }
+            }
+        }
+        return new AuthenticatedUser(userId, token.getUsername(), token.getName(), null, authorities);
+    }
+}
@@ -0,0 +1,90 @@
+package com.recipes.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita las peticiones POST de login, registro, renovación de token, comentarios y
+ * calificaciones ({@link RateLimitRoute}). Va detrás del filtro JWT para conocer al usuario.
+ * El resto de peticiones solo pagan la comparación del método.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        // Ruta decodificada y sin el context path: /api/auth/%6Cogin también es el login
+        RateLimitRoute route = RateLimitRoute.match(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+        if (route == null || !rateLimiter.isLimited(route)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = rateLimiter.tryAcquire(route, clientKey(route, request));
+        if (waitNanos > 0) {
+            // Segundos completos hasta que haya un token, redondeando hacia arriba
+            long second = TimeUnit.SECONDS.toNanos(1);
+            reject(response, (waitNanos + second - 1) / second);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Id del usuario en las rutas por usuario si hay sesión; si no, la IP. Detrás del proxy
+     * inverso getRemoteAddr ya es la del cliente: la resuelve RemoteIpValve a partir de
+     * X-Forwarded-For, solo para conexiones de proxies de confianza (server.forward-headers-strategy)
+     */
+    private static Object clientKey(RateLimitRoute route, HttpServletRequest request) {
+        if (route.isByUser()) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+                return user.getId();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        // Mismo formato que GlobalExceptionHandler
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", "Demasiadas peticiones, intente de nuevo en unos segundos");
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
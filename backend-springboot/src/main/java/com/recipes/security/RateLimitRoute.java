@@ -0,0 +1,79 @@
+package com.recipes.security;
+
+/**
+ * Rutas POST con límite de peticiones. Las de autenticación se limitan por IP (aún no hay
+ * usuario); las de escritura, por usuario, de modo que varios usuarios tras la misma IP no
+ * se frenan entre sí.
+ */
+public enum RateLimitRoute {
+
+    LOGIN("login", false),
+    REGISTER("register", false),
+    REFRESH("refresh", false),
+    COMMENTS("comments", true),
+    RATINGS("ratings", true);
+
+    private static final String AUTH_PREFIX = "/api/auth/";
+    private static final String RECIPES_PREFIX = "/api/recipes/";
+
+    // Nombre en app.rate-limit.routes.<nombre>
+    private final String configName;
+    private final boolean byUser;
+
+    RateLimitRoute(String configName, boolean byUser) {
+        this.configName = configName;
+        this.byUser = byUser;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public boolean isByUser() {
+        return byUser;
+    }
+
+    /**
+     * Ruta limitada que corresponde a una petición POST, o null
+     * @param uri Ruta dentro de la aplicación, ya decodificada
+     */
+    public static RateLimitRoute match(String uri) {
+        if (uri.startsWith(AUTH_PREFIX)) {
+            switch (uri.substring(AUTH_PREFIX.length())) {
+                case "login":
+                    return LOGIN;
+                case "register":
+                    return REGISTER;
+                case "refresh":
+                    return REFRESH;
+                default:
+                    return null;
+            }
+        }
+        if (uri.startsWith(RECIPES_PREFIX)) {
+            // /api/recipes/{id}/comments y /api/recipes/{id}/ratings
+            int slash = uri.indexOf('/', RECIPES_PREFIX.length());
+            if (slash <= RECIPES_PREFIX.length() || !isDigits(uri, RECIPES_PREFIX.length(), slash)) {
+                return null;
+            }
+            String rest = uri.substring(slash + 1);
+            if (rest.equals("comments")) {
+                return COMMENTS;
+            }
+            if (rest.equals("ratings")) {
+                return RATINGS;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isDigits(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
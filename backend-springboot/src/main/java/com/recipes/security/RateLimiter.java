@@ -0,0 +1,127 @@
+package com.recipes.security;
+
+import com.recipes.config.RateLimitConfig;
+import com.recipes.dto.RateLimitStatsDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Cubos de tokens por cliente y ruta, sin bloqueos.
+ *
+ * Cada cubo es un único AtomicLong con el instante (System.nanoTime) en que volvería a estar
+ * lleno, como en GCRA: admitir una petición adelanta ese instante un intervalo (60 s / ritmo), y
+ * se rechaza si quedaría más de (capacidad - 1) intervalos por delante de ahora. Es equivalente
+ * a un cubo de capacidad y ritmo dados, pero se actualiza con un solo compareAndSet y sin
+ * reservar memoria en el camino habitual.
+ *
+ * Un cubo que lleva tiempo lleno es igual a uno nuevo, así que los inactivos se eliminan
+ * periódicamente. Si se elimina justo cuando se usaba, el cliente recupera como mucho un token.
+ */
+@Component
+public class RateLimiter {
+
+    private final boolean enabled;
+    private final long idleNanos;
+    private final Map<RateLimitRoute, RouteLimiter> routes = new EnumMap<>(RateLimitRoute.class);
+    // System.nanoTime, salvo en las pruebas
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public RateLimiter(RateLimitConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitConfig config, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.enabled = config.isEnabled();
+        this.idleNanos = TimeUnit.SECONDS.toNanos(Math.max(1, config.getIdleExpirySeconds()));
+        for (RateLimitRoute route : RateLimitRoute.values()) {
+            RateLimitConfig.Limit limit = config.getRoutes().get(route.getConfigName());
+            if (limit != null && limit.getCapacity() > 0 && limit.getPerMinute() > 0) {
+                routes.put(route, new RouteLimiter(limit.getCapacity(), limit.getPerMinute()));
+            }
+        }
+    }
+
+    public boolean isLimited(RateLimitRoute route) {
+        return enabled && routes.containsKey(route);
+    }
+
+    /**
+     * Consume un token del cubo del cliente en la ruta
+     * @return 0 si se admite, o los nanosegundos que faltan para que haya un token
+     */
+    public long tryAcquire(RateLimitRoute route, Object clientKey) {
+        RouteLimiter limiter = routes.get(route);
+        if (!enabled || limiter == null) {
+            return 0;
+        }
+        AtomicLong bucket = limiter.buckets.get(clientKey);
+        if (bucket == null) {
+            bucket = limiter.buckets.computeIfAbsent(clientKey, k -> new AtomicLong(nanoClock.getAsLong()));
+        }
+
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long full = bucket.get();
+            long start = full - now > 0 ? full : now;
+            long ahead = start - now;
+            if (ahead > limiter.burstNanos) {
+                limiter.rejected.increment();
+                return ahead - limiter.burstNanos;
+            }
+            if (bucket.compareAndSet(full, start + limiter.intervalNanos)) {
+                limiter.allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long now = nanoClock.getAsLong();
+        for (RouteLimiter limiter : routes.values()) {
+            limiter.buckets.values().removeIf(bucket -> now - bucket.get() > idleNanos);
+        }
+    }
+
+    public List<RateLimitStatsDTO> stats() {
+        List<RateLimitStatsDTO> stats = new ArrayList<>(routes.size());
+        for (Map.Entry<RateLimitRoute, RouteLimiter> entry : routes.entrySet()) {
+            RateLimitRoute route = entry.getKey();
+            RouteLimiter limiter = entry.getValue();
+            stats.add(new RateLimitStatsDTO(route.getConfigName(), route.isByUser() ? "USUARIO" : "IP",
+                    limiter.capacity, limiter.perMinute, limiter.buckets.mappingCount(),
+                    limiter.allowed.sum(), limiter.rejected.sum()));
+        }
+        return stats;
+    }
+
+    private static final class RouteLimiter {
+        private final int capacity;
+        private final int perMinute;
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final ConcurrentHashMap<Object, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        private RouteLimiter(int capacity, int perMinute) {
+            this.capacity = capacity;
+            this.perMinute = perMinute;
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / perMinute;
+            this.burstNanos = intervalNanos * (capacity - 1);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.recipes.security;
+
+import com.recipes.exception.TooManyRequestsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+
+/**
+ * DaoAuthenticationProvider que recalcula el hash de un login correcto guardado con otro coste
+ * BCrypt, pero sin que eso pueda hacer fallar el login: el nuevo hash pasa por el mismo pool
+ * acotado que las verificaciones, y si está lleno (o falla el guardado) se deja para el próximo
+ * inicio de sesión en lugar de responder 429 a una contraseña correcta.
+ */
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(RehashingAuthenticationProvider.class);
+
+    // No se registra en la clase base, que haría el rehash de forma obligatoria
+    private final UserDetailsPasswordService passwordService;
+
+    public RehashingAuthenticationProvider(UserDetailsPasswordService passwordService) {
+        this.passwordService = passwordService;
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication,
+                                                         UserDetails user) {
+        UserDetails current = user;
+        if (getPasswordEncoder().upgradeEncoding(user.getPassword())) {
+            try {
+                String newPassword = getPasswordEncoder().encode(authentication.getCredentials().toString());
+                current = passwordService.updatePassword(user, newPassword);
+            } catch (TooManyRequestsException | DataAccessException e) {
+                log.info("Se pospone el rehash de una contraseña: {}", e.getMessage());
+            }
+        }
+        return super.createSuccessAuthentication(principal, authentication, current);
+    }
+}
@@ -0,0 +1,123 @@
+package com.recipes.security;
+
+import com.recipes.model.RefreshToken;
+import com.recipes.repository.RefreshTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Ids (jti) de los access tokens revocados antes de vencer, para que el filtro JWT los rechace
+ * sin consultar la base de datos. Cada id se guarda hasta que vence su token: a partir de ahí
+ * la verificación del JWT ya lo rechaza por sí sola. Los más próximos a vencer se descartan
+ * primero, recorriendo el índice ordenado por vencimiento.
+ *
+ * La tabla Tokens_Refresco es la fuente: al arrancar se cargan las revocaciones vigentes antes
+ * de que el servidor acepte peticiones. Con varias instancias, cada una solo conoce sus propias
+ * revocaciones hasta que reinicia.
+ */
+@Component
+public class RevokedTokenStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RevokedTokenStore.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    // jti -> vencimiento del access token (ms desde epoch)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Revocation> byExpiry = new ConcurrentSkipListSet<>();
+
+    public RevokedTokenStore(RefreshTokenRepository refreshTokenRepository) {
+        this.refreshTokenRepository = refreshTokenRepository;
+    }
+
+    @PostConstruct
+    public void load() {
+        LocalDateTime now = LocalDateTime.now();
+        for (RefreshToken token : refreshTokenRepository.findRevokedAccessAfter(now)) {
+            revoke(token.getJtiAcceso(), toEpochMillis(token.getAccesoExpiraEn()));
+        }
+        log.info("Cargados {} access tokens revocados", revoked.size());
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && revoked.containsKey(tokenId);
+    }
+
+    public void revoke(String tokenId, long expiresAt) {
+        long now = System.currentTimeMillis();
+        if (tokenId == null || expiresAt <= now) {
+            return;
+        }
+        if (revoked.putIfAbsent(tokenId, expiresAt) == null) {
+            byExpiry.add(new Revocation(expiresAt, tokenId));
+        }
+        evictExpired(now);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.revoked-evict-interval-ms:60000}")
+    public void evictExpired() {
+        evictExpired(System.currentTimeMillis());
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Revocation> it = byExpiry.iterator();
+        while (it.hasNext()) {
+            Revocation oldest = it.next();
+            if (oldest.expiresAt > now) {
+                break;
+            }
+            it.remove();
+            revoked.remove(oldest.tokenId, oldest.expiresAt);
+        }
+    }
+
+    public static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Entrada del índice por vencimiento; el jti desempata los que vencen a la vez
+     */
+    private static final class Revocation implements Comparable<Revocation> {
+        private final long expiresAt;
+        private final String tokenId;
+
+        private Revocation(long expiresAt, String tokenId) {
+            this.expiresAt = expiresAt;
+            this.tokenId = tokenId;
+        }
+
+        @Override
+        public int compareTo(Revocation other) {
+            int byTime = Long.compare(expiresAt, other.expiresAt);
+            return byTime != 0 ? byTime : tokenId.compareTo(other.tokenId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Revocation)) return false;
+            Revocation that = (Revocation) o;
+            return expiresAt == that.expiresAt && tokenId.equals(that.tokenId);
+        }
+
+        @Override
+        public int hashCode() {
+            return tokenId.hashCode();
+        }
+    }
+}
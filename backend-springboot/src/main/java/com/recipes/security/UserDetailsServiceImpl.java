@@ -9,63 +9,79 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private static final Logger log = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
 
     @Autowired
     private UserRepository userRepository;
 
+    // Hashes efectivamente recalculados y guardados desde el arranque
+    private final LongAdder rehashes = new LongAdder();
+
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
-        log.info("Loading user: {}", usernameOrEmail);
-        
         User user = userRepository.findByEmailOrUsernameWithRoles(usernameOrEmail)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + usernameOrEmail));
+        return toAuthenticatedUser(user, usernameOrEmail);
+    }
+
+    /**
+     * Carga el usuario por id, para refrescar los datos de un token emitido antes de que cambiara
+     */
+    @Transactional(readOnly = true)
+    public AuthenticatedUser loadUserById(Long id) throws UsernameNotFoundException {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + id));
+        return toAuthenticatedUser(user, String.valueOf(id));
+    }
 
-        log.info("User found: id={}, username={}", user.getId(), user.getUsername());
-        
-        // Force initialization of the roles collection
+    /**
+     * Guarda el hash recalculado con el coste BCrypt actual tras un login correcto
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        AuthenticatedUser authenticated = (AuthenticatedUser) user;
+        userRepository.updatePasswordHash(authenticated.getId(), newPassword);
+        rehashes.increment();
+        log.debug("Rehashed password for user id={}", authenticated.getId());
+        return new AuthenticatedUser(authenticated.getId(), authenticated.getEmail(), authenticated.getDisplayName(),
+                newPassword, new HashSet<>(authenticated.getAuthorities()));
+    }
+
+    public long getRehashes() {
+        return rehashes.sum();
+    }
+
+    private AuthenticatedUser toAuthenticatedUser(User user, String lookup) {
         Set<Role> roles = user.getRoles();
-        log.info("Roles collection type: {}", roles != null ? roles.getClass().getName() : "null");
-        log.info("Roles collection size before iteration: {}", roles != null ? roles.size() : 0);
-        
-        // Force iteration to ensure all roles are loaded
-        if (roles != null) {
-            for (Role role : roles) {
-                log.info("Found role: {} (id={})", role != null ? role.getNombre() : "null", role != null ? role.getId() : "null");
-            }
-        }
-        
         if (roles == null || roles.isEmpty()) {
-            log.error("User {} has no roles assigned", usernameOrEmail);
-            throw new UsernameNotFoundException("User has no roles assigned: " + usernameOrEmail);
+            log.error("User {} has no roles assigned", lookup);
+            throw new UsernameNotFoundException("User has no roles assigned: " + lookup);
         }
 
         Set<GrantedAuthority> authorities = roles.stream()
                 .map(role -> new SimpleGrantedAuthority(role.getNombre()))
                 .collect(Collectors.toSet());
 
-        log.info("Loaded user {} with {} roles and {} authorities", usernameOrEmail, roles.size(), authorities.size());
+        log.debug("Loaded user id={} with authorities {}", user.getId(), authorities);
 
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail()) // Use email as username for consistency
-                .password(user.getPasswordHash())
-                .authorities(authorities)
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .disabled(false)
-                .build();
+        // Use email as username for consistency
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getUsername(),
+                user.getPasswordHash(), authorities);
     }
 }
@@ -0,0 +1,31 @@
+package com.recipes.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Datos de un JWT cuya firma y vigencia ya se comprobaron
+ */
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+
+    // Id del token (claim jti); null en los tokens emitidos antes de incluirlo
+    private final String tokenId;
+
+    // Id del usuario (claim uid); null en los tokens emitidos antes de incluirlo
+    private final Long userId;
+
+    // Email del usuario (subject)
+    private final String username;
+
+    // Nombre de usuario visible (claim name); null en los tokens emitidos antes de incluirlo
+    private final String name;
+
+    // Roles separados por comas, tal como se firmaron
+    private final String roles;
+
+    // Emisión (iat) y vencimiento (exp) en milisegundos desde epoch
+    private final long issuedAt;
+    private final long expiresAt;
+}
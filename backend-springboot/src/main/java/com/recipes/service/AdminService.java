@@ -1,10 +1,15 @@
 package com.recipes.service;
 
 import com.recipes.dto.*;
+import com.recipes.event.CategoryChangedEvent;
+import com.recipes.event.CommentChangedEvent;
+import com.recipes.event.FeaturedChangedEvent;
+import com.recipes.event.UserChangedEvent;
 import com.recipes.exception.ResourceNotFoundException;
 import com.recipes.model.*;
 import com.recipes.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -23,6 +28,10 @@ public class AdminService {
     private final CommentStatusRepository commentStatusRepository;
     private final CategoryRepository categoryRepository;
     private final FeaturedRecipeRepository featuredRecipeRepository;
+    private final RecipeAggregateService recipeAggregateService;
+    private final CategoryCatalog categoryCatalog;
+    private final DashboardService dashboardService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public Page<UserDTO> getAllUsers(Pageable pageable) {
@@ -35,6 +44,7 @@ public class AdminService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
         userRepository.delete(user);
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Tipo.ELIMINADO, userId));
     }
 
     @Transactional
@@ -59,8 +69,15 @@ public class AdminService {
         CommentStatus approved = commentStatusRepository.findByNombre("APROBADO")
                 .orElseThrow(() -> new ResourceNotFoundException("Estado no encontrado"));
         
+        boolean wasApproved = isApproved(comment);
+        String previousStatus = statusName(comment);
         comment.setEstado(approved);
         Comment saved = commentRepository.save(comment);
+        if (!wasApproved) {
+            recipeAggregateService.applyApprovedComment(comment.getReceta().getId(), 1);
+        }
+        eventPublisher.publishEvent(new CommentChangedEvent(commentId, comment.getReceta().getId(),
+                previousStatus, approved.getNombre()));
         return convertCommentToDTO(saved);
     }
 
@@ -72,8 +89,15 @@ public class AdminService {
         CommentStatus rejected = commentStatusRepository.findByNombre("RECHAZADO")
                 .orElseThrow(() -> new ResourceNotFoundException("Estado no encontrado"));
         
+        boolean wasApproved = isApproved(comment);
+        String previousStatus = statusName(comment);
         comment.setEstado(rejected);
         Comment saved = commentRepository.save(comment);
+        if (wasApproved) {
+            recipeAggregateService.applyApprovedComment(comment.getReceta().getId(), -1);
+        }
+        eventPublisher.publishEvent(new CommentChangedEvent(commentId, comment.getReceta().getId(),
+                previousStatus, rejected.getNombre()));
         return convertCommentToDTO(saved);
     }
 
@@ -81,7 +105,22 @@ public class AdminService {
     public void deleteComment(Long commentId) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Comentario no encontrado"));
+        boolean wasApproved = isApproved(comment);
+        String previousStatus = statusName(comment);
+        Long recipeId = comment.getReceta().getId();
         commentRepository.delete(comment);
+        if (wasApproved) {
+            recipeAggregateService.applyApprovedComment(recipeId, -1);
+        }
+        eventPublisher.publishEvent(new CommentChangedEvent(commentId, recipeId, previousStatus, null));
+    }
+
+    private boolean isApproved(Comment comment) {
+        return "APROBADO".equals(statusName(comment));
+    }
+
+    private String statusName(Comment comment) {
+        return comment.getEstado() != null ? comment.getEstado().getNombre() : null;
     }
 
     @Transactional
@@ -89,6 +128,7 @@ public class AdminService {
         Category category = new Category();
         category.setNombre(categoryDTO.getNombre());
         Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(CategoryChangedEvent.Tipo.CREADA, saved.getId(), saved.getNombre()));
         return convertCategoryToDTO(saved);
     }
 
@@ -98,6 +138,7 @@ public class AdminService {
                 .orElseThrow(() -> new ResourceNotFoundException("Categoria no encontrada"));
         category.setNombre(categoryDTO.getNombre());
         Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(CategoryChangedEvent.Tipo.ACTUALIZADA, saved.getId(), saved.getNombre()));
         return convertCategoryToDTO(saved);
     }
 
@@ -106,6 +147,7 @@ public class AdminService {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Categoria no encontrada"));
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(CategoryChangedEvent.Tipo.ELIMINADA, id, null));
     }
 
     @Transactional
@@ -119,6 +161,7 @@ public class AdminService {
         featured.setReceta(recipe);
         
         featuredRecipeRepository.save(featured);
+        eventPublisher.publishEvent(new FeaturedChangedEvent(recipeId, true));
     }
 
     @Transactional
@@ -126,18 +169,18 @@ public class AdminService {
         List<FeaturedRecipe> featured = featuredRecipeRepository.findByIdReceta(recipeId);
         if (!featured.isEmpty()) {
             featuredRecipeRepository.deleteAll(featured);
+            eventPublisher.publishEvent(new FeaturedChangedEvent(recipeId, false));
         }
     }
 
+    public int reconcileAggregates() {
+        int repaired = recipeAggregateService.reconcile();
+        categoryCatalog.reload();
+        return repaired;
+    }
+
     public DashboardDTO getDashboard() {
-        DashboardDTO dashboard = new DashboardDTO();
-        dashboard.setTotalUsuarios((int) userRepository.count());
-        dashboard.setTotalRecetas((int) recipeRepository.count());
-        dashboard.setTotalCategorias((int) categoryRepository.count());
-        dashboard.setTotalComentariosPendientes(commentRepository.countByEstado_Nombre("PENDIENTE").intValue());
-        dashboard.setTotalComentariosAprobados(commentRepository.countByEstado_Nombre("APROBADO").intValue());
-        dashboard.setTotalRecetasDestacadas((int) featuredRecipeRepository.count());
-        return dashboard;
+        return dashboardService.getDashboard();
     }
 
     private UserDTO convertUserToDTO(User user) {
@@ -175,7 +218,7 @@ public class AdminService {
         CategoryDTO dto = new CategoryDTO();
         dto.setId(category.getId());
         dto.setNombre(category.getNombre());
-        dto.setTotalRecetas(category.getRecetas() != null ? category.getRecetas().size() : 0);
+        dto.setTotalRecetas(categoryCatalog.totalRecetas(category.getId()));
         return dto;
     }
 }
@@ -1,19 +1,31 @@
 package com.recipes.service;
 
 import com.recipes.dto.*;
+import com.recipes.event.UserChangedEvent;
+import com.recipes.exception.BadRequestException;
 import com.recipes.exception.ResourceNotFoundException;
+import com.recipes.exception.UnauthorizedException;
+import com.recipes.model.RefreshToken;
 import com.recipes.model.Role;
 import com.recipes.model.User;
 import com.recipes.repository.RoleRepository;
 import com.recipes.repository.UserRepository;
+import com.recipes.security.AuthenticatedUser;
+import com.recipes.security.CurrentUser;
 import com.recipes.security.JwtTokenProvider;
+import com.recipes.security.RevokedTokenStore;
+import com.recipes.security.UserDetailsServiceImpl;
+import com.recipes.security.VerifiedToken;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,6 +43,10 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
     private final AuthenticationManager authenticationManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RefreshTokenService refreshTokenService;
+    private final RevokedTokenStore revokedTokens;
+    private final UserDetailsServiceImpl userDetailsService;
     
     @PersistenceContext
     private EntityManager entityManager;
@@ -38,11 +54,11 @@ public class AuthService {
     @Transactional
     public JwtResponseDTO register(UserRegistrationDTO registrationDTO) {
         if (userRepository.existsByUsername(registrationDTO.getUsername())) {
-            throw new IllegalArgumentException("El username ya existe");
+            throw new BadRequestException("El username ya existe");
         }
 
         if (userRepository.existsByEmail(registrationDTO.getEmail())) {
-            throw new IllegalArgumentException("El email ya existe");
+            throw new BadRequestException("El email ya existe");
         }
 
         User user = new User();
@@ -58,23 +74,20 @@ public class AuthService {
         user.setRoles(roles);
 
         User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Tipo.REGISTRADO, savedUser.getId()));
 
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        registrationDTO.getUsername(),
-                        registrationDTO.getPassword()
-                )
-        );
-
-        String token = tokenProvider.generateToken(authentication);
-        Long expiresIn = tokenProvider.getExpirationTime();
+        // El usuario recién creado ya está autenticado: no hace falta volver a comprobar el hash
+        AuthenticatedUser principal = new AuthenticatedUser(savedUser.getId(), savedUser.getEmail(),
+                savedUser.getUsername(), null, Set.of(new SimpleGrantedAuthority(userRole.getNombre())));
+        Authentication authentication = new UsernamePasswordAuthenticationToken(
+                principal, null, principal.getAuthorities());
 
-        UserDTO userDTO = convertToUserDTO(savedUser);
-
-        return new JwtResponseDTO(token, expiresIn, userDTO);
+        JwtResponseDTO response = refreshTokenService.issue(authentication);
+        response.setUser(convertToUserDTO(savedUser));
+        return response;
     }
 
-    @Transactional(readOnly = true)
+    // Sin transacción propia: no se retiene una conexión mientras el hash espera en la cola de BCrypt
     public JwtResponseDTO login(UserLoginDTO loginDTO) {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
@@ -84,31 +97,43 @@ public class AuthService {
         );
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        String token = tokenProvider.generateToken(authentication);
-        Long expiresIn = tokenProvider.getExpirationTime();
+        JwtResponseDTO response = refreshTokenService.issue(authentication);
 
-        // Obtener información del usuario desde el Authentication directamente
-        String usernameOrEmail = authentication.getName();
-        
-        // Crear UserDTO directamente sin cargar el objeto User completo
-        UserDTO userDTO = createUserDTOFromAuthentication(usernameOrEmail);
+        // El principal ya trae id y rol; solo faltan los datos de perfil
+        response.setUser(createUserDTOFromAuthentication((AuthenticatedUser) authentication.getPrincipal()));
+        return response;
+    }
+
+    /**
+     * Cambia un refresh token por un par nuevo, con los datos actuales del usuario
+     */
+    @Transactional(noRollbackFor = UnauthorizedException.class)
+    public JwtResponseDTO refresh(RefreshTokenDTO refreshDTO) {
+        RefreshToken used = refreshTokenService.consume(refreshDTO != null ? refreshDTO.getRefreshToken() : null);
+        AuthenticatedUser principal;
+        try {
+            principal = userDetailsService.loadUserById(used.getUsuarioId());
+        } catch (UsernameNotFoundException e) {
+            throw new UnauthorizedException("Usuario no encontrado");
+        }
+        Authentication authentication = new UsernamePasswordAuthenticationToken(
+                principal, null, principal.getAuthorities());
 
-        return new JwtResponseDTO(token, expiresIn, userDTO);
+        JwtResponseDTO response = refreshTokenService.issue(authentication, used.getFamilia());
+        response.setUser(createUserDTOFromAuthentication(principal));
+        return response;
     }
     
-    private UserDTO createUserDTOFromAuthentication(String usernameOrEmail) {
-        // Usar queries nativos para obtener solo los datos necesarios sin cargar relaciones
+    private UserDTO createUserDTOFromAuthentication(AuthenticatedUser principal) {
+        // Query nativo por clave primaria, sin cargar relaciones
         UserDTO dto = new UserDTO();
         
         try {
-            // Query nativo para obtener datos básicos del usuario
             @SuppressWarnings("unchecked")
             java.util.List<Object[]> userResult = entityManager.createNativeQuery(
-                "SELECT id_usuario, nombre_usuario, email, created_at FROM Usuarios " +
-                "WHERE email = ? OR nombre_usuario = ? LIMIT 1"
+                "SELECT nombre_usuario, email, created_at FROM Usuarios WHERE id_usuario = ?"
             )
-            .setParameter(1, usernameOrEmail)
-            .setParameter(2, usernameOrEmail)
+            .setParameter(1, principal.getId())
             .getResultList();
             
             if (userResult.isEmpty()) {
@@ -116,32 +141,16 @@ public class AuthService {
             }
             
             Object[] userRow = userResult.get(0);
-            Long userId = ((Number) userRow[0]).longValue();
-            String username = (String) userRow[1];
-            String email = (String) userRow[2];
-            LocalDateTime fechaRegistro = userRow[3] != null ? 
-                ((java.sql.Timestamp) userRow[3]).toLocalDateTime() : LocalDateTime.now();
+            String username = (String) userRow[0];
+            String email = (String) userRow[1];
+            LocalDateTime fechaRegistro = userRow[2] != null ? 
+                ((java.sql.Timestamp) userRow[2]).toLocalDateTime() : LocalDateTime.now();
             
-            dto.setId(userId);
+            dto.setId(principal.getId());
             dto.setUsername(username);
             dto.setEmail(email);
             dto.setFechaRegistro(fechaRegistro);
-            
-            // Query nativo para obtener el rol sin cargar relaciones
-            @SuppressWarnings("unchecked")
-            java.util.List<String> roleResult = entityManager.createNativeQuery(
-                "SELECT r.nombre_rol FROM Roles r " +
-                "INNER JOIN Usuario_Rol ur ON r.id_rol = ur.id_rol " +
-                "WHERE ur.id_usuario = ? LIMIT 1"
-            )
-            .setParameter(1, userId)
-            .getResultList();
-            
-            if (!roleResult.isEmpty()) {
-                dto.setRole(roleResult.get(0));
-            } else {
-                dto.setRole("ROLE_USER");
-            }
+            dto.setRole(principal.getRole() != null ? principal.getRole() : "ROLE_USER");
             
         } catch (Exception e) {
             throw new ResourceNotFoundException("Error al obtener datos del usuario: " + e.getMessage());
@@ -150,20 +159,25 @@ public class AuthService {
         return dto;
     }
 
-    public void logout() {
+    /**
+     * Revoca la sesión del refresh token recibido o, si no llega, la del access token
+     */
+    public void logout(String accessToken, RefreshTokenDTO refreshDTO) {
+        VerifiedToken verified = accessToken != null ? tokenProvider.verify(accessToken) : null;
+        refreshTokenService.revokeSession(refreshDTO != null ? refreshDTO.getRefreshToken() : null,
+                verified != null ? verified.getTokenId() : null);
         SecurityContextHolder.clearContext();
     }
 
     public boolean validateToken(String token) {
-        return tokenProvider.validateToken(token);
+        VerifiedToken verified = tokenProvider.verify(token);
+        return verified != null && !revokedTokens.isRevoked(verified.getTokenId());
     }
 
     @Transactional
     public User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String usernameOrEmail = authentication.getName();
-        // Usar método que carga roles explícitamente
-        return userRepository.findByEmailOrUsernameWithRoles(usernameOrEmail)
+        // Por id del principal (clave primaria), con los roles cargados
+        return userRepository.findById(CurrentUser.id())
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
     }
 
@@ -0,0 +1,196 @@
+package com.recipes.service;
+
+import com.recipes.exception.BadRequestException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Traduce lo que escribe el usuario a una expresión válida para MATCH ... AGAINST IN BOOLEAN MODE.
+ * La entrada se tokeniza y se vuelve a emitir: los operadores solo cuentan al inicio de un término
+ * ("ají-amarillo" es una palabra compuesta, no una exclusión), la puntuación suelta se descarta y
+ * los paréntesis o comillas sin cerrar se rechazan con 400 en lugar de llegar a MySQL.
+ * Sin operadores explícitos se exigen todas las palabras como prefijos: "pollo limon" -> "+pollo* +limon*"
+ * y se omiten las de menos de MIN_TOKEN_SIZE letras, que MySQL no indexa: "pollo al limon" -> "+pollo* +limon*"
+ */
+final class BooleanSearchExpression {
+
+    // innodb_ft_min_token_size
+    static final int MIN_TOKEN_SIZE = 3;
+
+    private static final int MAX_DEPTH = 8;
+
+    private final String input;
+    private int pos;
+    private boolean explicit;
+
+    private BooleanSearchExpression(String input) {
+        this.input = input;
+    }
+
+    /**
+     * @return la expresión, o null si sin operadores solo quedan palabras demasiado cortas para el índice
+     */
+    static String parse(String busqueda) {
+        BooleanSearchExpression parser = new BooleanSearchExpression(busqueda);
+        List<Clause> clauses = parser.group(0);
+        if (parser.pos < busqueda.length()) {
+            throw invalid("paréntesis de cierre sin abrir");
+        }
+        if (clauses.isEmpty()) {
+            throw invalid("no contiene términos");
+        }
+        String expression = render(clauses, !parser.explicit);
+        return expression.isEmpty() ? null : expression;
+    }
+
+    private List<Clause> group(int depth) {
+        List<Clause> clauses = new ArrayList<>();
+        while (true) {
+            skipSeparators();
+            if (pos >= input.length() || input.charAt(pos) == ')') {
+                return clauses;
+            }
+            clauses.add(clause(depth));
+        }
+    }
+
+    private Clause clause(int depth) {
+        char operator = 0;
+        if (isOperator(input.charAt(pos))) {
+            operator = input.charAt(pos++);
+            explicit = true;
+        }
+        char c = pos < input.length() ? input.charAt(pos) : ' ';
+        if (c == '(') {
+            if (depth >= MAX_DEPTH) {
+                throw invalid("demasiados paréntesis anidados");
+            }
+            pos++;
+            List<Clause> inner = group(depth + 1);
+            if (pos >= input.length()) {
+                throw invalid("falta cerrar un paréntesis");
+            }
+            pos++;
+            if (inner.isEmpty()) {
+                throw invalid("paréntesis vacíos");
+            }
+            explicit = true;
+            return new Clause(operator, "(" + render(inner, false) + ")", false);
+        }
+        if (c == '"') {
+            explicit = true;
+            return new Clause(operator, phrase(), false);
+        }
+        if (isWordChar(c)) {
+            return word(operator);
+        }
+        throw invalid(c == '*' ? "comodín sin término" : "operador sin término");
+    }
+
+    /**
+     * Letras y dígitos; un guion entre dos letras forma parte de la palabra y
+     * la palabra compuesta se busca como frase exacta
+     */
+    private Clause word(char operator) {
+        StringBuilder word = new StringBuilder();
+        boolean compound = false;
+        while (pos < input.length()) {
+            char c = input.charAt(pos);
+            if (isWordChar(c)) {
+                word.append(c);
+            } else if (c == '-' && pos + 1 < input.length() && isWordChar(input.charAt(pos + 1))) {
+                word.append(' ');
+                compound = true;
+            } else {
+                break;
+            }
+            pos++;
+        }
+        boolean prefix = pos < input.length() && input.charAt(pos) == '*';
+        if (prefix) {
+            pos++;
+            explicit = true;
+        }
+        if (compound) {
+            return new Clause(operator, "\"" + word + "\"", false);
+        }
+        return new Clause(operator, prefix ? word + "*" : word.toString(), !prefix);
+    }
+
+    private String phrase() {
+        int end = input.indexOf('"', pos + 1);
+        if (end < 0) {
+            throw invalid("comillas sin cerrar");
+        }
+        StringBuilder words = new StringBuilder();
+        for (int i = pos + 1; i < end; i++) {
+            char c = input.charAt(i);
+            if (isWordChar(c)) {
+                words.append(c);
+            } else if (words.length() > 0 && words.charAt(words.length() - 1) != ' ') {
+                words.append(' ');
+            }
+        }
+        pos = end + 1;
+        String text = words.toString().trim();
+        if (text.isEmpty()) {
+            throw invalid("frase vacía");
+        }
+        return "\"" + text + "\"";
+    }
+
+    private void skipSeparators() {
+        while (pos < input.length()) {
+            char c = input.charAt(pos);
+            if (isWordChar(c) || isOperator(c) || c == '(' || c == ')' || c == '"' || c == '*') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private static String render(List<Clause> clauses, boolean implicit) {
+        StringBuilder expression = new StringBuilder();
+        for (Clause clause : clauses) {
+            if (implicit && clause.bareWord && clause.text.length() < MIN_TOKEN_SIZE) {
+                continue;
+            }
+            if (expression.length() > 0) {
+                expression.append(' ');
+            }
+            if (implicit) {
+                expression.append('+').append(clause.text).append(clause.bareWord ? "*" : "");
+            } else {
+                if (clause.operator != 0) {
+                    expression.append(clause.operator);
+                }
+                expression.append(clause.text);
+            }
+        }
+        return expression.toString();
+    }
+
+    private static boolean isOperator(char c) {
+        return c == '+' || c == '-' || c == '~' || c == '<' || c == '>';
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static BadRequestException invalid(String reason) {
+        return new BadRequestException("Expresión de búsqueda inválida: " + reason);
+    }
+
+    private static final class Clause {
+        private final char operator;
+        private final String text;
+        private final boolean bareWord;
+
+        private Clause(char operator, String text, boolean bareWord) {
+            this.operator = operator;
+            this.text = text;
+            this.bareWord = bareWord;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.recipes.service;
+
+import com.recipes.dto.CategoryDTO;
+import com.recipes.event.CategoryChangedEvent;
+import com.recipes.event.ListenerTransactions;
+import com.recipes.event.RecipeChangedEvent;
+import com.recipes.event.RecipesImportedEvent;
+import com.recipes.repository.CategoryCount;
+import com.recipes.repository.CategoryRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Catálogo en memoria de categorías con su número de recetas.
+ * Se carga con una sola consulta agrupada y luego se mantiene con los eventos de recetas
+ * y categorías. Las lecturas no toman lock: cada cambio publica un mapa nuevo (copy-on-write),
+ * lo que es barato porque las categorías son pocas.
+ */
+@Component
+public class CategoryCatalog {
+
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Ordenado por id, igual que el listado original; null hasta la primera carga
+    private volatile SortedMap<Long, Entry> categories;
+    // Cambia con cada mapa publicado; sirve de ETag del listado
+    private volatile long version;
+
+    public CategoryCatalog(CategoryRepository categoryRepository,
+                           PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        this.readOnlyTransaction = ListenerTransactions.afterCommitReadTemplate(transactionManager);
+    }
+
+    public List<CategoryDTO> findAll() {
+        List<CategoryDTO> dtos = new ArrayList<>();
+        for (Entry entry : snapshot().values()) {
+            dtos.add(new CategoryDTO(entry.id, entry.nombre, entry.totalRecetas));
+        }
+        return dtos;
+    }
+
+    public long version() {
+        snapshot();
+        return version;
+    }
+
+    public int totalRecetas(Long categoriaId) {
+        Entry entry = snapshot().get(categoriaId);
+        return entry != null ? entry.totalRecetas : 0;
+    }
+
+    /**
+     * Vuelve a leer los conteos de la base de datos (corrige cualquier desviación)
+     */
+    public synchronized void reload() {
+        List<CategoryCount> rows = readOnlyTransaction.execute(status -> categoryRepository.findAllWithRecipeCount());
+        SortedMap<Long, Entry> loaded = new TreeMap<>();
+        for (CategoryCount row : rows) {
+            loaded.put(row.getId(), new Entry(row.getId(), row.getNombre(), row.getTotalRecetas().intValue()));
+        }
+        publish(loaded);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipesImported(RecipesImportedEvent event) {
+        reload();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        Long newCategoryId = event.getReceta() != null ? event.getReceta().getCategoriaId() : null;
+        switch (event.getTipo()) {
+            case CREADA -> addToCount(newCategoryId, 1);
+            case ELIMINADA -> addToCount(event.getCategoriaAnteriorId(), -1);
+            case ACTUALIZADA -> {
+                if (!Objects.equals(event.getCategoriaAnteriorId(), newCategoryId)) {
+                    addToCount(event.getCategoriaAnteriorId(), -1);
+                    addToCount(newCategoryId, 1);
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCategoryChanged(CategoryChangedEvent event) {
+        if (categories == null) {
+            return;
+        }
+        SortedMap<Long, Entry> updated = new TreeMap<>(categories);
+        switch (event.getTipo()) {
+            case CREADA -> updated.put(event.getCategoriaId(), new Entry(event.getCategoriaId(), event.getNombre(), 0));
+            case ACTUALIZADA -> {
+                Entry current = updated.get(event.getCategoriaId());
+                int total = current != null ? current.totalRecetas : 0;
+                updated.put(event.getCategoriaId(), new Entry(event.getCategoriaId(), event.getNombre(), total));
+            }
+            case ELIMINADA -> updated.remove(event.getCategoriaId());
+        }
+        publish(updated);
+    }
+
+    private synchronized void addToCount(Long categoriaId, int delta) {
+        // Sin carga previa no hay nada que actualizar: la primera lectura ya traerá el conteo
+        if (categoriaId == null || categories == null) {
+            return;
+        }
+        Entry current = categories.get(categoriaId);
+        if (current == null) {
+            return;
+        }
+        SortedMap<Long, Entry> updated = new TreeMap<>(categories);
+        updated.put(categoriaId, new Entry(current.id, current.nombre, Math.max(0, current.totalRecetas + delta)));
+        publish(updated);
+    }
+
+    private synchronized void publish(SortedMap<Long, Entry> updated) {
+        categories = Collections.unmodifiableSortedMap(updated);
+        version++;
+    }
+
+    private SortedMap<Long, Entry> snapshot() {
+        SortedMap<Long, Entry> current = categories;
+        if (current == null) {
+            synchronized (this) {
+                if (categories == null) {
+                    reload();
+                }
+                current = categories;
+            }
+        }
+        return current;
+    }
+
+    private static final class Entry {
+        private final Long id;
+        private final String nombre;
+        private final int totalRecetas;
+
+        Entry(Long id, String nombre, int totalRecetas) {
+            this.id = id;
+            this.nombre = nombre;
+            this.totalRecetas = totalRecetas;
+        }
+    }
+}
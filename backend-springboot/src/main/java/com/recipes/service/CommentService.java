@@ -1,18 +1,19 @@
 package com.recipes.service;
 
 import com.recipes.dto.CommentDTO;
+import com.recipes.event.CommentChangedEvent;
 import com.recipes.exception.ResourceNotFoundException;
 import com.recipes.model.Comment;
 import com.recipes.model.CommentStatus;
 import com.recipes.model.Recipe;
-import com.recipes.model.User;
 import com.recipes.repository.CommentRepository;
 import com.recipes.repository.CommentStatusRepository;
 import com.recipes.repository.RecipeRepository;
 import com.recipes.repository.UserRepository;
+import com.recipes.security.AuthenticatedUser;
+import com.recipes.security.CurrentUser;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +28,7 @@ public class CommentService {
     private final RecipeRepository recipeRepository;
     private final CommentStatusRepository commentStatusRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<CommentDTO> findByRecipeId(Long recipeId) {
         List<Comment> comments = commentRepository.findByReceta_IdAndEstado_Nombre(recipeId, "APROBADO");
@@ -43,23 +45,33 @@ public class CommentService {
         CommentStatus pendingStatus = commentStatusRepository.findByNombre("PENDIENTE")
                 .orElseThrow(() -> new ResourceNotFoundException("Estado de comentario no encontrado"));
         
+        AuthenticatedUser currentUser = CurrentUser.get();
         Comment comment = new Comment();
         comment.setContenido(commentDTO.getContenido());
         comment.setReceta(recipe);
-        comment.setUsuario(getCurrentUser());
+        // Referencia sin consulta: solo hace falta el id para la clave foránea
+        comment.setUsuario(userRepository.getReferenceById(currentUser.getId()));
         comment.setEstado(pendingStatus);
         
         Comment saved = commentRepository.save(comment);
-        return convertToDTO(saved);
+        eventPublisher.publishEvent(new CommentChangedEvent(saved.getId(), recipeId, null, pendingStatus.getNombre()));
+        // El nombre viene en el token; los emitidos antes de incluirlo cargan el usuario
+        String usuarioNombre = currentUser.getDisplayName() != null
+                ? currentUser.getDisplayName() : saved.getUsuario().getUsername();
+        return convertToDTO(saved, usuarioNombre);
     }
 
     private CommentDTO convertToDTO(Comment comment) {
+        return convertToDTO(comment, comment.getUsuario().getUsername());
+    }
+
+    private CommentDTO convertToDTO(Comment comment, String usuarioNombre) {
         CommentDTO dto = new CommentDTO();
         dto.setId(comment.getId());
         dto.setContenido(comment.getContenido());
         dto.setFechaCreacion(comment.getFechaCreacion());
         dto.setUsuarioId(comment.getUsuario().getId());
-        dto.setUsuarioNombre(comment.getUsuario().getUsername());
+        dto.setUsuarioNombre(usuarioNombre);
         dto.setRecetaId(comment.getReceta().getId());
         dto.setRecetaTitulo(comment.getReceta().getTitulo());
         dto.setEstadoId(comment.getEstado().getId());
@@ -68,16 +80,9 @@ public class CommentService {
     }
 
     public List<CommentDTO> findByCurrentUser() {
-        List<Comment> comments = commentRepository.findByUsuario_Id(getCurrentUser().getId());
+        List<Comment> comments = commentRepository.findByUsuario_Id(CurrentUser.id());
         return comments.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
-
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String usernameOrEmail = authentication.getName();
-        return userRepository.findByEmailOrUsername(usernameOrEmail, usernameOrEmail)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-    }
 }
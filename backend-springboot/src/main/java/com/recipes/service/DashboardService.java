@@ -0,0 +1,142 @@
+package com.recipes.service;
+
+import com.recipes.dto.DashboardDTO;
+import com.recipes.event.CategoryChangedEvent;
+import com.recipes.event.CommentChangedEvent;
+import com.recipes.event.FeaturedChangedEvent;
+import com.recipes.event.RatingChangedEvent;
+import com.recipes.event.RecipeChangedEvent;
+import com.recipes.event.RecipesImportedEvent;
+import com.recipes.event.UserChangedEvent;
+import com.recipes.repository.DashboardCounts;
+import com.recipes.repository.DashboardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Panel de administración servido desde una instantánea.
+ * La instantánea se recalcula con una sola consulta de forma periódica y, si hubo escrituras
+ * desde el último cálculo, unos segundos después de ellas (varias escrituras seguidas
+ * provocan un solo recálculo). Cargar el panel no consulta la base de datos.
+ */
+@Service
+public class DashboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardService.class);
+    private static final Duration TREND_WINDOW = Duration.ofHours(24);
+
+    private final DashboardRepository dashboardRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final AtomicReference<DashboardDTO> snapshot = new AtomicReference<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    public DashboardService(DashboardRepository dashboardRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.dashboardRepository = dashboardRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public DashboardDTO getDashboard() {
+        DashboardDTO current = snapshot.get();
+        if (current == null) {
+            current = refresh();
+        }
+        // Copia para no modificar la instantánea compartida
+        DashboardDTO dashboard = new DashboardDTO();
+        BeanUtils.copyProperties(current, dashboard);
+        dashboard.setAntiguedadSegundos(Duration.between(current.getGeneradoEn(), LocalDateTime.now()).toSeconds());
+        return dashboard;
+    }
+
+    @Scheduled(fixedDelayString = "${app.dashboard.refresh-interval-ms:300000}")
+    public void scheduledRefresh() {
+        dirty.set(false);
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${app.dashboard.dirty-check-interval-ms:5000}")
+    public void refreshIfDirty() {
+        if (dirty.compareAndSet(true, false)) {
+            refresh();
+        }
+    }
+
+    public DashboardDTO refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        DashboardCounts counts = readOnlyTransaction.execute(status ->
+                dashboardRepository.loadCounts(now.minus(TREND_WINDOW)));
+
+        DashboardDTO dashboard = new DashboardDTO();
+        dashboard.setTotalUsuarios(toInt(counts.getTotalUsuarios()));
+        dashboard.setTotalRecetas(toInt(counts.getTotalRecetas()));
+        dashboard.setTotalCategorias(toInt(counts.getTotalCategorias()));
+        dashboard.setTotalComentariosPendientes(toInt(counts.getTotalComentariosPendientes()));
+        dashboard.setTotalComentariosAprobados(toInt(counts.getTotalComentariosAprobados()));
+        dashboard.setTotalRecetasDestacadas(toInt(counts.getTotalRecetasDestacadas()));
+        dashboard.setNuevosUsuarios24h(toInt(counts.getNuevosUsuarios()));
+        dashboard.setNuevasRecetas24h(toInt(counts.getNuevasRecetas()));
+        dashboard.setNuevosComentarios24h(toInt(counts.getNuevosComentarios()));
+        dashboard.setNuevasCalificaciones24h(toInt(counts.getNuevasCalificaciones()));
+        dashboard.setGeneradoEn(now);
+
+        snapshot.set(dashboard);
+        log.debug("Panel de administración recalculado en {} ms",
+                Duration.between(now, LocalDateTime.now()).toMillis());
+        return dashboard;
+    }
+
+    private static int toInt(Long value) {
+        return value != null ? value.intValue() : 0;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        dirty.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipesImported(RecipesImportedEvent event) {
+        dirty.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent event) {
+        dirty.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingChanged(RatingChangedEvent event) {
+        dirty.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFeaturedChanged(FeaturedChangedEvent event) {
+        dirty.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        dirty.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        // Editar un perfil no cambia ningún conteo
+        if (event.getTipo() != UserChangedEvent.Tipo.ACTUALIZADO) {
+            dirty.set(true);
+        }
+    }
+}
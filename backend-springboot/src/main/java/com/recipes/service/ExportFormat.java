@@ -0,0 +1,38 @@
+package com.recipes.service;
+
+import com.recipes.exception.BadRequestException;
+
+/**
+ * Formatos de exportación del catálogo de recetas, con el identificador que se usa en la URL
+ */
+public enum ExportFormat {
+    NDJSON("ndjson", "application/x-ndjson"),
+    CSV("csv", "text/csv;charset=UTF-8");
+
+    private final String param;
+    private final String contentType;
+
+    ExportFormat(String param, String contentType) {
+        this.param = param;
+        this.contentType = contentType;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static ExportFormat fromParam(String formato) {
+        if (formato != null) {
+            for (ExportFormat format : values()) {
+                if (format.param.equalsIgnoreCase(formato.trim())) {
+                    return format;
+                }
+            }
+        }
+        throw new BadRequestException("Formato de exportación inválido: " + formato);
+    }
+}
@@ -0,0 +1,166 @@
+package com.recipes.service;
+
+import com.recipes.dto.RecipeDTO;
+import com.recipes.event.CategoryChangedEvent;
+import com.recipes.event.CommentChangedEvent;
+import com.recipes.event.FeaturedChangedEvent;
+import com.recipes.event.ListenerTransactions;
+import com.recipes.event.RatingChangedEvent;
+import com.recipes.event.RecipeChangedEvent;
+import com.recipes.event.UserChangedEvent;
+import com.recipes.repository.RecipeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lista de recetas destacadas ya convertida a DTOs. Se publica como una instantánea inmutable
+ * que se reemplaza de forma atómica, así que leerla no consulta la base de datos.
+ * Solo se reconstruye cuando cambian los destacados, alguna de las recetas destacadas
+ * o la categoría o el autor de alguna de ellas (la lista muestra sus nombres).
+ */
+@Component
+public class FeaturedRecipeCache {
+
+    private static final Logger log = LoggerFactory.getLogger(FeaturedRecipeCache.class);
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeAssembler recipeAssembler;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    // Se incrementa en cada invalidación; una instantánea de una generación anterior ya no es válida
+    private final AtomicLong generation = new AtomicLong();
+
+    public FeaturedRecipeCache(RecipeRepository recipeRepository,
+                               RecipeAssembler recipeAssembler,
+                               PlatformTransactionManager transactionManager) {
+        this.recipeRepository = recipeRepository;
+        this.recipeAssembler = recipeAssembler;
+        this.readOnlyTransaction = ListenerTransactions.afterCommitReadTemplate(transactionManager);
+    }
+
+    public List<RecipeDTO> get() {
+        Snapshot current = snapshot.get();
+        if (current != null && current.generation == generation.get()) {
+            return current.recetas;
+        }
+        return load(generation.get());
+    }
+
+    /**
+     * Cambia cada vez que la lista puede haber cambiado. Se lee antes que la lista,
+     * así que una lista nunca es más vieja que la versión con la que se entregó
+     */
+    public long version() {
+        return generation.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFeaturedChanged(FeaturedChangedEvent event) {
+        refresh();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        refreshIfFeatured(event.getRecipeId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingChanged(RatingChangedEvent event) {
+        refreshIfFeatured(event.getRecipeId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent event) {
+        if (event.cambiaAprobados()) {
+            refreshIfFeatured(event.getRecipeId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        Snapshot current = snapshot.get();
+        if (current == null || current.categoriaIds.contains(event.getCategoriaId())) {
+            refresh();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getTipo() == UserChangedEvent.Tipo.REGISTRADO) {
+            return;
+        }
+        Snapshot current = snapshot.get();
+        // Al eliminar un usuario también se borran los destacados que había marcado
+        if (current == null || event.getTipo() == UserChangedEvent.Tipo.ELIMINADO
+                || current.autorIds.contains(event.getUsuarioId())) {
+            refresh();
+        }
+    }
+
+    private void refreshIfFeatured(Long recipeId) {
+        Snapshot current = snapshot.get();
+        if (current == null || current.ids.contains(recipeId)) {
+            refresh();
+        }
+    }
+
+    /**
+     * Invalida la instantánea y la reconstruye enseguida, para que la siguiente
+     * visita a la página de inicio no pague la consulta
+     */
+    private void refresh() {
+        long invalidated = generation.incrementAndGet();
+        try {
+            load(invalidated);
+        } catch (RuntimeException e) {
+            // La instantánea ya quedó invalidada; se reconstruye en la siguiente lectura
+            log.warn("No se pudo reconstruir la lista de destacados: {}", e.getMessage());
+        }
+    }
+
+    private List<RecipeDTO> load(long expectedGeneration) {
+        List<RecipeDTO> recetas = List.copyOf(readOnlyTransaction.execute(status ->
+                recipeAssembler.toDTOs(recipeRepository.findFeaturedRecipes())));
+        Set<Long> ids = new HashSet<>();
+        Set<Long> categoriaIds = new HashSet<>();
+        Set<Long> autorIds = new HashSet<>();
+        for (RecipeDTO receta : recetas) {
+            ids.add(receta.getId());
+            categoriaIds.add(receta.getCategoriaId());
+            autorIds.add(receta.getAutorId());
+        }
+        // Si hubo otra invalidación durante la carga, esta lista ya puede estar vieja: no se publica
+        if (generation.get() == expectedGeneration) {
+            snapshot.set(new Snapshot(expectedGeneration, recetas, ids, categoriaIds, autorIds));
+        }
+        return recetas;
+    }
+
+    private static final class Snapshot {
+        private final long generation;
+        private final List<RecipeDTO> recetas;
+        private final Set<Long> ids;
+        private final Set<Long> categoriaIds;
+        private final Set<Long> autorIds;
+
+        Snapshot(long generation, List<RecipeDTO> recetas, Set<Long> ids,
+                 Set<Long> categoriaIds, Set<Long> autorIds) {
+            this.generation = generation;
+            this.recetas = recetas;
+            this.ids = ids;
+            this.categoriaIds = categoriaIds;
+            this.autorIds = autorIds;
+        }
+    }
+}
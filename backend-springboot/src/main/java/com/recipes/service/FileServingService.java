@@ -0,0 +1,236 @@
+package com.recipes.service;
+
+import com.recipes.exception.ResourceNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Envía archivos guardados (imágenes de recetas) sin pasarlos por el heap.
+ *
+ * Los nombres los genera FileStorageService a partir del contenido y nunca se sobrescriben,
+ * así que el contenido de una URL no cambia: se responde con caché inmutable de un año,
+ * ETag, Last-Modified y soporte de Range (un solo rango). Las imágenes más pedidas se
+ * envían desde ImageByteCache; el resto, con Tomcat, con sendfile después de que termina
+ * la petición, lo que libera el hilo enseguida, y si no con FileChannel.transferTo.
+ */
+@Service
+public class FileServingService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // Igual que el DefaultServlet de Tomcat: para archivos chicos copiar sale más barato
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp");
+
+    private static final String IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePublic().immutable().getHeaderValue();
+    // El original servido en lugar de una variante que todavía no existe no debe quedar
+    // guardado un año bajo la URL de la variante
+    private static final String PROVISIONAL = CacheControl.maxAge(Duration.ofMinutes(1))
+            .cachePublic().getHeaderValue();
+
+    private final FileStorageService fileStorageService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final ImageByteCache imageByteCache;
+
+    public FileServingService(FileStorageService fileStorageService,
+                              ImageDerivativeService imageDerivativeService,
+                              ImageByteCache imageByteCache) {
+        this.fileStorageService = fileStorageService;
+        this.imageDerivativeService = imageDerivativeService;
+        this.imageByteCache = imageByteCache;
+    }
+
+    /**
+     * Responde un GET o HEAD del archivo original
+     * @param attachment true para forzar la descarga (Content-Disposition: attachment)
+     */
+    public void serve(String fileName, boolean attachment,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(fileName, null, attachment, request, response);
+    }
+
+    /**
+     * Responde un GET o HEAD de la variante de tamaño pedida, o del original si size es null
+     * o la variante todavía no se generó
+     */
+    public void serve(String fileName, ImageSize size, boolean attachment,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = fileStorageService.resolveFile(fileName);
+        String cacheControl = IMMUTABLE;
+        if (size != null) {
+            Path variant = imageDerivativeService.findVariant(file, size);
+            if (variant != null) {
+                file = variant;
+            } else if (imageDerivativeService.supports(file)) {
+                cacheControl = PROVISIONAL;
+            }
+        }
+        ImageByteCache.Entry cached = imageByteCache.acquire(file.getFileName().toString());
+        try {
+            send(file, cached, cacheControl, attachment, request, response);
+        } finally {
+            if (cached != null) {
+                imageByteCache.release(cached);
+            }
+        }
+    }
+
+    private void send(Path file, ImageByteCache.Entry cached, String cacheControl, boolean attachment,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String fileName = file.getFileName().toString();
+        long length;
+        long lastModified;
+        if (cached != null) {
+            length = cached.getLength();
+            lastModified = cached.getLastModified();
+        } else {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                throw new ResourceNotFoundException("Archivo no encontrado: " + fileName);
+            }
+            length = attributes.size();
+            lastModified = attributes.lastModifiedTime().toMillis();
+        }
+        String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Fija ETag y Last-Modified, y responde 304 si el cliente ya tiene el archivo
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setContentType(contentType(fileName));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                (attachment ? "attachment" : "inline") + "; filename=\"" + file.getFileName() + "\"");
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0 && ifRangeMatches(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // Varios rangos (multipart/byteranges) no se usan para imágenes: se responde completo
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    start = length;
+                }
+                if (start >= length || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(Math.max(count, 0));
+        if (count <= 0 || "HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (cached != null) {
+            imageByteCache.write(cached, start, count, response.getOutputStream());
+            return;
+        }
+        ImageByteCache.Entry loaded = imageByteCache.load(fileName, file, length, lastModified);
+        if (loaded != null) {
+            try {
+                imageByteCache.write(loaded, start, count, response.getOutputStream());
+            } finally {
+                imageByteCache.release(loaded);
+            }
+            return;
+        }
+
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    // El archivo se achicó mientras se enviaba
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * If-Range: el rango solo vale si el cliente tiene la misma versión del archivo
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date != -1 && lastModified / 1000 <= date / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String contentType(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return DEFAULT_CONTENT_TYPE;
+        }
+        return CONTENT_TYPES.getOrDefault(fileName.substring(dot + 1).toLowerCase(Locale.ROOT), DEFAULT_CONTENT_TYPE);
+    }
+}
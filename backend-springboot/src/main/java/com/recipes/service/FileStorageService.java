@@ -1,23 +1,38 @@
 package com.recipes.service;
 
 import com.recipes.config.FileStorageConfig;
+import com.recipes.event.ImageStoredEvent;
+import com.recipes.exception.BadRequestException;
 import com.recipes.exception.ResourceNotFoundException;
+import com.recipes.repository.RecipeRepository;
+import com.recipes.repository.StoredImageRepository;
+import com.recipes.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 public class FileStorageService {
@@ -26,14 +41,42 @@ public class FileStorageService {
     
     private final Path fileStorageLocation;
     
-    // Extensiones permitidas
-    private static final String[] ALLOWED_EXTENSIONS = {".jpg", ".jpeg", ".png", ".gif", ".webp"};
-    
     // Tamaño máximo: 5MB
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024;
 
+    // Nombre de una imagen direccionada por contenido: sha256.extension
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("([0-9a-f]{64})\\.[a-z]+");
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final StoredImageRepository storedImageRepository;
+    private final RecipeRepository recipeRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ImageByteCache imageByteCache;
+    // Una subida más reciente todavía puede estar por asociarse a una receta
+    private final Duration gracePeriod;
+
+    // Serializa por hash el alta y la baja de referencias con la creación y el borrado del archivo
+    private final Object[] hashLocks = new Object[64];
+
     @Autowired
-    public FileStorageService(FileStorageConfig fileStorageConfig) {
+    public FileStorageService(FileStorageConfig fileStorageConfig, ApplicationEventPublisher eventPublisher,
+                              StoredImageRepository storedImageRepository,
+                              RecipeRepository recipeRepository,
+                              UserRepository userRepository,
+                              PlatformTransactionManager transactionManager,
+                              ImageByteCache imageByteCache,
+                              @Value("${app.uploads.sweep-grace-hours:24}") long graceHours) {
+        this.eventPublisher = eventPublisher;
+        this.imageByteCache = imageByteCache;
+        this.storedImageRepository = storedImageRepository;
+        this.recipeRepository = recipeRepository;
+        this.userRepository = userRepository;
+        this.gracePeriod = Duration.ofHours(Math.max(1, graceHours));
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < hashLocks.length; i++) {
+            hashLocks[i] = new Object();
+        }
         this.fileStorageLocation = Paths.get(fileStorageConfig.getUploadDir())
                 .toAbsolutePath().normalize();
         
@@ -46,90 +89,240 @@ public class FileStorageService {
     }
 
     /**
-     * Guarda un archivo de imagen en disco
+     * Guarda un archivo de imagen en disco, nombrado por el SHA-256 de su contenido.
+     * El archivo se copia a un temporal calculando el hash y reconociendo el formato por sus
+     * primeros bytes en la misma pasada; si ese contenido ya estaba guardado solo se suma
+     * una referencia y se descarta el temporal.
      * @param file El archivo a guardar
-     * @return La ruta relativa del archivo guardado (ej: /uploads/recipes/uuid-filename.jpg)
+     * @return La ruta relativa del archivo guardado (ej: /uploads/recipes/sha256.jpg)
      */
     public String storeFile(MultipartFile file) {
         // Validar que el archivo no esté vacío
         if (file.isEmpty()) {
-            throw new IllegalArgumentException("No se puede almacenar un archivo vacío");
+            throw new BadRequestException("No se puede almacenar un archivo vacío");
         }
         
         // Validar tamaño
         if (file.getSize() > MAX_FILE_SIZE) {
-            throw new IllegalArgumentException("El archivo excede el tamaño máximo permitido (5MB)");
-        }
-        
-        // Obtener nombre original y normalizar
-        String originalFileName = StringUtils.cleanPath(file.getOriginalFilename());
-        
-        // Validar extensión
-        String extension = getFileExtension(originalFileName);
-        if (!isAllowedExtension(extension)) {
-            throw new IllegalArgumentException("Tipo de archivo no permitido. Solo se aceptan: jpg, jpeg, png, gif, webp");
+            throw new BadRequestException("El archivo excede el tamaño máximo permitido (5MB)");
         }
         
+        Path temp = null;
         try {
-            // Validar que no contenga caracteres inválidos
-            if (originalFileName.contains("..")) {
-                throw new IllegalArgumentException("El nombre del archivo contiene una secuencia de ruta inválida");
+            temp = Files.createTempFile(this.fileStorageLocation, ".upload-", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] header = new byte[ImageFormat.HEADER_LENGTH];
+            int headerLength = 0;
+            ImageFormat format = null;
+            long size = 0;
+
+            try (InputStream in = file.getInputStream(); OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[16 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (headerLength < header.length) {
+                        int n = Math.min(read, header.length - headerLength);
+                        System.arraycopy(buffer, 0, header, headerLength, n);
+                        headerLength += n;
+                        if (headerLength == header.length) {
+                            format = requireImage(header, headerLength);
+                        }
+                    }
+                    size += read;
+                    if (size > MAX_FILE_SIZE) {
+                        throw new BadRequestException("El archivo excede el tamaño máximo permitido (5MB)");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
             }
-            
-            // Generar nombre único para evitar colisiones
-            String fileName = UUID.randomUUID().toString() + extension;
-            
-            // Copiar archivo al directorio de destino
-            Path targetLocation = this.fileStorageLocation.resolve(fileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            if (format == null) {
+                format = requireImage(header, headerLength);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String fileName = hash + "." + format.getExtension();
+            boolean created = addReference(hash, format, size, temp, this.fileStorageLocation.resolve(fileName));
+            temp = null;
             
             // Retornar ruta relativa que se guardará en BD
             String relativePath = "/uploads/recipes/" + fileName;
-            log.info("Archivo guardado exitosamente: {}", relativePath);
+            if (created) {
+                log.info("Archivo guardado exitosamente: {}", relativePath);
+                // Las variantes de tamaño se generan en segundo plano
+                eventPublisher.publishEvent(new ImageStoredEvent(fileName));
+            } else {
+                log.debug("Archivo ya almacenado, se reutiliza: {}", relativePath);
+            }
             
             return relativePath;
             
         } catch (IOException ex) {
-            throw new RuntimeException("No se pudo almacenar el archivo " + originalFileName, ex);
+            throw new RuntimeException("No se pudo almacenar el archivo " + file.getOriginalFilename(), ex);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 no disponible", ex);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    private static ImageFormat requireImage(byte[] header, int length) {
+        ImageFormat format = ImageFormat.detect(header, length);
+        if (format == null) {
+            throw new BadRequestException("Tipo de archivo no permitido. Solo se aceptan: jpg, jpeg, png, gif, webp");
         }
+        return format;
     }
 
     /**
-     * Carga un archivo como Resource para servirlo
-     * @param fileName Nombre del archivo
-     * @return Resource del archivo
+     * Mueve el temporal a su ruta definitiva si el contenido es nuevo (o lo borra si ya existía)
+     * y suma la referencia. Devuelve true si el archivo se acaba de crear.
      */
-    public Resource loadFileAsResource(String fileName) {
-        try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists()) {
-                return resource;
+    private boolean addReference(String hash, ImageFormat format, long size, Path temp, Path target) throws IOException {
+        synchronized (lockFor(hash)) {
+            boolean created = !Files.exists(target);
+            if (created) {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
             } else {
-                throw new ResourceNotFoundException("Archivo no encontrado: " + fileName);
+                // El archivo no se toca, para no cambiar su ETag ni Last-Modified: la nueva subida
+                // reinicia el periodo de gracia del barrido a través de Imagenes.updated_at
+                Files.delete(temp);
             }
-        } catch (MalformedURLException ex) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        storedImageRepository.addReference(hash, format.getExtension(), size));
+            } catch (RuntimeException ex) {
+                if (created) {
+                    deleteQuietly(target);
+                }
+                throw ex;
+            }
+            return created;
+        }
+    }
+
+    /**
+     * Ruta en disco de un archivo guardado, para servirlo
+     * @param fileName Nombre del archivo
+     * @return Ruta absoluta del archivo, que existe y está dentro del directorio de almacenamiento
+     */
+    public Path resolveFile(String fileName) {
+        Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
+        if (!filePath.startsWith(this.fileStorageLocation) || !Files.isRegularFile(filePath)) {
             throw new ResourceNotFoundException("Archivo no encontrado: " + fileName);
         }
+        return filePath;
     }
 
     /**
-     * Elimina un archivo del disco
-     * @param filePath Ruta relativa del archivo (ej: /uploads/recipes/uuid-filename.jpg)
-     * @return true si se eliminó exitosamente
+     * Elimina del disco, junto con sus variantes, un archivo que una receta dejó de usar. Se llama
+     * después de confirmar ese cambio: un archivo por contenido se conserva mientras otra receta
+     * o foto de perfil lo use, o si se subió dentro del periodo de gracia (lo eliminará el barrido
+     * cuando quede huérfano). Los archivos anteriores al almacenamiento por contenido (nombrados
+     * con UUID) se eliminan directamente.
+     * @param filePath Ruta relativa del archivo (ej: /uploads/recipes/sha256.jpg)
+     * @return true si se eliminó el archivo del disco
      */
     public boolean deleteFile(String filePath) {
         if (filePath == null || filePath.isEmpty()) {
             return false;
         }
         
+        // Extraer solo el nombre del archivo de la ruta
+        String fileName = filePath.substring(filePath.lastIndexOf("/") + 1);
+        Path file = this.fileStorageLocation.resolve(fileName).normalize();
+        if (!file.startsWith(this.fileStorageLocation)) {
+            return false;
+        }
+
+        Matcher matcher = CONTENT_ADDRESSED_NAME.matcher(fileName);
+        if (!matcher.matches()) {
+            return deleteFromDisk(file, filePath);
+        }
+        String hash = matcher.group(1);
+        LocalDateTime recentSince = LocalDateTime.now().minus(gracePeriod);
+        synchronized (lockFor(hash)) {
+            // Bajo el lock del hash: una subida del mismo contenido no puede colarse entre la
+            // comprobación y el borrado
+            Boolean inUse = transactionTemplate.execute(status ->
+                    recipeRepository.existsByImagenUrlEndingWith(fileName)
+                            || userRepository.existsByFotoPerfilUrlEndingWith(fileName)
+                            || storedImageRepository.existsByHashAndUpdatedAtGreaterThanEqual(hash, recentSince));
+            if (Boolean.TRUE.equals(inUse)) {
+                log.debug("Archivo aún en uso o subido recientemente, se conserva: {}", filePath);
+                return false;
+            }
+            boolean deleted = deleteFromDisk(file, filePath);
+            transactionTemplate.executeWithoutResult(status -> storedImageRepository.deleteById(hash));
+            return deleted;
+        }
+    }
+
+    /**
+     * Directorio donde se guardan los archivos subidos
+     */
+    public Path getStorageLocation() {
+        return fileStorageLocation;
+    }
+
+    /**
+     * Elimina un archivo que ninguna receta ni usuario referencia, con sus variantes y su registro
+     * en Imagenes, siempre que no se haya modificado (o vuelto a subir) desde el instante indicado
+     * @param file Archivo dentro del directorio de almacenamiento
+     * @param notModifiedSince Solo se elimina si su fecha de modificación y su última subida son anteriores
+     * @return Bytes liberados, o -1 si el archivo se conservó
+     */
+    public long deleteOrphan(Path file, Instant notModifiedSince) throws IOException {
+        String fileName = file.getFileName().toString();
+        Matcher matcher = CONTENT_ADDRESSED_NAME.matcher(fileName);
+        if (!matcher.matches()) {
+            return deleteIfNotModified(file, notModifiedSince);
+        }
+        String hash = matcher.group(1);
+        LocalDateTime since = LocalDateTime.ofInstant(notModifiedSince, ZoneId.systemDefault());
+        synchronized (lockFor(hash)) {
+            // Se volvió a subir después del corte: la nueva subida todavía puede asociarse a una receta
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                    storedImageRepository.existsByHashAndUpdatedAtGreaterThanEqual(hash, since)))) {
+                return -1;
+            }
+            long freed = deleteIfNotModified(file, notModifiedSince);
+            if (freed >= 0) {
+                transactionTemplate.executeWithoutResult(status -> storedImageRepository.deleteById(hash));
+            }
+            return freed;
+        }
+    }
+
+    private long deleteIfNotModified(Path file, Instant notModifiedSince) throws IOException {
+        if (!Files.getLastModifiedTime(file).toInstant().isBefore(notModifiedSince)) {
+            return -1;
+        }
+        long freed = Files.size(file);
+        Files.delete(file);
+        String fileName = file.getFileName().toString();
+        imageByteCache.invalidate(fileName);
+        for (ImageSize size : ImageSize.values()) {
+            Path variant = file.resolveSibling(size.variantName(fileName));
+            imageByteCache.invalidate(variant.getFileName().toString());
+            if (Files.exists(variant)) {
+                freed += Files.size(variant);
+                Files.deleteIfExists(variant);
+            }
+        }
+        return freed;
+    }
+
+    private boolean deleteFromDisk(Path file, String filePath) {
         try {
-            // Extraer solo el nombre del archivo de la ruta
-            String fileName = filePath.substring(filePath.lastIndexOf("/") + 1);
-            Path file = this.fileStorageLocation.resolve(fileName).normalize();
-            
             boolean deleted = Files.deleteIfExists(file);
+            String fileName = file.getFileName().toString();
+            imageByteCache.invalidate(fileName);
+            for (ImageSize size : ImageSize.values()) {
+                String variantName = size.variantName(fileName);
+                imageByteCache.invalidate(variantName);
+                Files.deleteIfExists(file.resolveSibling(variantName));
+            }
             if (deleted) {
                 log.info("Archivo eliminado: {}", filePath);
             }
@@ -140,26 +333,19 @@ public class FileStorageService {
             return false;
         }
     }
-    
-    /**
-     * Obtiene la extensión del archivo
-     */
-    private String getFileExtension(String fileName) {
-        if (fileName == null || !fileName.contains(".")) {
-            return "";
-        }
-        return fileName.substring(fileName.lastIndexOf(".")).toLowerCase();
+
+    private Object lockFor(String hash) {
+        return hashLocks[Math.floorMod(hash.hashCode(), hashLocks.length)];
     }
-    
-    /**
-     * Verifica si la extensión es permitida
-     */
-    private boolean isAllowedExtension(String extension) {
-        for (String allowed : ALLOWED_EXTENSIONS) {
-            if (allowed.equalsIgnoreCase(extension)) {
-                return true;
-            }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            log.warn("No se pudo eliminar el archivo temporal {}", path, ex);
         }
-        return false;
     }
 }
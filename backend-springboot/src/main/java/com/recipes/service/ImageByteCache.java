@@ -0,0 +1,282 @@
+package com.recipes.service;
+
+import com.recipes.dto.ImageCacheStatsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché de los bytes de las imágenes más pedidas, fuera del heap.
+ *
+ * Al arrancar se reserva un único ByteBuffer directo de app.images.cache.max-bytes dividido
+ * en bloques de 16 KiB; cada imagen ocupa los bloques que necesite y al desalojarla vuelven
+ * a la lista de libres. Así la memoria está acotada desde el principio y llenar o vaciar la
+ * caché no genera basura ni depende del GC para liberar memoria nativa.
+ *
+ * Admisión al estilo TinyLFU: una imagen nueva solo entra si, para hacerle lugar, hay que
+ * desalojar imágenes pedidas con menos frecuencia que ella. Entre las que quedan se desaloja
+ * la usada hace más tiempo. Las entradas se leen fuera del candado; una entrada desalojada
+ * mientras se envía conserva sus bloques hasta que se libera la última lectura.
+ */
+@Component
+public class ImageByteCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageByteCache.class);
+
+    private static final int BLOCK_SIZE = 16 * 1024;
+
+    private final ByteBuffer slab;
+    private final int maxEntryBytes;
+    private final int[] freeBlocks;
+    private int freeCount;
+
+    // Orden de acceso: la primera es la usada hace más tiempo
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final FrequencySketch sketch;
+
+    // Buffer de copia por hilo, para enviar sin reservar memoria en cada petición
+    private final ThreadLocal<byte[]> copyBuffer = ThreadLocal.withInitial(() -> new byte[BLOCK_SIZE]);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bytesServed = new LongAdder();
+
+    public ImageByteCache(@Value("${app.images.cache.max-bytes:67108864}") long maxBytes,
+                          @Value("${app.images.cache.max-entry-bytes:1048576}") int maxEntryBytes) {
+        int blocks = (int) Math.max(0, Math.min(maxBytes, Integer.MAX_VALUE) / BLOCK_SIZE);
+        this.slab = blocks > 0 ? ByteBuffer.allocateDirect(blocks * BLOCK_SIZE) : null;
+        this.maxEntryBytes = Math.min(Math.max(0, maxEntryBytes), blocks * BLOCK_SIZE);
+        this.freeBlocks = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            freeBlocks[i] = blocks - 1 - i;
+        }
+        this.freeCount = blocks;
+        // Unas cuantas veces más claves que las que caben de tamaño medio (una variante card)
+        this.sketch = new FrequencySketch(Math.max(1024, blocks * 4));
+        if (slab != null) {
+            log.info("Caché de imágenes: {} KiB fuera del heap, imágenes de hasta {} KiB",
+                    (long) blocks * BLOCK_SIZE / 1024, this.maxEntryBytes / 1024);
+        }
+    }
+
+    /**
+     * La entrada de la imagen si está en caché, ya reservada para leerla; hay que liberarla
+     * con release. Cuenta la petición para la admisión aunque no esté.
+     */
+    public Entry acquire(String key) {
+        if (slab == null) {
+            return null;
+        }
+        synchronized (this) {
+            sketch.increment(key);
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            entry.readers++;
+            return entry;
+        }
+    }
+
+    /**
+     * Lee el archivo a la caché si se admite, y devuelve la entrada ya reservada (o null si
+     * es demasiado grande o menos pedido que lo que habría que desalojar)
+     * @param lastModified Fecha de modificación del archivo, para el ETag de las respuestas desde caché
+     */
+    public Entry load(String key, Path file, long length, long lastModified) throws IOException {
+        if (slab == null || length <= 0 || length > maxEntryBytes) {
+            return null;
+        }
+        int needed = (int) ((length + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        Entry entry;
+        synchronized (this) {
+            Entry existing = entries.get(key);
+            if (existing != null) {
+                existing.readers++;
+                return existing;
+            }
+            if (!makeRoom(key, needed)) {
+                rejections.increment();
+                return null;
+            }
+            int[] blocks = new int[needed];
+            for (int i = 0; i < needed; i++) {
+                blocks[i] = freeBlocks[--freeCount];
+            }
+            entry = new Entry(blocks, (int) length, lastModified);
+            entry.readers = 1;
+        }
+
+        boolean complete = false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = 0;
+            for (int block : entry.blocks) {
+                ByteBuffer target = slab.slice(block * BLOCK_SIZE, (int) Math.min(BLOCK_SIZE, length - position));
+                while (target.hasRemaining()) {
+                    int read = channel.read(target, position + target.position());
+                    if (read < 0) {
+                        // El archivo se achicó mientras se leía
+                        return null;
+                    }
+                }
+                position += target.capacity();
+            }
+            complete = true;
+        } finally {
+            synchronized (this) {
+                if (complete && !entries.containsKey(key)) {
+                    entries.put(key, entry);
+                } else {
+                    // Falló la lectura u otra petición cargó la misma imagen a la vez
+                    entry.evicted = true;
+                    if (!complete) {
+                        entry.readers--;
+                        freeIfUnused(entry);
+                    }
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Escribe count bytes de la entrada desde start
+     */
+    public void write(Entry entry, long start, long count, OutputStream out) throws IOException {
+        byte[] buffer = copyBuffer.get();
+        long position = start;
+        long end = Math.min(start + count, entry.length);
+        while (position < end) {
+            int block = entry.blocks[(int) (position / BLOCK_SIZE)];
+            int offset = (int) (position % BLOCK_SIZE);
+            int n = (int) Math.min(BLOCK_SIZE - offset, end - position);
+            slab.get(block * BLOCK_SIZE + offset, buffer, 0, n);
+            out.write(buffer, 0, n);
+            position += n;
+        }
+        bytesServed.add(end - start);
+    }
+
+    public synchronized void release(Entry entry) {
+        entry.readers--;
+        freeIfUnused(entry);
+    }
+
+    /**
+     * Quita la imagen de la caché (al eliminarla o reemplazarla en disco)
+     */
+    public void invalidate(String key) {
+        if (slab == null) {
+            return;
+        }
+        synchronized (this) {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                entry.evicted = true;
+                freeIfUnused(entry);
+            }
+        }
+    }
+
+    public ImageCacheStatsDTO stats() {
+        long capacity = (long) freeBlocks.length * BLOCK_SIZE;
+        long used;
+        int size;
+        synchronized (this) {
+            used = capacity - (long) freeCount * BLOCK_SIZE;
+            size = entries.size();
+        }
+        return new ImageCacheStatsDTO(capacity, used, size, hits.sum(), misses.sum(),
+                rejections.sum(), evictions.sum(), bytesServed.sum());
+    }
+
+    /**
+     * Desaloja, en orden de uso, las entradas necesarias para liberar needed bloques,
+     * siempre que todas sean menos frecuentes que la candidata. Las entradas que se están
+     * enviando no cuentan, porque sus bloques no se liberan hasta que terminen.
+     */
+    private boolean makeRoom(String key, int needed) {
+        if (freeCount >= needed) {
+            return true;
+        }
+        int candidateFrequency = sketch.frequency(key);
+        List<Map.Entry<String, Entry>> victims = new ArrayList<>();
+        int reclaimable = freeCount;
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (reclaimable < needed && it.hasNext()) {
+            Map.Entry<String, Entry> victim = it.next();
+            if (victim.getValue().readers > 0) {
+                continue;
+            }
+            if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                return false;
+            }
+            victims.add(victim);
+            reclaimable += victim.getValue().blocks.length;
+        }
+        if (reclaimable < needed) {
+            return false;
+        }
+        for (Map.Entry<String, Entry> victim : victims) {
+            entries.remove(victim.getKey());
+            victim.getValue().evicted = true;
+            freeIfUnused(victim.getValue());
+            evictions.increment();
+        }
+        return true;
+    }
+
+    private void freeIfUnused(Entry entry) {
+        if (entry.evicted && entry.readers == 0 && !entry.freed) {
+            entry.freed = true;
+            for (int block : entry.blocks) {
+                freeBlocks[freeCount++] = block;
+            }
+        }
+    }
+
+    /**
+     * Imagen en caché: los bloques del slab que ocupa, en orden
+     */
+    public static final class Entry {
+        private final int[] blocks;
+        private final int length;
+        private final long lastModified;
+        // Protegidos por el candado de la caché
+        private int readers;
+        private boolean evicted;
+        private boolean freed;
+
+        private Entry(int[] blocks, int length, long lastModified) {
+            this.blocks = blocks;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
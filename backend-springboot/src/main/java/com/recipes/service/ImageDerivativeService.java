@@ -0,0 +1,354 @@
+package com.recipes.service;
+
+import com.recipes.event.ImageStoredEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.NodeList;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Genera las variantes de tamaño (ImageSize) de cada imagen subida y las guarda junto al original.
+ *
+ * La imagen se decodifica una sola vez, ya submuestreada al tamaño de la variante más grande,
+ * y a partir de ella se generan las variantes en paralelo en el imageExecutor. Cada variante
+ * se escribe en un temporal y se renombra, así que nunca se sirve una variante a medio escribir.
+ * La orientación EXIF de las fotos se aplica antes de reducirlas, porque las variantes no
+ * conservan los metadatos.
+ * JPEG y PNG mantienen su formato; GIF (animaciones) y WebP (sin decodificador en ImageIO)
+ * se sirven siempre en su tamaño original.
+ */
+@Service
+public class ImageDerivativeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageDerivativeService.class);
+
+    private static final Set<String> SUPPORTED_EXTENSIONS = Set.of("jpg", "jpeg", "png");
+    private static final int MAX_UNDECODABLE = 1024;
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+    private static final int APP1_MARKER = 0xE1;
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private final FileStorageService fileStorageService;
+    private final ExecutorService imageExecutor;
+    private final ImageByteCache imageByteCache;
+    private final float jpegQuality;
+
+    // Originales con variantes en proceso, para no generarlas dos veces
+    private final Set<Path> inProgress = ConcurrentHashMap.newKeySet();
+    // Originales que no se pudieron decodificar: se sirven tal cual, sin volver a intentarlo en cada pedido
+    private final Set<Path> undecodable = Collections.newSetFromMap(Collections.synchronizedMap(
+            new LinkedHashMap<Path, Boolean>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Path, Boolean> eldest) {
+                    return size() > MAX_UNDECODABLE;
+                }
+            }));
+
+    public ImageDerivativeService(FileStorageService fileStorageService,
+                                  @Qualifier("imageExecutor") ExecutorService imageExecutor,
+                                  ImageByteCache imageByteCache,
+                                  @Value("${app.images.jpeg-quality:0.85}") float jpegQuality) {
+        this.fileStorageService = fileStorageService;
+        this.imageExecutor = imageExecutor;
+        this.imageByteCache = imageByteCache;
+        this.jpegQuality = Math.max(0.1f, Math.min(jpegQuality, 1f));
+    }
+
+    @EventListener
+    public void onImageStored(ImageStoredEvent event) {
+        schedule(fileStorageService.resolveFile(event.getFileName()));
+    }
+
+    /**
+     * La variante pedida si ya existe; si no, programa su generación y devuelve null
+     * para que se sirva el original mientras tanto
+     */
+    public Path findVariant(Path original, ImageSize size) {
+        Path variant = original.resolveSibling(size.variantName(original.getFileName().toString()));
+        if (Files.isRegularFile(variant)) {
+            return variant;
+        }
+        schedule(original);
+        return null;
+    }
+
+    /**
+     * Genera en segundo plano las variantes de una imagen (las existentes se reemplazan)
+     */
+    public void schedule(Path original) {
+        if (!supports(original) || !inProgress.add(original)) {
+            return;
+        }
+        try {
+            imageExecutor.execute(() -> derive(original));
+        } catch (RejectedExecutionException e) {
+            inProgress.remove(original);
+            log.warn("Cola de imágenes llena, se omiten por ahora las variantes de {}", original.getFileName());
+        }
+    }
+
+    private void derive(Path original) {
+        BufferedImage base;
+        try {
+            base = decode(original);
+        } catch (IOException | RuntimeException e) {
+            undecodable.add(original);
+            inProgress.remove(original);
+            log.warn("No se pudo decodificar la imagen {}: {}", original.getFileName(), e.getMessage());
+            return;
+        }
+
+        boolean jpeg = !extension(original).equals("png");
+        ImageSize[] sizes = ImageSize.values();
+        AtomicInteger pending = new AtomicInteger(sizes.length);
+        for (ImageSize size : sizes) {
+            Runnable task = () -> {
+                try {
+                    writeVariant(original, base, size, jpeg);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("No se pudo generar la variante {} de {}: {}",
+                            size.getParam(), original.getFileName(), e.getMessage());
+                } finally {
+                    if (pending.decrementAndGet() == 0) {
+                        inProgress.remove(original);
+                    }
+                }
+            };
+            try {
+                imageExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Con la cola llena se genera en este mismo hilo
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Decodifica la imagen submuestreada de forma que su lado mayor quede entre 1 y 2 veces
+     * el de la variante más grande: una foto de 4000 px se lee a 2000 px sin cargar la
+     * resolución completa en memoria. Se devuelve ya orientada según su EXIF
+     */
+    private static BufferedImage decode(Path original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Formato de imagen no reconocido");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, false);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longest / ImageSize.largest().getMaxDimension());
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+                boolean alpha = decoded.getColorModel().hasAlpha();
+                BufferedImage oriented = orient(decoded, orientation(reader.getImageMetadata(0)), alpha);
+                return resize(oriented, ImageSize.largest().getMaxDimension(), alpha);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Valor del tag Orientation (1-8) del segmento EXIF de un JPEG; 1 si no lo tiene
+     */
+    static int orientation(IIOMetadata metadata) {
+        if (metadata == null || !JPEG_METADATA_FORMAT.equals(metadata.getNativeMetadataFormatName())) {
+            return 1;
+        }
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(JPEG_METADATA_FORMAT);
+        NodeList markers = root.getElementsByTagName("unknown");
+        for (int i = 0; i < markers.getLength(); i++) {
+            IIOMetadataNode marker = (IIOMetadataNode) markers.item(i);
+            if (String.valueOf(APP1_MARKER).equals(marker.getAttribute("MarkerTag"))
+                    && marker.getUserObject() instanceof byte[] data) {
+                int orientation = exifOrientation(data);
+                if (orientation > 0) {
+                    return orientation;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Busca el tag Orientation en el IFD0 de un segmento APP1 ("Exif\0\0" + cabecera TIFF);
+     * 0 si el segmento no es EXIF o no lo trae
+     */
+    static int exifOrientation(byte[] data) {
+        int tiff = 6;
+        if (data.length < tiff + 8 || data[0] != 'E' || data[1] != 'x' || data[2] != 'i' || data[3] != 'f') {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data)
+                .order(data[tiff] == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        try {
+            int ifd = tiff + buffer.getInt(tiff + 4);
+            int entries = buffer.getShort(ifd) & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if ((buffer.getShort(entry) & 0xFFFF) == ORIENTATION_TAG) {
+                    int orientation = buffer.getShort(entry + 8) & 0xFFFF;
+                    return orientation >= 1 && orientation <= 8 ? orientation : 0;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // EXIF truncado o con offsets inválidos: se ignora
+        }
+        return 0;
+    }
+
+    /**
+     * Aplica la orientación EXIF: 2-4 espejos y media vuelta, 5-8 giros de un cuarto
+     * (intercambian ancho y alto)
+     */
+    static BufferedImage orient(BufferedImage source, int orientation, boolean alpha) {
+        int w = source.getWidth();
+        int h = source.getHeight();
+        AffineTransform transform;
+        switch (orientation) {
+            case 2 -> transform = new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> transform = new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> transform = new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> transform = new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> transform = new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> transform = new AffineTransform(0, -1, -1, 0, h, w);
+            case 8 -> transform = new AffineTransform(0, -1, 1, 0, 0, w);
+            default -> {
+                return source;
+            }
+        }
+        boolean swap = orientation >= 5;
+        BufferedImage oriented = new BufferedImage(swap ? h : w, swap ? w : h,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = oriented.createGraphics();
+        try {
+            g.drawImage(source, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return oriented;
+    }
+
+    private void writeVariant(Path original, BufferedImage base, ImageSize size, boolean jpeg) throws IOException {
+        BufferedImage image = resize(base, size.getMaxDimension(), !jpeg && base.getColorModel().hasAlpha());
+        Path variant = original.resolveSibling(size.variantName(original.getFileName().toString()));
+        Path temp = Files.createTempFile(original.getParent(), ".variant-", ".tmp");
+        try {
+            if (jpeg) {
+                writeJpeg(image, temp);
+            } else if (!ImageIO.write(image, "png", temp.toFile())) {
+                throw new IOException("No hay codificador PNG");
+            }
+            Files.move(temp, variant, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            imageByteCache.invalidate(variant.getFileName().toString());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Reduce la imagen para que su lado mayor no supere maxDimension (nunca la agranda).
+     * Reduce a la mitad en cada paso con interpolación bilineal, que da un resultado parecido
+     * al bicúbico a una fracción del costo. Sin alfa, lo transparente queda blanco.
+     */
+    static BufferedImage resize(BufferedImage source, int maxDimension, boolean alpha) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        double scale = Math.min(1d, (double) maxDimension / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        if (targetWidth == width && targetHeight == height && source.getType() == type) {
+            return source;
+        }
+
+        BufferedImage current = source;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                if (!alpha) {
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, width, height);
+                }
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    /**
+     * true si la imagen tiene (o tendrá) variantes de tamaño. Un original que no se pudo
+     * decodificar no las tendrá: se sirve como definitivo
+     */
+    public boolean supports(Path original) {
+        return SUPPORTED_EXTENSIONS.contains(extension(original))
+                && !ImageSize.isVariantName(original.getFileName().toString())
+                && !undecodable.contains(original);
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+}
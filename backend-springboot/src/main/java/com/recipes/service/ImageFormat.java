@@ -0,0 +1,60 @@
+package com.recipes.service;
+
+/**
+ * Formatos de imagen que se aceptan al subir archivos, reconocidos por sus primeros bytes
+ * y no por la extensión que declara el cliente
+ */
+public enum ImageFormat {
+    JPEG("jpg"),
+    PNG("png"),
+    GIF("gif"),
+    WEBP("webp");
+
+    // Bytes necesarios para reconocer cualquiera de los formatos (RIFF....WEBP)
+    public static final int HEADER_LENGTH = 12;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final String extension;
+
+    ImageFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Formato según la firma al inicio del archivo, o null si no es una imagen admitida
+     * @param header Primeros bytes del archivo
+     * @param length Cuántos de ellos son válidos
+     */
+    public static ImageFormat detect(byte[] header, int length) {
+        if (length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return JPEG;
+        }
+        if (startsWith(header, length, 0, PNG_SIGNATURE)) {
+            return PNG;
+        }
+        if (startsWith(header, length, 0, "GIF87a".getBytes()) || startsWith(header, length, 0, "GIF89a".getBytes())) {
+            return GIF;
+        }
+        if (startsWith(header, length, 0, "RIFF".getBytes()) && startsWith(header, length, 8, "WEBP".getBytes())) {
+            return WEBP;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, byte[] signature) {
+        if (length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (header[offset + i] != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+package com.recipes.service;
+
+import com.recipes.exception.BadRequestException;
+
+/**
+ * Variantes de tamaño que se generan para cada imagen subida, con el identificador
+ * que se usa en la URL (?size=) y el lado máximo en píxeles
+ * THUMB: miniaturas y listados compactos
+ * CARD: tarjetas de recetas
+ * HERO: cabecera del detalle de la receta
+ */
+public enum ImageSize {
+    THUMB("thumb", 160),
+    CARD("card", 480),
+    HERO("hero", 1280);
+
+    private final String param;
+    private final int maxDimension;
+
+    ImageSize(String param, int maxDimension) {
+        this.param = param;
+        this.maxDimension = maxDimension;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    /**
+     * Nombre del archivo de la variante: uuid.jpg -> uuid.card.jpg
+     */
+    public String variantName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? fileName + "." + param : fileName.substring(0, dot) + "." + param + fileName.substring(dot);
+    }
+
+    /**
+     * true si el nombre corresponde a una variante y no a un original
+     */
+    public static boolean isVariantName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String base = dot < 0 ? fileName : fileName.substring(0, dot);
+        for (ImageSize value : values()) {
+            if (base.endsWith("." + value.param)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static ImageSize largest() {
+        return HERO;
+    }
+
+    public static ImageSize fromParam(String size) {
+        if (size == null || size.isBlank()) {
+            return null;
+        }
+        for (ImageSize value : values()) {
+            if (value.param.equalsIgnoreCase(size.trim())) {
+                return value;
+            }
+        }
+        throw new BadRequestException("Tamaño de imagen inválido: " + size);
+    }
+}
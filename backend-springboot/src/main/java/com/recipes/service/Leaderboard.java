@@ -0,0 +1,166 @@
+package com.recipes.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Top-N de recetas para un tipo de reporte (global o de una categoría).
+ * Se llena con un heap acotado y después se mantiene con cada cambio de agregados.
+ * Si una receta del top baja de puntaje con el top lleno, otra receta de fuera podría
+ * superarla; en ese caso el top se marca como sucio y la siguiente lectura pide recalcularlo
+ * en segundo plano.
+ *
+ * No es thread-safe: ReportService lo usa bajo su lock.
+ */
+final class Leaderboard {
+
+    private final ReportType type;
+    private final int capacity;
+    private final int minCalificaciones;
+    // Mejor primero
+    private final List<RecipeScore> entries = new ArrayList<>();
+    private final Comparator<RecipeScore> ranking;
+    private PriorityQueue<RecipeScore> heap;
+    private boolean dirty;
+    private long version;
+
+    Leaderboard(ReportType type, int capacity, int minCalificaciones) {
+        this.type = type;
+        this.capacity = capacity;
+        this.minCalificaciones = minCalificaciones;
+        this.ranking = this::compare;
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Estado de la receta en este top, o null si no está en él
+     */
+    RecipeScore entry(long recipeId) {
+        int position = indexOf(recipeId);
+        return position >= 0 ? entries.get(position) : null;
+    }
+
+    List<Long> recipeIds() {
+        List<Long> ids = new ArrayList<>(entries.size());
+        for (RecipeScore entry : entries) {
+            ids.add(entry.recipeId);
+        }
+        return ids;
+    }
+
+    /**
+     * Agrega una candidata durante una construcción completa; el heap guarda en la raíz
+     * la peor de las mejores, así que nunca tiene más de capacity elementos
+     */
+    void collect(RecipeScore score) {
+        if (!qualifies(score)) {
+            return;
+        }
+        if (heap == null) {
+            heap = new PriorityQueue<>(capacity + 1, ranking.reversed());
+        }
+        if (heap.size() < capacity) {
+            heap.add(score);
+        } else if (compare(score, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(score);
+        }
+    }
+
+    void finishBuild(long newVersion) {
+        entries.clear();
+        if (heap != null) {
+            entries.addAll(heap);
+            heap = null;
+        }
+        entries.sort(ranking);
+        dirty = false;
+        version = newVersion;
+    }
+
+    /**
+     * Aplica el cambio de agregados de una receta.
+     * @param before Estado anterior, o null si la receta no pertenecía a este top
+     * @param after Estado nuevo, o null si la receta salió de este top (borrada o movida de categoría)
+     */
+    void update(RecipeScore before, RecipeScore after, long newVersion) {
+        if (dirty) {
+            return;
+        }
+        boolean full = entries.size() >= capacity;
+        long recipeId = before != null ? before.recipeId : after.recipeId;
+        int position = indexOf(recipeId);
+
+        if (position >= 0) {
+            boolean worse = after == null || !qualifies(after) || compare(after, before) > 0;
+            if (worse && full) {
+                dirty = true;
+                version = newVersion;
+                return;
+            }
+            entries.remove(position);
+            if (after != null && qualifies(after)) {
+                insert(after);
+            }
+            version = newVersion;
+        } else if (after != null && qualifies(after)
+                && (!full || compare(after, entries.get(entries.size() - 1)) < 0)) {
+            insert(after);
+            if (entries.size() > capacity) {
+                entries.remove(entries.size() - 1);
+            }
+            version = newVersion;
+        }
+    }
+
+    private void insert(RecipeScore score) {
+        int position = 0;
+        while (position < entries.size() && compare(entries.get(position), score) < 0) {
+            position++;
+        }
+        entries.add(position, score);
+    }
+
+    private int indexOf(long recipeId) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).recipeId == recipeId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean qualifies(RecipeScore score) {
+        return switch (type) {
+            case MEJOR_CALIFICADAS -> score.totalCalificaciones > 0 && score.totalCalificaciones >= minCalificaciones;
+            case MAS_CALIFICADAS -> score.totalCalificaciones > 0;
+            case MAS_COMENTADAS -> score.totalComentarios > 0;
+        };
+    }
+
+    /**
+     * Negativo si a va antes que b. A igual puntaje, la receta más nueva primero
+     */
+    private int compare(RecipeScore a, RecipeScore b) {
+        int result = switch (type) {
+            case MEJOR_CALIFICADAS -> {
+                // Promedios comparados sin división: a.suma / a.total vs b.suma / b.total
+                int byAverage = Long.compare((long) b.sumaCalificaciones * a.totalCalificaciones,
+                        (long) a.sumaCalificaciones * b.totalCalificaciones);
+                yield byAverage != 0 ? byAverage : Integer.compare(b.totalCalificaciones, a.totalCalificaciones);
+            }
+            case MAS_CALIFICADAS -> Integer.compare(b.totalCalificaciones, a.totalCalificaciones);
+            case MAS_COMENTADAS -> Integer.compare(b.totalComentarios, a.totalComentarios);
+        };
+        return result != 0 ? result : Long.compare(b.recipeId, a.recipeId);
+    }
+}
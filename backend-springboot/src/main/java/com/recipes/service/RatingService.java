@@ -1,16 +1,16 @@
 package com.recipes.service;
 
 import com.recipes.dto.RatingDTO;
+import com.recipes.event.RatingChangedEvent;
 import com.recipes.exception.ResourceNotFoundException;
 import com.recipes.model.Rating;
 import com.recipes.model.Recipe;
-import com.recipes.model.User;
 import com.recipes.repository.RatingRepository;
 import com.recipes.repository.RecipeRepository;
 import com.recipes.repository.UserRepository;
+import com.recipes.security.CurrentUser;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,6 +25,8 @@ public class RatingService {
     private final RatingRepository ratingRepository;
     private final RecipeRepository recipeRepository;
     private final UserRepository userRepository;
+    private final RecipeAggregateService recipeAggregateService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<RatingDTO> findByRecipeId(Long recipeId) {
         List<Rating> ratings = ratingRepository.findByReceta_Id(recipeId);
@@ -38,32 +40,36 @@ public class RatingService {
         Recipe recipe = recipeRepository.findById(recipeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Receta no encontrada"));
         
-        User currentUser = getCurrentUser();
+        Long userId = CurrentUser.id();
         
-        Optional<Rating> existingRating = ratingRepository.findByUsuario_IdAndReceta_Id(currentUser.getId(), recipeId);
+        Optional<Rating> existingRating = ratingRepository.findByUsuario_IdAndReceta_Id(userId, recipeId);
         
         Rating rating;
+        Integer previousScore = null;
+        int deltaSuma;
+        int deltaTotal;
         if (existingRating.isPresent()) {
             rating = existingRating.get();
+            previousScore = rating.getPuntuacion();
+            deltaSuma = ratingDTO.getPuntuacion() - rating.getPuntuacion();
+            deltaTotal = 0;
             rating.setPuntuacion(ratingDTO.getPuntuacion());
         } else {
             rating = new Rating();
             rating.setPuntuacion(ratingDTO.getPuntuacion());
             rating.setReceta(recipe);
-            rating.setUsuario(currentUser);
+            rating.setUsuario(userRepository.getReferenceById(userId));
+            deltaSuma = ratingDTO.getPuntuacion();
+            deltaTotal = 1;
         }
         
         Rating saved = ratingRepository.save(rating);
+        recipeAggregateService.applyRating(recipeId, deltaSuma, deltaTotal);
+        eventPublisher.publishEvent(new RatingChangedEvent(recipeId, userId,
+                previousScore, ratingDTO.getPuntuacion()));
         return convertToDTO(saved);
     }
 
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String usernameOrEmail = authentication.getName();
-        return userRepository.findByEmailOrUsername(usernameOrEmail, usernameOrEmail)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-    }
-
     private RatingDTO convertToDTO(Rating rating) {
         RatingDTO dto = new RatingDTO();
         dto.setId(rating.getId());
@@ -0,0 +1,116 @@
+package com.recipes.service;
+
+import com.recipes.model.Recipe;
+import com.recipes.repository.RecipeRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Mantiene los agregados de Recetas (suma, total y promedio de calificaciones,
+ * total de comentarios aprobados) para que leerlos sea una consulta de una sola fila.
+ */
+@Service
+public class RecipeAggregateService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeAggregateService.class);
+
+    private final RecipeRepository recipeRepository;
+    private final ExecutorService batchExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final long chunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public RecipeAggregateService(RecipeRepository recipeRepository,
+                                  @Qualifier("batchExecutor") ExecutorService batchExecutor,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.aggregates.chunk-size:5000}") long chunkSize) {
+        this.recipeRepository = recipeRepository;
+        this.batchExecutor = batchExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Registra una calificación nueva (deltaTotal = 1) o el cambio de una existente (deltaTotal = 0)
+     */
+    @Transactional
+    public void applyRating(Long recipeId, int deltaSuma, int deltaTotal) {
+        if (deltaSuma == 0 && deltaTotal == 0) {
+            return;
+        }
+        recipeRepository.applyRatingDelta(recipeId, deltaSuma, deltaTotal);
+        refreshIfLoaded(recipeId);
+    }
+
+    @Transactional
+    public void applyApprovedComment(Long recipeId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        recipeRepository.applyApprovedCommentDelta(recipeId, delta);
+        refreshIfLoaded(recipeId);
+    }
+
+    /**
+     * El UPDATE nativo no pasa por el contexto de persistencia: si la receta ya estaba cargada
+     * en esta transacción, se relee para que no siga con los agregados anteriores. Si no estaba
+     * cargada, getReference solo crea un proxy y no hay consulta.
+     */
+    private void refreshIfLoaded(Long recipeId) {
+        Recipe recipe = entityManager.getReference(Recipe.class, recipeId);
+        if (Hibernate.isInitialized(recipe)) {
+            entityManager.refresh(recipe);
+        }
+    }
+
+    /**
+     * Corrige la desviación de los agregados (borrados en cascada, escrituras fuera de la API...)
+     * recalculándolos por rangos de id en paralelo, cada rango en su propia transacción.
+     * @return Número de recetas corregidas
+     */
+    @Scheduled(cron = "${app.aggregates.reconcile-cron:0 30 3 * * *}")
+    public int reconcile() {
+        Long minId = recipeRepository.findMinId();
+        Long maxId = recipeRepository.findMaxId();
+        if (minId == null || maxId == null) {
+            return 0;
+        }
+
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+        for (long desde = minId; desde <= maxId; desde += chunkSize) {
+            long from = desde;
+            long to = Math.min(desde + chunkSize - 1, maxId);
+            chunks.add(CompletableFuture.supplyAsync(
+                    () -> transactionTemplate.execute(status -> recipeRepository.reconcileAggregates(from, to)),
+                    batchExecutor));
+        }
+
+        int repaired = 0;
+        for (CompletableFuture<Integer> chunk : chunks) {
+            Integer count = chunk.join();
+            repaired += count != null ? count : 0;
+        }
+
+        log.info("Reconciliación de agregados: {} recetas corregidas en {} bloques ({} ms)",
+                repaired, chunks.size(), System.currentTimeMillis() - start);
+        return repaired;
+    }
+}
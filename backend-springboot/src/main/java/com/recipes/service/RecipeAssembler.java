@@ -0,0 +1,82 @@
+package com.recipes.service;
+
+import com.recipes.dto.RecipeDTO;
+import com.recipes.model.Recipe;
+import com.recipes.repository.RecipeRepository;
+import com.recipes.repository.RecipeSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Convierte recetas a RecipeDTO por lotes.
+ * Los agregados se leen de la propia fila de Recetas; los nombres de autor y categoría
+ * se cargan con una sola consulta para todo el lote en lugar de una por receta.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecipeAssembler {
+
+    private final RecipeRepository recipeRepository;
+
+    public RecipeDTO toDTO(Recipe recipe) {
+        return toDTOs(List.of(recipe)).get(0);
+    }
+
+    public Page<RecipeDTO> toDTOPage(Page<Recipe> recipes) {
+        return new PageImpl<>(toDTOs(recipes.getContent()), recipes.getPageable(), recipes.getTotalElements());
+    }
+
+    public List<RecipeDTO> toDTOs(List<Recipe> recipes) {
+        if (recipes.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> ids = new ArrayList<>(recipes.size());
+        for (Recipe recipe : recipes) {
+            ids.add(recipe.getId());
+        }
+
+        Map<Long, RecipeSummary> summaries = new HashMap<>();
+        for (RecipeSummary summary : recipeRepository.findSummariesByIdIn(ids)) {
+            summaries.put(summary.getId(), summary);
+        }
+
+        List<RecipeDTO> dtos = new ArrayList<>(recipes.size());
+        for (Recipe recipe : recipes) {
+            dtos.add(convert(recipe, summaries.get(recipe.getId())));
+        }
+        return dtos;
+    }
+
+    private RecipeDTO convert(Recipe recipe, RecipeSummary summary) {
+        RecipeDTO dto = new RecipeDTO();
+        dto.setId(recipe.getId());
+        dto.setTitulo(recipe.getTitulo());
+        dto.setDescripcion(recipe.getDescripcion());
+        dto.setIngredientes(recipe.getIngredientes());
+        dto.setInstrucciones(recipe.getInstrucciones());
+        dto.setImagenUrl(recipe.getImagenUrl());
+        dto.setFechaCreacion(recipe.getFechaCreacion());
+
+        int suma = recipe.getSumaCalificaciones() != null ? recipe.getSumaCalificaciones() : 0;
+        int total = recipe.getTotalCalificaciones() != null ? recipe.getTotalCalificaciones() : 0;
+        dto.setCalificacionPromedio(total > 0 ? (double) suma / total : 0.0);
+        dto.setTotalCalificaciones(total);
+        dto.setTotalComentarios(recipe.getTotalComentariosAprobados() != null ? recipe.getTotalComentariosAprobados() : 0);
+
+        if (summary != null) {
+            dto.setAutorId(summary.getAutorId());
+            dto.setAutorNombre(summary.getAutorNombre());
+            dto.setCategoriaId(summary.getCategoriaId());
+            dto.setCategoriaNombre(summary.getCategoriaNombre());
+        }
+        return dto;
+    }
+}
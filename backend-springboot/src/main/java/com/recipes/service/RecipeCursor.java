@@ -0,0 +1,52 @@
+package com.recipes.service;
+
+import com.recipes.exception.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para paginar recetas por (fecha_creacion DESC, id_receta DESC).
+ * Codifica la clave de orden y el id de la última receta entregada.
+ */
+final class RecipeCursor {
+
+    /** Posición anterior a cualquier receta, equivalente a pedir la primera página */
+    static final RecipeCursor INICIO = new RecipeCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private final LocalDateTime fechaCreacion;
+    private final Long id;
+
+    RecipeCursor(LocalDateTime fechaCreacion, Long id) {
+        this.fechaCreacion = fechaCreacion;
+        this.id = id;
+    }
+
+    LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    Long getId() {
+        return id;
+    }
+
+    String encode() {
+        String raw = fechaCreacion + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static RecipeCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return INICIO;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new RecipeCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Cursor inválido");
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.recipes.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recipes.repository.RecipeExportRow;
+import com.recipes.repository.RecipeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exportación completa del catálogo de recetas en NDJSON o CSV.
+ * Las filas se leen con un cursor de solo avance y se escriben a medida que llegan,
+ * así que la memoria usada no depende de la cantidad de recetas.
+ */
+@Service
+public class RecipeExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeExportService.class);
+
+    private static final String[] CSV_HEADER = {
+            "id", "titulo", "descripcion", "ingredientes", "instrucciones", "paisOrigen", "imagenUrl",
+            "fechaCreacion", "updatedAt", "autorId", "autorNombre", "categoriaId", "categoriaNombre",
+            "puntuacionPromedio", "totalCalificaciones", "totalComentarios"
+    };
+
+    private final RecipeRepository recipeRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public RecipeExportService(RecipeRepository recipeRepository,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager) {
+        this.recipeRepository = recipeRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Escribe todas las recetas en el stream indicado, que no se cierra
+     * @return Cantidad de recetas exportadas
+     */
+    public long export(ExportFormat format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        Long exported;
+        try {
+            exported = readOnlyTransaction.execute(status -> {
+                try (Stream<RecipeExportRow> rows = recipeRepository.streamAllForExport()) {
+                    return format == ExportFormat.CSV
+                            ? writeCsv(rows.iterator(), out)
+                            : writeNdjson(rows.iterator(), out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Normalmente el cliente cortó la descarga
+            throw e.getCause();
+        }
+        log.info("Exportación {} completada: {} recetas en {} ms",
+                format.getParam(), exported, System.currentTimeMillis() - start);
+        return exported != null ? exported : 0;
+    }
+
+    private long writeNdjson(Iterator<RecipeExportRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.setRootValueSeparator(null);
+        while (rows.hasNext()) {
+            RecipeExportRow row = rows.next();
+            json.writeStartObject();
+            json.writeNumberField("id", row.getId());
+            writeString(json, "titulo", row.getTitulo());
+            writeString(json, "descripcion", row.getDescripcion());
+            writeString(json, "ingredientes", row.getIngredientes());
+            writeString(json, "instrucciones", row.getInstrucciones());
+            writeString(json, "paisOrigen", row.getPaisOrigen());
+            writeString(json, "imagenUrl", row.getImagenUrl());
+            writeString(json, "fechaCreacion", format(row.getFechaCreacion()));
+            writeString(json, "updatedAt", format(row.getUpdatedAt()));
+            json.writeNumberField("autorId", row.getAutorId());
+            writeString(json, "autorNombre", row.getAutorNombre());
+            if (row.getCategoriaId() != null) {
+                json.writeNumberField("categoriaId", row.getCategoriaId());
+            } else {
+                json.writeNullField("categoriaId");
+            }
+            writeString(json, "categoriaNombre", row.getCategoriaNombre());
+            json.writeNumberField("puntuacionPromedio", orZero(row.getPuntuacionPromedio()));
+            json.writeNumberField("totalCalificaciones", orZero(row.getTotalCalificaciones()));
+            json.writeNumberField("totalComentarios", orZero(row.getTotalComentariosAprobados()));
+            json.writeEndObject();
+            json.writeRaw('\n');
+            count++;
+        }
+        json.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<RecipeExportRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        // BOM para que Excel reconozca UTF-8
+        writer.write('\uFEFF');
+        writeCsvLine(writer, CSV_HEADER);
+        while (rows.hasNext()) {
+            RecipeExportRow row = rows.next();
+            writeCsvLine(writer, new String[] {
+                    String.valueOf(row.getId()),
+                    row.getTitulo(),
+                    row.getDescripcion(),
+                    row.getIngredientes(),
+                    row.getInstrucciones(),
+                    row.getPaisOrigen(),
+                    row.getImagenUrl(),
+                    format(row.getFechaCreacion()),
+                    format(row.getUpdatedAt()),
+                    String.valueOf(row.getAutorId()),
+                    row.getAutorNombre(),
+                    row.getCategoriaId() != null ? String.valueOf(row.getCategoriaId()) : null,
+                    row.getCategoriaNombre(),
+                    String.valueOf(orZero(row.getPuntuacionPromedio())),
+                    String.valueOf(orZero(row.getTotalCalificaciones())),
+                    String.valueOf(orZero(row.getTotalComentariosAprobados()))
+            });
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Línea CSV según RFC 4180: los campos con comas, comillas o saltos de línea van entre comillas
+     */
+    private static void writeCsvLine(Writer writer, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String field = fields[i];
+            if (field == null) {
+                continue;
+            }
+            boolean quote = false;
+            for (int j = 0; j < field.length() && !quote; j++) {
+                char c = field.charAt(j);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (quote) {
+                writer.write('"');
+                writer.write(field.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(field);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeString(JsonGenerator json, String field, String value) throws IOException {
+        if (value != null) {
+            json.writeStringField(field, value);
+        } else {
+            json.writeNullField(field);
+        }
+    }
+
+    private static String format(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toString() : null;
+    }
+
+    private static float orZero(Float value) {
+        return value != null ? value : 0f;
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,542 @@
+package com.recipes.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recipes.dto.CategoryDTO;
+import com.recipes.dto.ImportErrorDTO;
+import com.recipes.dto.ImportResultDTO;
+import com.recipes.event.RecipesImportedEvent;
+import com.recipes.exception.BadRequestException;
+import com.recipes.exception.ServiceUnavailableException;
+import com.recipes.model.User;
+import com.recipes.repository.UserRepository;
+import com.recipes.search.IngredientNormalizer;
+import com.recipes.security.CurrentUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Importación masiva de recetas desde NDJSON (mismo formato que la exportación) o JSON-LD
+ * de schema.org (objetos Recipe, arreglos o documentos con @graph).
+ *
+ * El archivo se lee con un parser de streaming, las categorías y autores se resuelven en
+ * memoria y las filas se insertan con un INSERT de varias filas por lote, cada lote en su
+ * propia transacción. Mientras un lote se escribe en el batchExecutor se va leyendo el siguiente.
+ * Si un lote falla se reintenta fila por fila para informar qué registros no se pudieron guardar.
+ */
+@Service
+public class RecipeImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeImportService.class);
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int COLUMNS = 11;
+    private static final String INSERT_PREFIX = "INSERT INTO Recetas (id_usuario_admin, id_categoria, nombre_receta, " +
+            "descripcion_corta, ingredientes, pasos, ingredientes_text, pais_origen, image_url, " +
+            "fecha_creacion, updated_at) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final CategoryCatalog categoryCatalog;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService batchExecutor;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public RecipeImportService(JdbcTemplate jdbcTemplate,
+                               UserRepository userRepository,
+                               CategoryCatalog categoryCatalog,
+                               ObjectMapper objectMapper,
+                               ApplicationEventPublisher eventPublisher,
+                               @Qualifier("batchExecutor") ExecutorService batchExecutor,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.categoryCatalog = categoryCatalog;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.batchExecutor = batchExecutor;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Importa todas las recetas del stream. Las recetas sin autor se asignan al usuario actual.
+     * Solo se permite una importación a la vez.
+     */
+    public ImportResultDTO importRecipes(InputStream in) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new ServiceUnavailableException("Ya hay una importación de recetas en curso");
+        }
+        try {
+            return doImport(in);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ImportResultDTO doImport(InputStream in) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportContext context = new ImportContext(CurrentUser.id(), categoryCatalog.findAll());
+        ImportProgress progress = new ImportProgress();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        CompletableFuture<Void> previousWrite = CompletableFuture.completedFuture(null);
+
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                // Los arreglos de nivel superior solo agrupan recetas
+                if (token == JsonToken.START_ARRAY || token == JsonToken.END_ARRAY) {
+                    continue;
+                }
+                readValue(parser, token, context, progress, batch);
+                if (batch.size() >= batchSize) {
+                    previousWrite = flush(batch, progress, previousWrite);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // El parser no puede resincronizarse con seguridad: se guarda lo leído hasta aquí
+            progress.fail(progress.procesadas + 1, "JSON inválido en la línea "
+                    + e.getLocation().getLineNr() + ": " + e.getOriginalMessage());
+        } finally {
+            // Lo que ya se leyó se guarda aunque la descarga se haya cortado
+            previousWrite = flush(batch, progress, previousWrite);
+            await(previousWrite);
+            if (progress.importadas > 0) {
+                eventPublisher.publishEvent(new RecipesImportedEvent(progress.importadas));
+            }
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        log.info("Importación de recetas: {} procesadas, {} importadas, {} con error en {} ms",
+                progress.procesadas, progress.importadas, progress.fallidas, duration);
+        return progress.toDTO(duration);
+    }
+
+    private void readValue(JsonParser parser, JsonToken token, ImportContext context,
+                           ImportProgress progress, List<ImportRow> batch) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            progress.fail(progress.nextRecord(), "Se esperaba un objeto JSON con una receta");
+            return;
+        }
+
+        JsonNode node = objectMapper.readTree(parser);
+        if (node.has("@graph")) {
+            // Documento JSON-LD: solo interesan los nodos Recipe del grafo
+            for (JsonNode item : node.get("@graph")) {
+                if (isRecipeType(item)) {
+                    addRow(item, context, progress, batch);
+                }
+            }
+        } else if (node.has("@type") && !isRecipeType(node)) {
+            progress.fail(progress.nextRecord(), "El objeto JSON-LD no es de tipo Recipe");
+        } else {
+            addRow(node, context, progress, batch);
+        }
+    }
+
+    private void addRow(JsonNode node, ImportContext context, ImportProgress progress, List<ImportRow> batch) {
+        long registro = progress.nextRecord();
+        try {
+            batch.add(node.has("@type") ? fromJsonLd(registro, node, context) : fromNative(registro, node, context));
+        } catch (BadRequestException e) {
+            progress.fail(registro, e.getMessage());
+        }
+    }
+
+    /**
+     * Formato propio, el mismo que produce la exportación (los agregados se ignoran)
+     */
+    private ImportRow fromNative(long registro, JsonNode node, ImportContext context) {
+        Long autorId = context.defaultAuthorId;
+        if (node.hasNonNull("autorId")) {
+            autorId = context.resolveAuthorId(node.get("autorId").asLong());
+        } else if (text(node, "autorNombre") != null) {
+            autorId = context.resolveAuthorName(text(node, "autorNombre"));
+        }
+
+        Long categoriaId;
+        if (node.hasNonNull("categoriaId")) {
+            categoriaId = context.resolveCategoryId(node.get("categoriaId").asLong());
+        } else {
+            String nombre = text(node, "categoriaNombre") != null ? text(node, "categoriaNombre") : text(node, "categoria");
+            categoriaId = context.resolveCategoryName(nombre);
+        }
+
+        return toRow(registro, autorId, categoriaId, text(node, "titulo"), text(node, "descripcion"),
+                lines(node.get("ingredientes")), lines(node.get("instrucciones")),
+                text(node, "paisOrigen"), text(node, "imagenUrl"));
+    }
+
+    /**
+     * schema.org/Recipe. El autor de un JSON-LD suele ser externo al sitio,
+     * así que la receta queda a nombre del administrador que importa
+     */
+    private ImportRow fromJsonLd(long registro, JsonNode node, ImportContext context) {
+        Long categoriaId = null;
+        List<String> categories = lines(node.get("recipeCategory"));
+        for (String category : categories) {
+            categoriaId = context.findCategoryName(category);
+            if (categoriaId != null) {
+                break;
+            }
+        }
+        if (categoriaId == null) {
+            categoriaId = context.resolveCategoryName(categories.isEmpty() ? null : categories.get(0));
+        }
+
+        List<String> ingredientes = lines(node.get("recipeIngredient"));
+        if (ingredientes.isEmpty()) {
+            ingredientes = lines(node.get("ingredients"));
+        }
+        List<String> instrucciones = new ArrayList<>();
+        collectInstructions(node.get("recipeInstructions"), instrucciones);
+        List<String> cuisine = lines(node.get("recipeCuisine"));
+
+        return toRow(registro, context.defaultAuthorId, categoriaId, text(node, "name"), text(node, "description"),
+                ingredientes, instrucciones, cuisine.isEmpty() ? null : cuisine.get(0), imageUrl(node.get("image")));
+    }
+
+    private ImportRow toRow(long registro, Long autorId, Long categoriaId, String titulo, String descripcion,
+                            List<String> ingredientes, List<String> instrucciones,
+                            String paisOrigen, String imagenUrl) {
+        if (titulo == null) {
+            throw new BadRequestException("El título es obligatorio");
+        }
+        checkLength("El título", titulo, 70);
+        checkLength("La descripción", descripcion, 200);
+        checkLength("El país de origen", paisOrigen, 100);
+        checkLength("La URL de la imagen", imagenUrl, 255);
+        if (ingredientes.isEmpty()) {
+            throw new BadRequestException("La receta no tiene ingredientes");
+        }
+
+        String ingredientesText = String.join("\n", ingredientes);
+        try {
+            return new ImportRow(registro, autorId, categoriaId, titulo, descripcion,
+                    objectMapper.writeValueAsString(IngredientNormalizer.normalizeList(ingredientesText)),
+                    objectMapper.writeValueAsString(instrucciones), ingredientesText, paisOrigen, imagenUrl);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("No se pudo convertir la receta a JSON");
+        }
+    }
+
+    private CompletableFuture<Void> flush(List<ImportRow> batch, ImportProgress progress,
+                                          CompletableFuture<Void> previousWrite) {
+        if (batch.isEmpty()) {
+            return previousWrite;
+        }
+        // Como máximo un lote escribiéndose mientras se lee el siguiente
+        await(previousWrite);
+        return CompletableFuture.runAsync(() -> write(batch, progress), batchExecutor);
+    }
+
+    private void write(List<ImportRow> rows, ImportProgress progress) {
+        try {
+            transaction.executeWithoutResult(status -> insert(rows));
+            progress.imported(rows.size());
+        } catch (DataAccessException e) {
+            log.debug("Lote de importación rechazado, se reintenta fila por fila", e);
+            for (ImportRow row : rows) {
+                try {
+                    transaction.executeWithoutResult(status -> insert(List.of(row)));
+                    progress.imported(1);
+                } catch (DataAccessException rowError) {
+                    progress.fail(row.registro, "Error al guardar: "
+                            + NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                }
+            }
+        }
+    }
+
+    private void insert(List<ImportRow> rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows.size() * (ROW_PLACEHOLDERS.length() + 2));
+        sql.append(INSERT_PREFIX);
+        Object[] args = new Object[rows.size() * COLUMNS];
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int i = 0;
+        for (ImportRow row : rows) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+            args[i++] = row.autorId;
+            args[i++] = row.categoriaId;
+            args[i++] = row.titulo;
+            args[i++] = row.descripcion;
+            args[i++] = row.ingredientesJson;
+            args[i++] = row.pasosJson;
+            args[i++] = row.ingredientesText;
+            args[i++] = row.paisOrigen;
+            args[i++] = row.imagenUrl;
+            args[i++] = now;
+            args[i++] = now;
+        }
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    private static void await(CompletableFuture<Void> write) {
+        try {
+            write.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isRecipeType(JsonNode node) {
+        JsonNode type = node.get("@type");
+        if (type == null) {
+            return false;
+        }
+        if (type.isArray()) {
+            for (JsonNode item : type) {
+                if (isRecipeName(item.asText())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return isRecipeName(type.asText());
+    }
+
+    private static boolean isRecipeName(String type) {
+        return type.equals("Recipe") || type.endsWith("schema.org/Recipe");
+    }
+
+    /**
+     * Pasos de recipeInstructions: texto, HowToStep con text o HowToSection con itemListElement
+     */
+    private static void collectInstructions(JsonNode node, List<String> steps) {
+        if (node == null || node.isNull()) {
+            return;
+        }
+        if (node.isArray()) {
+            for (JsonNode item : node) {
+                collectInstructions(item, steps);
+            }
+        } else if (node.isObject()) {
+            if (node.has("itemListElement")) {
+                collectInstructions(node.get("itemListElement"), steps);
+            } else {
+                String step = text(node, "text") != null ? text(node, "text") : text(node, "name");
+                if (step != null) {
+                    steps.add(step);
+                }
+            }
+        } else {
+            steps.addAll(lines(node));
+        }
+    }
+
+    private static String imageUrl(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        if (node.isArray()) {
+            return node.isEmpty() ? null : imageUrl(node.get(0));
+        }
+        if (node.isObject()) {
+            return text(node, "url");
+        }
+        return blankToNull(node.asText());
+    }
+
+    /**
+     * Texto con una línea por elemento, o arreglo de textos
+     */
+    private static List<String> lines(JsonNode node) {
+        List<String> lines = new ArrayList<>();
+        if (node == null || node.isNull()) {
+            return lines;
+        }
+        if (node.isArray()) {
+            for (JsonNode item : node) {
+                String value = item.isValueNode() ? blankToNull(item.asText()) : null;
+                if (value != null) {
+                    lines.add(value);
+                }
+            }
+        } else if (node.isValueNode()) {
+            for (String line : node.asText().split("\\r?\\n")) {
+                String value = blankToNull(line);
+                if (value != null) {
+                    lines.add(value);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && value.isValueNode() ? blankToNull(value.asText()) : null;
+    }
+
+    private static String blankToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static void checkLength(String field, String value, int max) {
+        if (value != null && value.length() > max) {
+            throw new BadRequestException(field + " supera los " + max + " caracteres");
+        }
+    }
+
+    /**
+     * Categorías y autores resueltos durante una importación. Los autores se consultan
+     * una sola vez cada uno; solo lo usa el hilo que lee el archivo.
+     */
+    private final class ImportContext {
+        private final Long defaultAuthorId;
+        private final Map<Long, Boolean> categoryIds = new HashMap<>();
+        private final Map<String, Long> categoryByName = new HashMap<>();
+        private final Map<Long, Boolean> authorIds = new HashMap<>();
+        private final Map<String, Long> authorByName = new HashMap<>();
+
+        ImportContext(Long defaultAuthorId, List<CategoryDTO> categories) {
+            this.defaultAuthorId = defaultAuthorId;
+            for (CategoryDTO category : categories) {
+                categoryIds.put(category.getId(), Boolean.TRUE);
+                categoryByName.put(category.getNombre().trim().toLowerCase(Locale.ROOT), category.getId());
+            }
+        }
+
+        Long resolveCategoryId(long id) {
+            if (!categoryIds.containsKey(id)) {
+                throw new BadRequestException("Categoría inexistente: " + id);
+            }
+            return id;
+        }
+
+        Long findCategoryName(String nombre) {
+            return nombre != null ? categoryByName.get(nombre.trim().toLowerCase(Locale.ROOT)) : null;
+        }
+
+        Long resolveCategoryName(String nombre) {
+            if (nombre == null) {
+                throw new BadRequestException("La categoría es obligatoria");
+            }
+            Long id = findCategoryName(nombre);
+            if (id == null) {
+                throw new BadRequestException("Categoría inexistente: " + nombre);
+            }
+            return id;
+        }
+
+        Long resolveAuthorId(long id) {
+            if (!authorIds.computeIfAbsent(id, userRepository::existsById)) {
+                throw new BadRequestException("Usuario inexistente: " + id);
+            }
+            return id;
+        }
+
+        Long resolveAuthorName(String nombre) {
+            Long id = authorByName.computeIfAbsent(nombre, name -> userRepository.findByEmailOrUsername(name, name)
+                    .map(User::getId)
+                    .orElse(-1L));
+            if (id < 0) {
+                throw new BadRequestException("Usuario inexistente: " + nombre);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Contadores compartidos entre el hilo que lee y los que escriben los lotes
+     */
+    private static final class ImportProgress {
+        private long procesadas;
+        private long importadas;
+        private long fallidas;
+        private final List<ImportErrorDTO> errores = new ArrayList<>();
+
+        synchronized long nextRecord() {
+            return ++procesadas;
+        }
+
+        synchronized void imported(int count) {
+            importadas += count;
+        }
+
+        synchronized void fail(long registro, String mensaje) {
+            fallidas++;
+            if (errores.size() < MAX_REPORTED_ERRORS) {
+                errores.add(new ImportErrorDTO(registro, mensaje));
+            }
+        }
+
+        synchronized ImportResultDTO toDTO(long duracionMs) {
+            List<ImportErrorDTO> sorted = new ArrayList<>(errores);
+            sorted.sort((a, b) -> Long.compare(a.getRegistro(), b.getRegistro()));
+            return new ImportResultDTO(procesadas, importadas, fallidas, sorted, duracionMs);
+        }
+    }
+
+    private static final class ImportRow {
+        private final long registro;
+        private final Long autorId;
+        private final Long categoriaId;
+        private final String titulo;
+        private final String descripcion;
+        private final String ingredientesJson;
+        private final String pasosJson;
+        private final String ingredientesText;
+        private final String paisOrigen;
+        private final String imagenUrl;
+
+        ImportRow(long registro, Long autorId, Long categoriaId, String titulo, String descripcion,
+                  String ingredientesJson, String pasosJson, String ingredientesText,
+                  String paisOrigen, String imagenUrl) {
+            this.registro = registro;
+            this.autorId = autorId;
+            this.categoriaId = categoriaId;
+            this.titulo = titulo;
+            this.descripcion = descripcion;
+            this.ingredientesJson = ingredientesJson;
+            this.pasosJson = pasosJson;
+            this.ingredientesText = ingredientesText;
+            this.paisOrigen = paisOrigen;
+            this.imagenUrl = imagenUrl;
+        }
+    }
+}
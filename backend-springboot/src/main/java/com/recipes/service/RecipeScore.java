@@ -0,0 +1,35 @@
+package com.recipes.service;
+
+/**
+ * Agregados de una receta en memoria para los reportes
+ */
+final class RecipeScore {
+    final long recipeId;
+    // 0 si la receta no tiene categoría
+    final long categoryId;
+    final int sumaCalificaciones;
+    final int totalCalificaciones;
+    final int totalComentarios;
+
+    RecipeScore(long recipeId, long categoryId, int sumaCalificaciones, int totalCalificaciones, int totalComentarios) {
+        this.recipeId = recipeId;
+        this.categoryId = categoryId;
+        this.sumaCalificaciones = sumaCalificaciones;
+        this.totalCalificaciones = totalCalificaciones;
+        this.totalComentarios = totalComentarios;
+    }
+
+    RecipeScore withRating(int deltaSuma, int deltaTotal) {
+        return new RecipeScore(recipeId, categoryId, sumaCalificaciones + deltaSuma,
+                Math.max(0, totalCalificaciones + deltaTotal), totalComentarios);
+    }
+
+    RecipeScore withComments(int delta) {
+        return new RecipeScore(recipeId, categoryId, sumaCalificaciones, totalCalificaciones,
+                Math.max(0, totalComentarios + delta));
+    }
+
+    RecipeScore withCategory(long newCategoryId) {
+        return new RecipeScore(recipeId, newCategoryId, sumaCalificaciones, totalCalificaciones, totalComentarios);
+    }
+}
@@ -0,0 +1,33 @@
+package com.recipes.service;
+
+import com.recipes.exception.BadRequestException;
+
+/**
+ * Modo de búsqueda de recetas
+ * CONTIENE: LIKE '%texto%' sobre el título (recorre toda la tabla)
+ * NATURAL: MATCH ... AGAINST en lenguaje natural sobre el índice ft_recetas_busqueda (solo palabras completas)
+ * BOOLEANO: MATCH ... AGAINST en modo booleano (+requerido -excluido prefijo*); por defecto, porque sin
+ * operadores busca cada palabra como prefijo y una palabra a medio escribir sigue encontrando recetas
+ * INDICE: índice invertido en memoria con BM25 (RecipeSearchEngine), sin consultar MySQL
+ */
+public enum RecipeSearchMode {
+    CONTIENE,
+    NATURAL,
+    BOOLEANO,
+    INDICE;
+
+    public static RecipeSearchMode fromParam(String modo) {
+        return fromParam(modo, BOOLEANO);
+    }
+
+    public static RecipeSearchMode fromParam(String modo, RecipeSearchMode defaultMode) {
+        if (modo == null || modo.isEmpty()) {
+            return defaultMode;
+        }
+        try {
+            return valueOf(modo.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Modo de búsqueda inválido: " + modo);
+        }
+    }
+}
@@ -1,80 +1,305 @@
 package com.recipes.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recipes.dto.CursorPageDTO;
+import com.recipes.dto.PantryMatchDTO;
 import com.recipes.dto.RecipeDTO;
+import com.recipes.event.RecipeChangedEvent;
+import com.recipes.event.RecipeViewedEvent;
+import com.recipes.exception.BadRequestException;
 import com.recipes.exception.ResourceNotFoundException;
+import com.recipes.exception.ServiceUnavailableException;
 import com.recipes.model.Category;
 import com.recipes.model.Recipe;
-import com.recipes.model.User;
 import com.recipes.repository.CategoryRepository;
+import com.recipes.repository.RecipeRelevance;
 import com.recipes.repository.RecipeRepository;
+import com.recipes.repository.RecipeVersion;
 import com.recipes.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.recipes.search.IngredientNormalizer;
+import com.recipes.security.CurrentUser;
+import com.recipes.search.PantryMatch;
+import com.recipes.search.PantryMatcher;
+import com.recipes.search.RecipeSearchEngine;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
-@RequiredArgsConstructor
 public class RecipeService {
 
+    private static final int MAX_SCROLL_LIMIT = 100;
+    private static final int MIN_FULLTEXT_LENGTH = 3;
+    private static final int MAX_PANTRY_LIMIT = 50;
+
     private final RecipeRepository recipeRepository;
     private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
+    private final RecipeAssembler recipeAssembler;
+    private final FeaturedRecipeCache featuredRecipeCache;
+    private final CategoryCatalog categoryCatalog;
+    private final RecipeSearchEngine recipeSearchEngine;
+    private final PantryMatcher pantryMatcher;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public RecipeService(RecipeRepository recipeRepository,
+                         CategoryRepository categoryRepository,
+                         UserRepository userRepository,
+                         RecipeAssembler recipeAssembler,
+                         FeaturedRecipeCache featuredRecipeCache,
+                         CategoryCatalog categoryCatalog,
+                         RecipeSearchEngine recipeSearchEngine,
+                         PantryMatcher pantryMatcher,
+                         ObjectMapper objectMapper,
+                         ApplicationEventPublisher eventPublisher,
+                         PlatformTransactionManager transactionManager) {
+        this.recipeRepository = recipeRepository;
+        this.categoryRepository = categoryRepository;
+        this.userRepository = userRepository;
+        this.recipeAssembler = recipeAssembler;
+        this.featuredRecipeCache = featuredRecipeCache;
+        this.categoryCatalog = categoryCatalog;
+        this.recipeSearchEngine = recipeSearchEngine;
+        this.pantryMatcher = pantryMatcher;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
 
-    @Transactional(readOnly = true)
     public Page<RecipeDTO> findAll(Long categoria, String busqueda, Pageable pageable) {
+        return findAll(categoria, busqueda, RecipeSearchMode.BOOLEANO, pageable);
+    }
+
+    public Page<RecipeDTO> findAll(Long categoria, String busqueda, RecipeSearchMode modo, Pageable pageable) {
+        boolean hasSearch = busqueda != null && !busqueda.trim().isEmpty();
+
+        // El índice en memoria ordena los resultados; de MySQL solo se leen por clave primaria las recetas de la página
+        if (hasSearch && modo == RecipeSearchMode.INDICE && recipeSearchEngine.isReady()) {
+            return recipeSearchEngine.search(busqueda, categoria, pageable);
+        }
+
+        // Mientras el índice se construye, la búsqueda se resuelve con FULLTEXT
+        RecipeSearchMode databaseMode = modo == RecipeSearchMode.INDICE ? RecipeSearchMode.BOOLEANO : modo;
+        return readOnlyTransaction.execute(status -> findAllInDatabase(categoria, busqueda, databaseMode, pageable));
+    }
+
+    private Page<RecipeDTO> findAllInDatabase(Long categoria, String busqueda, RecipeSearchMode modo, Pageable pageable) {
+        boolean hasSearch = busqueda != null && !busqueda.trim().isEmpty();
+
+        // MySQL no indexa palabras de menos de 3 letras (innodb_ft_min_token_size),
+        // así que las búsquedas muy cortas se resuelven con LIKE
+        if (hasSearch && modo != RecipeSearchMode.CONTIENE && busqueda.trim().length() >= MIN_FULLTEXT_LENGTH) {
+            if (modo != RecipeSearchMode.BOOLEANO) {
+                return searchFullText(categoria, busqueda.trim(), modo, pageable);
+            }
+            // Sin palabras indexables ("de la") la expresión queda vacía y también se resuelve con LIKE
+            String expression = BooleanSearchExpression.parse(busqueda.trim());
+            if (expression != null) {
+                return searchFullText(categoria, expression, modo, pageable);
+            }
+        }
+
         Page<Recipe> recipes;
         
-        if (categoria != null && busqueda != null && !busqueda.isEmpty()) {
+        if (categoria != null && hasSearch) {
             recipes = recipeRepository.findByCategoriaIdAndTituloContainingIgnoreCase(categoria, busqueda, pageable);
         } else if (categoria != null) {
             recipes = recipeRepository.findByCategoriaId(categoria, pageable);
-        } else if (busqueda != null && !busqueda.isEmpty()) {
+        } else if (hasSearch) {
             recipes = recipeRepository.findByTituloContainingIgnoreCase(busqueda, pageable);
         } else {
             recipes = recipeRepository.findAll(pageable);
         }
         
-        return recipes.map(this::convertToDTO);
+        return recipeAssembler.toDTOPage(recipes);
+    }
+
+    /**
+     * @param busqueda en modo BOOLEANO, la expresión ya traducida por BooleanSearchExpression
+     */
+    private Page<RecipeDTO> searchFullText(Long categoria, String busqueda, RecipeSearchMode modo, Pageable pageable) {
+        Page<RecipeRelevance> matches;
+        if (modo == RecipeSearchMode.BOOLEANO) {
+            matches = categoria != null
+                    ? recipeRepository.searchBooleanByCategoria(categoria, busqueda, pageable)
+                    : recipeRepository.searchBoolean(busqueda, pageable);
+        } else {
+            matches = categoria != null
+                    ? recipeRepository.searchNaturalByCategoria(categoria, busqueda, pageable)
+                    : recipeRepository.searchNatural(busqueda, pageable);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        Map<Long, Double> relevance = new HashMap<>();
+        for (RecipeRelevance match : matches.getContent()) {
+            ids.add(match.getId());
+            relevance.put(match.getId(), match.getRelevancia());
+        }
+
+        // findAllById no respeta el orden de los ids, se reordena por relevancia
+        Map<Long, Recipe> byId = new HashMap<>();
+        for (Recipe recipe : recipeRepository.findAllById(ids)) {
+            byId.put(recipe.getId(), recipe);
+        }
+        List<Recipe> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Recipe recipe = byId.get(id);
+            if (recipe != null) {
+                ordered.add(recipe);
+            }
+        }
+
+        List<RecipeDTO> dtos = recipeAssembler.toDTOs(ordered);
+        for (RecipeDTO dto : dtos) {
+            dto.setRelevancia(relevance.get(dto.getId()));
+        }
+        return new PageImpl<>(dtos, pageable, matches.getTotalElements());
+    }
+
+    /**
+     * Paginación por cursor: en lugar de LIMIT/OFFSET + COUNT(*) continúa después de la
+     * última receta entregada, así que el costo no crece con la profundidad de la página.
+     * El total solo se calcula si se pide, y de forma aproximada.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<RecipeDTO> scroll(Long categoria, String busqueda, String cursor,
+                                           int limite, boolean aproximado) {
+        RecipeCursor after = RecipeCursor.decode(cursor);
+        Pageable pageable = PageRequest.of(0, Math.max(1, Math.min(limite, MAX_SCROLL_LIMIT)));
+        boolean hasSearch = busqueda != null && !busqueda.isEmpty();
+
+        Slice<Recipe> slice;
+        if (categoria != null && hasSearch) {
+            slice = recipeRepository.findSliceByCategoriaAndTituloAfter(categoria, busqueda,
+                    after.getFechaCreacion(), after.getId(), pageable);
+        } else if (categoria != null) {
+            slice = recipeRepository.findSliceByCategoriaAfter(categoria,
+                    after.getFechaCreacion(), after.getId(), pageable);
+        } else if (hasSearch) {
+            slice = recipeRepository.findSliceByTituloAfter(busqueda,
+                    after.getFechaCreacion(), after.getId(), pageable);
+        } else {
+            slice = recipeRepository.findSliceAfter(after.getFechaCreacion(), after.getId(), pageable);
+        }
+
+        List<Recipe> recipes = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext() && !recipes.isEmpty()) {
+            Recipe last = recipes.get(recipes.size() - 1);
+            nextCursor = new RecipeCursor(last.getFechaCreacion(), last.getId()).encode();
+        }
+
+        Long total = null;
+        if (aproximado && !hasSearch) {
+            total = categoria != null ? (long) categoryCatalog.totalRecetas(categoria) : recipeRepository.estimateCount();
+        }
+
+        return new CursorPageDTO<>(recipeAssembler.toDTOs(recipes), nextCursor, slice.hasNext(), total);
+    }
+
+    /**
+     * Recetas que se pueden preparar con los ingredientes de la despensa,
+     * permitiendo que falten como máximo maxFaltantes
+     */
+    public List<PantryMatchDTO> findByPantry(List<String> despensa, int maxFaltantes, Long categoria, int limite) {
+        if (despensa == null || despensa.isEmpty()) {
+            throw new BadRequestException("Indique al menos un ingrediente");
+        }
+        if (!pantryMatcher.isReady()) {
+            throw new ServiceUnavailableException("El índice de ingredientes se está construyendo, intente de nuevo en unos segundos");
+        }
+
+        List<PantryMatch> matches = pantryMatcher.match(despensa, maxFaltantes, categoria,
+                Math.max(1, Math.min(limite, MAX_PANTRY_LIMIT)));
+        if (matches.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> ids = new ArrayList<>(matches.size());
+        for (PantryMatch match : matches) {
+            ids.add(match.getRecipeId());
+        }
+        Map<Long, RecipeDTO> byId = new HashMap<>();
+        List<RecipeDTO> recipes = readOnlyTransaction.execute(status ->
+                recipeAssembler.toDTOs(recipeRepository.findAllById(ids)));
+        for (RecipeDTO recipe : recipes) {
+            byId.put(recipe.getId(), recipe);
+        }
+
+        List<PantryMatchDTO> result = new ArrayList<>(matches.size());
+        for (PantryMatch match : matches) {
+            RecipeDTO recipe = byId.get(match.getRecipeId());
+            if (recipe != null) {
+                result.add(new PantryMatchDTO(recipe, match.getCoincidencias(),
+                        match.getFaltantes(), match.getTotalIngredientes()));
+            }
+        }
+        return result;
     }
 
     @Transactional(readOnly = true)
     public RecipeDTO findById(Long id) {
         Recipe recipe = recipeRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Receta no encontrada"));
-        return convertToDTO(recipe);
+        return recipeAssembler.toDTO(recipe);
     }
 
+    /**
+     * Detalle de la receta para mostrarla; a diferencia de findById cuenta como una vista
+     */
     @Transactional(readOnly = true)
+    public RecipeDTO view(Long id) {
+        RecipeDTO recipe = findById(id);
+        countView(id);
+        return recipe;
+    }
+
+    /**
+     * Cuenta una vista sin cargar la receta (el cliente ya tenía la versión vigente)
+     */
+    public void countView(Long id) {
+        eventPublisher.publishEvent(new RecipeViewedEvent(id));
+    }
+
+    /**
+     * Versión del detalle de una receta con una consulta por clave primaria, sin armar el DTO
+     */
+    public RecipeVersion findVersion(Long id) {
+        return recipeRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Receta no encontrada"));
+    }
+
     public List<RecipeDTO> findFeatured() {
-        List<Recipe> recipes = recipeRepository.findFeaturedRecipes();
-        return recipes.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return featuredRecipeCache.get();
+    }
+
+    public long featuredVersion() {
+        return featuredRecipeCache.version();
     }
 
     @Transactional
     public RecipeDTO create(RecipeDTO recipeDTO) {
-        User currentUser = getCurrentUser();
-        
         Recipe recipe = new Recipe();
         recipe.setTitulo(recipeDTO.getTitulo());
         recipe.setDescripcion(recipeDTO.getDescripcion());
         recipe.setIngredientes(recipeDTO.getIngredientes());
-        
-        // Asegurar que ingredientesJson tenga un valor JSON válido
-        if (recipeDTO.getIngredientes() != null && !recipeDTO.getIngredientes().isEmpty()) {
-            // Si el campo ingredientes tiene valor, crear un JSON array simple
-            recipe.setIngredientesJson("[]");
-        } else {
-            recipe.setIngredientesJson("[]");
-        }
+        recipe.setIngredientesJson(toIngredientKeysJson(recipeDTO.getIngredientes()));
         
         // Convertir instrucciones a JSON si es texto plano
         if (recipeDTO.getInstrucciones() != null) {
@@ -85,7 +310,7 @@ public class RecipeService {
         
         recipe.setImagenUrl(recipeDTO.getImagenUrl());
         recipe.setPuntuacionPromedio(0.0f);
-        recipe.setAutor(currentUser);
+        recipe.setAutor(userRepository.getReferenceById(CurrentUser.id()));
         
         if (recipeDTO.getCategoriaId() != null) {
             Category category = categoryRepository.findById(recipeDTO.getCategoriaId())
@@ -94,7 +319,9 @@ public class RecipeService {
         }
         
         Recipe savedRecipe = recipeRepository.save(recipe);
-        return convertToDTO(savedRecipe);
+        RecipeDTO created = recipeAssembler.toDTO(savedRecipe);
+        eventPublisher.publishEvent(new RecipeChangedEvent(RecipeChangedEvent.Tipo.CREADA, created.getId(), created, null));
+        return created;
     }
 
     @Transactional
@@ -102,9 +329,12 @@ public class RecipeService {
         Recipe recipe = recipeRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Receta no encontrada"));
         
+        Long previousCategoryId = recipe.getCategoria() != null ? recipe.getCategoria().getId() : null;
+        
         recipe.setTitulo(recipeDTO.getTitulo());
         recipe.setDescripcion(recipeDTO.getDescripcion());
         recipe.setIngredientes(recipeDTO.getIngredientes());
+        recipe.setIngredientesJson(toIngredientKeysJson(recipeDTO.getIngredientes()));
         
         // Convertir instrucciones a JSON si es necesario
         if (recipeDTO.getInstrucciones() != null) {
@@ -120,60 +350,34 @@ public class RecipeService {
         }
         
         Recipe updatedRecipe = recipeRepository.save(recipe);
-        return convertToDTO(updatedRecipe);
+        RecipeDTO updated = recipeAssembler.toDTO(updatedRecipe);
+        eventPublisher.publishEvent(new RecipeChangedEvent(RecipeChangedEvent.Tipo.ACTUALIZADA, id, updated, previousCategoryId));
+        return updated;
     }
 
     @Transactional
     public void delete(Long id) {
         Recipe recipe = recipeRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Receta no encontrada"));
+        Long previousCategoryId = recipe.getCategoria() != null ? recipe.getCategoria().getId() : null;
         recipeRepository.delete(recipe);
-    }
-
-    private RecipeDTO convertToDTO(Recipe recipe) {
-        RecipeDTO dto = new RecipeDTO();
-        dto.setId(recipe.getId());
-        dto.setTitulo(recipe.getTitulo());
-        dto.setDescripcion(recipe.getDescripcion());
-        dto.setIngredientes(recipe.getIngredientes());
-        dto.setInstrucciones(recipe.getInstrucciones());
-        dto.setImagenUrl(recipe.getImagenUrl());
-        dto.setFechaCreacion(recipe.getFechaCreacion());
-        
-        if (recipe.getAutor() != null) {
-            dto.setAutorNombre(recipe.getAutor().getUsername());
-            dto.setAutorId(recipe.getAutor().getId());
-        }
-        
-        if (recipe.getCategoria() != null) {
-            dto.setCategoriaNombre(recipe.getCategoria().getNombre());
-            dto.setCategoriaId(recipe.getCategoria().getId());
-        }
-        
-        Double avgRating = recipeRepository.getAverageRating(recipe.getId());
-        dto.setCalificacionPromedio(avgRating != null ? avgRating : 0.0);
-        
-        dto.setTotalCalificaciones(recipe.getCalificaciones().size());
-        dto.setTotalComentarios((int) recipe.getComentarios().stream()
-                .filter(c -> "APROBADO".equals(c.getEstado().getNombre()))
-                .count());
-        
-        return dto;
+        eventPublisher.publishEvent(new RecipeChangedEvent(RecipeChangedEvent.Tipo.ELIMINADA, id, null, previousCategoryId));
     }
 
     public List<RecipeDTO> findByCurrentUser() {
-        User currentUser = getCurrentUser();
-        List<Recipe> recipes = recipeRepository.findByAutor_Id(currentUser.getId(), null).getContent();
-        return recipes.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
-    }
-
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String usernameOrEmail = authentication.getName();
-        return userRepository.findByEmailOrUsername(usernameOrEmail, usernameOrEmail)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        List<Recipe> recipes = recipeRepository.findByAutor_Id(CurrentUser.id(), null).getContent();
+        return recipeAssembler.toDTOs(recipes);
+    }
+    
+    /**
+     * Claves normalizadas de los ingredientes como JSON array, para el índice de despensa
+     */
+    private String toIngredientKeysJson(String ingredientes) {
+        try {
+            return objectMapper.writeValueAsString(IngredientNormalizer.normalizeList(ingredientes));
+        } catch (JsonProcessingException e) {
+            return "[]";
+        }
     }
     
     /**
@@ -0,0 +1,171 @@
+package com.recipes.service;
+
+import com.recipes.dto.JwtResponseDTO;
+import com.recipes.exception.UnauthorizedException;
+import com.recipes.model.RefreshToken;
+import com.recipes.repository.RefreshTokenRepository;
+import com.recipes.security.AuthenticatedUser;
+import com.recipes.security.JwtTokenProvider;
+import com.recipes.security.RevokedTokenStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Emite los pares access token + refresh token y los rota.
+ *
+ * El access token dura poco (jwt.expiration) y lleva un jti. El refresh token es un valor
+ * aleatorio opaco del que solo se guarda el SHA-256; cada uso lo marca como reemplazado y
+ * emite el par siguiente de la misma familia. Si llega uno ya reemplazado o revocado, alguien
+ * más lo tiene: se revoca la familia completa, incluidos sus access tokens vigentes.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtTokenProvider tokenProvider;
+    private final RevokedTokenStore revokedTokens;
+    private final long refreshExpiration;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, JwtTokenProvider tokenProvider,
+                               RevokedTokenStore revokedTokens,
+                               @Value("${jwt.refresh-expiration}") long refreshExpiration) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.tokenProvider = tokenProvider;
+        this.revokedTokens = revokedTokens;
+        this.refreshExpiration = refreshExpiration;
+    }
+
+    /**
+     * Par de tokens para un inicio de sesión nuevo
+     */
+    @Transactional
+    public JwtResponseDTO issue(Authentication authentication) {
+        return issue(authentication, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Par de tokens de la familia indicada; la respuesta va sin datos de usuario
+     */
+    @Transactional
+    public JwtResponseDTO issue(Authentication authentication, String familia) {
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        String tokenId = UUID.randomUUID().toString();
+        String accessToken = tokenProvider.generateToken(authentication, tokenId);
+        // Después de firmar, para no anotar un vencimiento anterior al del token
+        long now = System.currentTimeMillis();
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken row = new RefreshToken();
+        row.setTokenHash(hash(refreshToken));
+        row.setUsuarioId(principal.getId());
+        row.setFamilia(familia);
+        row.setJtiAcceso(tokenId);
+        row.setAccesoExpiraEn(toDateTime(now + tokenProvider.getExpirationTime()));
+        row.setExpiraEn(toDateTime(now + refreshExpiration));
+        refreshTokenRepository.save(row);
+
+        JwtResponseDTO response = new JwtResponseDTO(accessToken, tokenProvider.getExpirationTime(), null);
+        response.setRefreshToken(refreshToken);
+        response.setRefreshExpiresIn(refreshExpiration);
+        return response;
+    }
+
+    /**
+     * Consume un refresh token para emitir el siguiente de su familia.
+     * No se deshace al fallar: la revocación por reutilización tiene que quedar guardada.
+     * @return La fila consumida, ya marcada como reemplazada
+     */
+    @Transactional(noRollbackFor = UnauthorizedException.class)
+    public RefreshToken consume(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new UnauthorizedException("Refresh token requerido");
+        }
+        RefreshToken row = refreshTokenRepository.findByTokenHashForUpdate(hash(refreshToken))
+                .orElseThrow(() -> new UnauthorizedException("Refresh token inválido"));
+
+        LocalDateTime now = LocalDateTime.now();
+        if (row.getReemplazadoEn() != null || row.getRevocadoEn() != null) {
+            log.warn("Refresh token reutilizado para el usuario {}; se revoca la familia {}",
+                    row.getUsuarioId(), row.getFamilia());
+            revokeFamily(row.getFamilia(), now);
+            throw new UnauthorizedException("Refresh token inválido");
+        }
+        if (!row.getExpiraEn().isAfter(now)) {
+            throw new UnauthorizedException("Refresh token vencido");
+        }
+        row.setReemplazadoEn(now);
+        return row;
+    }
+
+    /**
+     * Cierra la sesión a la que pertenece el refresh token o el access token indicado
+     */
+    @Transactional
+    public void revokeSession(String refreshToken, String accessTokenId) {
+        RefreshToken row = null;
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            row = refreshTokenRepository.findByTokenHash(hash(refreshToken)).orElse(null);
+        }
+        if (row == null && accessTokenId != null) {
+            row = refreshTokenRepository.findByJtiAcceso(accessTokenId).orElse(null);
+        }
+        if (row != null) {
+            revokeFamily(row.getFamilia(), LocalDateTime.now());
+        }
+    }
+
+    @Scheduled(cron = "${app.auth.token-cleanup-cron:0 50 4 * * *}")
+    @Transactional
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Eliminados {} refresh tokens vencidos", deleted);
+        }
+    }
+
+    private void revokeFamily(String familia, LocalDateTime now) {
+        List<RefreshToken> rows = refreshTokenRepository.findByFamiliaAndRevocadoEnIsNull(familia);
+        for (RefreshToken row : rows) {
+            row.setRevocadoEn(now);
+            revokedTokens.revoke(row.getJtiAcceso(), RevokedTokenStore.toEpochMillis(row.getAccesoExpiraEn()));
+        }
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
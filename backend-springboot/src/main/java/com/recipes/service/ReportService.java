@@ -1,9 +1,550 @@
 package com.recipes.service;
 
+import com.recipes.dto.RecipeDTO;
+import com.recipes.dto.ReportDTO;
+import com.recipes.event.CommentChangedEvent;
+import com.recipes.event.ListenerTransactions;
+import com.recipes.event.RatingChangedEvent;
+import com.recipes.event.RecipeChangedEvent;
+import com.recipes.event.RecipesImportedEvent;
+import com.recipes.exception.ServiceUnavailableException;
+import com.recipes.repository.RecipeRepository;
+import com.recipes.repository.RecipeStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reportes de recetas (mejor calificadas, más calificadas, más comentadas), globales y por categoría.
+ * Los tops se mantienen en memoria a partir de los agregados de Recetas: cada calificación o
+ * comentario moderado actualiza solo los tops afectados, y un recálculo completo periódico
+ * (en paralelo) corrige cualquier desviación. Consultar un reporte no agrupa tablas.
+ */
 @Service
 public class ReportService {
-    // Service implementation for reports generation
-    // Methods: generateTopRated, generateMostCommented, generateMostRated
+
+    private static final Logger log = LoggerFactory.getLogger(ReportService.class);
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeAssembler recipeAssembler;
+    private final ExecutorService batchExecutor;
+    private final ExecutorService rebuildExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long chunkSize;
+    private final int capacity;
+    private final int minCalificaciones;
+
+    private final AtomicLong versions = new AtomicLong();
+    private Standings standings;
+    // Recetas modificadas durante un recálculo completo; null si no hay uno en curso
+    private Set<Long> touchedDuringRecompute;
+    // Recetas modificadas mientras se recalculan fuera del lock los tops sucios; null si no hay uno en curso
+    private Set<Long> touchedDuringRepair;
+    private final AtomicBoolean repairScheduled = new AtomicBoolean();
+    // Se pidió otro recálculo mientras corría uno; se repite al terminar
+    private boolean recomputeRequested;
+    private volatile boolean ready;
+
+    // DTOs de cada top, válidos mientras el top conserve la misma versión
+    private final Map<String, CachedReport> reports = new ConcurrentHashMap<>();
+
+    public ReportService(RecipeRepository recipeRepository,
+                         RecipeAssembler recipeAssembler,
+                         @Qualifier("batchExecutor") ExecutorService batchExecutor,
+                         @Qualifier("rebuildExecutor") ExecutorService rebuildExecutor,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.aggregates.chunk-size:5000}") long chunkSize,
+                         @Value("${app.reports.size:20}") int capacity,
+                         @Value("${app.reports.min-calificaciones:3}") int minCalificaciones) {
+        this.recipeRepository = recipeRepository;
+        this.recipeAssembler = recipeAssembler;
+        this.batchExecutor = batchExecutor;
+        this.rebuildExecutor = rebuildExecutor;
+        this.readOnlyTransaction = ListenerTransactions.afterCommitReadTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.capacity = Math.max(1, capacity);
+        this.minCalificaciones = Math.max(1, minCalificaciones);
+        this.standings = new Standings(new ConcurrentHashMap<>());
+    }
+
+    public List<ReportDTO> getReports(Long categoria, int limite) {
+        List<ReportDTO> result = new ArrayList<>();
+        for (ReportType type : ReportType.values()) {
+            result.add(getReport(type, categoria, limite));
+        }
+        return result;
+    }
+
+    public ReportDTO getReport(ReportType type, Long categoria, int limite) {
+        if (!ready) {
+            throw new ServiceUnavailableException("Los reportes se están calculando, intente de nuevo en unos segundos");
+        }
+
+        String key = type.name() + ":" + (categoria != null ? categoria : "global");
+        List<Long> ids;
+        long version;
+        synchronized (this) {
+            Leaderboard board = standings.board(type, categoria);
+            if (board == null) {
+                return new ReportDTO(type.getParam(), type.getTitulo(), new ArrayList<>());
+            }
+            if (board.isDirty()) {
+                // Mientras tanto se sirve el top anterior
+                scheduleRepair();
+            }
+            ids = board.recipeIds();
+            version = board.getVersion();
+        }
+
+        CachedReport cached = reports.get(key);
+        if (cached == null || cached.version != version) {
+            cached = new CachedReport(version, loadRecipes(ids));
+            reports.put(key, cached);
+        }
+
+        List<RecipeDTO> top = cached.recetas.subList(0, Math.min(Math.max(1, limite), cached.recetas.size()));
+        return new ReportDTO(type.getParam(), type.getTitulo(), new ArrayList<>(top));
+    }
+
+    private List<RecipeDTO> loadRecipes(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<RecipeDTO> recipes = readOnlyTransaction.execute(status ->
+                recipeAssembler.toDTOs(recipeRepository.findAllById(ids)));
+        Map<Long, RecipeDTO> byId = new HashMap<>();
+        for (RecipeDTO recipe : recipes) {
+            byId.put(recipe.getId(), recipe);
+        }
+        List<RecipeDTO> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            RecipeDTO recipe = byId.get(id);
+            if (recipe != null) {
+                ordered.add(recipe);
+            }
+        }
+        return List.copyOf(ordered);
+    }
+
+    /**
+     * Recalcula en segundo plano los tops sucios, uno solo a la vez
+     */
+    private void scheduleRepair() {
+        if (repairScheduled.compareAndSet(false, true)) {
+            try {
+                batchExecutor.execute(this::repairDirtyBoards);
+            } catch (RuntimeException e) {
+                repairScheduled.set(false);
+                log.warn("No se pudo programar el recálculo de los reportes sucios: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Vuelve a llenar los tops sucios recorriendo los agregados sin el lock (el mapa admite
+     * lecturas concurrentes), aplica lo que cambió durante el recorrido y publica cada top
+     * nuevo reemplazando al sucio
+     */
+    private void repairDirtyBoards() {
+        try {
+            Standings target;
+            List<DirtyBoard> dirty;
+            synchronized (this) {
+                target = standings;
+                dirty = target.dirtyBoards();
+                if (dirty.isEmpty()) {
+                    return;
+                }
+                touchedDuringRepair = new HashSet<>();
+            }
+
+            List<Leaderboard> fresh = new ArrayList<>(dirty.size());
+            for (DirtyBoard board : dirty) {
+                Leaderboard rebuilt = new Leaderboard(board.type, capacity, minCalificaciones);
+                for (RecipeScore score : target.scores.values()) {
+                    if (board.belongs(score)) {
+                        rebuilt.collect(score);
+                    }
+                }
+                rebuilt.finishBuild(versions.incrementAndGet());
+                fresh.add(rebuilt);
+            }
+
+            synchronized (this) {
+                // Un recálculo completo reemplazó los agregados mientras tanto: sus tops ya están al día
+                if (standings == target) {
+                    for (int i = 0; i < dirty.size(); i++) {
+                        DirtyBoard board = dirty.get(i);
+                        Leaderboard rebuilt = fresh.get(i);
+                        for (Long recipeId : touchedDuringRepair) {
+                            RecipeScore current = target.get(recipeId);
+                            RecipeScore after = current != null && board.belongs(current) ? current : null;
+                            RecipeScore before = rebuilt.entry(recipeId);
+                            if (before != null || after != null) {
+                                rebuilt.update(before, after, versions.incrementAndGet());
+                            }
+                        }
+                        target.replace(board.type, board.categoria, rebuilt);
+                    }
+                }
+                touchedDuringRepair = null;
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                touchedDuringRepair = null;
+            }
+            log.error("No se pudieron recalcular los reportes sucios", e);
+        } finally {
+            repairScheduled.set(false);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildExecutor.execute(this::recompute);
+    }
+
+    /**
+     * Los tops se recalculan completos tras una importación masiva
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipesImported(RecipesImportedEvent event) {
+        rebuildExecutor.execute(this::recompute);
+    }
+
+    /**
+     * Recalcula todos los tops desde los agregados de Recetas: lee por rangos de id en paralelo
+     * y construye los tops de cada tipo en paralelo. Los cambios que llegan mientras tanto
+     * se releen de la base de datos antes de publicar el resultado.
+     * @return Número de recetas consideradas, o -1 si ya había un recálculo en curso (se repite al terminar)
+     */
+    public int recompute() {
+        synchronized (this) {
+            if (touchedDuringRecompute != null) {
+                // El recálculo en curso pudo leer los agregados antes de este pedido
+                recomputeRequested = true;
+                log.info("Ya hay un recálculo de los reportes en curso; se repetirá al terminar");
+                return -1;
+            }
+            touchedDuringRecompute = new HashSet<>();
+        }
+
+        int recipes;
+        while ((recipes = build()) < 0) {
+            log.info("Repitiendo el recálculo de los reportes pedido mientras corría el anterior");
+        }
+        return recipes;
+    }
+
+    /**
+     * Devuelve el número de recetas consideradas, o -1 si mientras tanto se pidió otro recálculo;
+     * en ese caso touchedDuringRecompute queda iniciado para él
+     */
+    private int build() {
+        long start = System.currentTimeMillis();
+        try {
+            // Admite lecturas sin el lock para recalcular tops sucios una vez publicado
+            Map<Long, RecipeScore> scores = new ConcurrentHashMap<>();
+            Long minId = recipeRepository.findMinId();
+            Long maxId = recipeRepository.findMaxId();
+            if (minId != null && maxId != null) {
+                List<CompletableFuture<List<RecipeStats>>> chunks = new ArrayList<>();
+                for (long desde = minId; desde <= maxId; desde += chunkSize) {
+                    long from = desde;
+                    long to = Math.min(desde + chunkSize - 1, maxId);
+                    chunks.add(CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status ->
+                            recipeRepository.findStatsByIdBetween(from, to)), batchExecutor));
+                }
+                for (CompletableFuture<List<RecipeStats>> chunk : chunks) {
+                    for (RecipeStats row : chunk.join()) {
+                        scores.put(row.getId(), toScore(row));
+                    }
+                }
+            }
+
+            Standings fresh = new Standings(scores);
+            fresh.buildAll();
+
+            // Los tops nuevos todavía son privados de este hilo; se ponen al día con lo que
+            // cambió durante la carga hasta que no quede nada pendiente
+            Set<Long> replayed = new HashSet<>();
+            boolean again;
+            while (true) {
+                Set<Long> pending;
+                synchronized (this) {
+                    pending = new HashSet<>(touchedDuringRecompute);
+                    pending.removeAll(replayed);
+                    if (pending.isEmpty()) {
+                        standings = fresh;
+                        ready = true;
+                        again = finishBuild();
+                        break;
+                    }
+                }
+                Map<Long, RecipeScore> current = new HashMap<>();
+                for (RecipeStats row : readOnlyTransaction.execute(status -> recipeRepository.findStatsByIdIn(pending))) {
+                    current.put(row.getId(), toScore(row));
+                }
+                for (Long id : pending) {
+                    fresh.put(id, current.get(id));
+                }
+                replayed.addAll(pending);
+            }
+
+            log.info("Reportes recalculados: {} recetas en {} ms", scores.size(), System.currentTimeMillis() - start);
+            return again ? -1 : scores.size();
+        } catch (RuntimeException e) {
+            log.error("No se pudieron recalcular los reportes", e);
+            synchronized (this) {
+                if (finishBuild()) {
+                    return -1;
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Cierra un recálculo (con el lock tomado) y deja listo el siguiente si se pidió
+     */
+    private boolean finishBuild() {
+        boolean again = recomputeRequested;
+        recomputeRequested = false;
+        touchedDuringRecompute = again ? new HashSet<>() : null;
+        return again;
+    }
+
+    @Scheduled(cron = "${app.reports.recompute-cron:0 0 * * * *}")
+    public void scheduledRecompute() {
+        try {
+            recompute();
+        } catch (RuntimeException e) {
+            // build() ya lo registró; el próximo recálculo programado lo vuelve a intentar
+        }
+    }
+
+    private static RecipeScore toScore(RecipeStats row) {
+        return new RecipeScore(row.getId(),
+                row.getCategoriaId() != null ? row.getCategoriaId() : 0L,
+                row.getSumaCalificaciones() != null ? row.getSumaCalificaciones() : 0,
+                row.getTotalCalificaciones() != null ? row.getTotalCalificaciones() : 0,
+                row.getTotalComentariosAprobados() != null ? row.getTotalComentariosAprobados() : 0);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRatingChanged(RatingChangedEvent event) {
+        int deltaSuma = event.getPuntuacionNueva() - (event.getPuntuacionAnterior() != null ? event.getPuntuacionAnterior() : 0);
+        int deltaTotal = event.getPuntuacionAnterior() == null ? 1 : 0;
+        RecipeScore current = standings.get(event.getRecipeId());
+        if (current != null) {
+            standings.put(event.getRecipeId(), current.withRating(deltaSuma, deltaTotal));
+        }
+        touched(event.getRecipeId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCommentChanged(CommentChangedEvent event) {
+        if (!event.cambiaAprobados()) {
+            return;
+        }
+        RecipeScore current = standings.get(event.getRecipeId());
+        if (current != null) {
+            standings.put(event.getRecipeId(), current.withComments("APROBADO".equals(event.getEstadoNuevo()) ? 1 : -1));
+        }
+        touched(event.getRecipeId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRecipeChanged(RecipeChangedEvent event) {
+        Long recipeId = event.getRecipeId();
+        if (event.getReceta() == null) {
+            standings.put(recipeId, null);
+        } else {
+            long categoryId = event.getReceta().getCategoriaId() != null ? event.getReceta().getCategoriaId() : 0L;
+            RecipeScore current = standings.get(recipeId);
+            if (current == null) {
+                standings.put(recipeId, new RecipeScore(recipeId, categoryId, 0, 0, 0));
+            } else if (current.categoryId != categoryId) {
+                standings.put(recipeId, current.withCategory(categoryId));
+            }
+        }
+        touched(recipeId);
+    }
+
+    private void touched(Long recipeId) {
+        if (touchedDuringRecompute != null) {
+            touchedDuringRecompute.add(recipeId);
+        }
+        if (touchedDuringRepair != null) {
+            touchedDuringRepair.add(recipeId);
+        }
+    }
+
+    /**
+     * Top sucio pendiente de recalcular; categoria es null para el global
+     */
+    private static final class DirtyBoard {
+        private final ReportType type;
+        private final Long categoria;
+
+        DirtyBoard(ReportType type, Long categoria) {
+            this.type = type;
+            this.categoria = categoria;
+        }
+
+        boolean belongs(RecipeScore score) {
+            return categoria == null || score.categoryId == categoria;
+        }
+    }
+
+    private static final class CachedReport {
+        private final long version;
+        private final List<RecipeDTO> recetas;
+
+        CachedReport(long version, List<RecipeDTO> recetas) {
+            this.version = version;
+            this.recetas = recetas;
+        }
+    }
+
+    /**
+     * Agregados de todas las recetas y sus tops (uno global y uno por categoría para cada tipo)
+     */
+    private final class Standings {
+        private final Map<Long, RecipeScore> scores;
+        private final Leaderboard[] global = new Leaderboard[ReportType.values().length];
+        private final Map<Long, Leaderboard[]> byCategory = new HashMap<>();
+
+        Standings(Map<Long, RecipeScore> scores) {
+            this.scores = scores;
+            for (ReportType type : ReportType.values()) {
+                global[type.ordinal()] = new Leaderboard(type, capacity, minCalificaciones);
+            }
+        }
+
+        RecipeScore get(Long recipeId) {
+            return scores.get(recipeId);
+        }
+
+        Leaderboard board(ReportType type, Long categoria) {
+            if (categoria == null) {
+                return global[type.ordinal()];
+            }
+            Leaderboard[] boards = byCategory.get(categoria);
+            return boards != null ? boards[type.ordinal()] : null;
+        }
+
+        private Leaderboard[] categoryBoards(long categoryId) {
+            return byCategory.computeIfAbsent(categoryId, id -> {
+                Leaderboard[] boards = new Leaderboard[ReportType.values().length];
+                for (ReportType type : ReportType.values()) {
+                    boards[type.ordinal()] = new Leaderboard(type, capacity, minCalificaciones);
+                }
+                return boards;
+            });
+        }
+
+        /**
+         * Construye todos los tops; cada tipo se procesa en paralelo con su propio recorrido
+         */
+        void buildAll() {
+            for (RecipeScore score : scores.values()) {
+                if (score.categoryId != 0) {
+                    categoryBoards(score.categoryId);
+                }
+            }
+            List<CompletableFuture<Void>> tasks = new ArrayList<>();
+            for (ReportType type : ReportType.values()) {
+                tasks.add(CompletableFuture.runAsync(() -> build(type), batchExecutor));
+            }
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+        }
+
+        private void build(ReportType type) {
+            int t = type.ordinal();
+            for (RecipeScore score : scores.values()) {
+                global[t].collect(score);
+                if (score.categoryId != 0) {
+                    byCategory.get(score.categoryId)[t].collect(score);
+                }
+            }
+            global[t].finishBuild(versions.incrementAndGet());
+            for (Leaderboard[] boards : byCategory.values()) {
+                boards[t].finishBuild(versions.incrementAndGet());
+            }
+        }
+
+        List<DirtyBoard> dirtyBoards() {
+            List<DirtyBoard> dirty = new ArrayList<>();
+            for (ReportType type : ReportType.values()) {
+                if (global[type.ordinal()].isDirty()) {
+                    dirty.add(new DirtyBoard(type, null));
+                }
+                for (Map.Entry<Long, Leaderboard[]> entry : byCategory.entrySet()) {
+                    if (entry.getValue()[type.ordinal()].isDirty()) {
+                        dirty.add(new DirtyBoard(type, entry.getKey()));
+                    }
+                }
+            }
+            return dirty;
+        }
+
+        void replace(ReportType type, Long categoria, Leaderboard board) {
+            if (categoria == null) {
+                global[type.ordinal()] = board;
+            } else {
+                categoryBoards(categoria)[type.ordinal()] = board;
+            }
+        }
+
+        /**
+         * Reemplaza los agregados de una receta (null = eliminada) y actualiza los tops afectados
+         */
+        void put(Long recipeId, RecipeScore after) {
+            RecipeScore before = after != null ? scores.put(recipeId, after) : scores.remove(recipeId);
+            if (before == null && after == null) {
+                return;
+            }
+            long version = versions.incrementAndGet();
+            long beforeCategory = before != null ? before.categoryId : 0L;
+            long afterCategory = after != null ? after.categoryId : 0L;
+
+            for (ReportType type : ReportType.values()) {
+                int t = type.ordinal();
+                global[t].update(before, after, version);
+                if (beforeCategory == afterCategory) {
+                    if (afterCategory != 0) {
+                        categoryBoards(afterCategory)[t].update(before, after, version);
+                    }
+                } else {
+                    if (beforeCategory != 0) {
+                        categoryBoards(beforeCategory)[t].update(before, null, version);
+                    }
+                    if (afterCategory != 0) {
+                        categoryBoards(afterCategory)[t].update(null, after, version);
+                    }
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,42 @@
+package com.recipes.service;
+
+import com.recipes.exception.BadRequestException;
+
+/**
+ * Reportes de recetas disponibles, con el identificador que se usa en la URL
+ * MEJOR_CALIFICADAS: mayor promedio (con un mínimo de calificaciones)
+ * MAS_CALIFICADAS: más calificaciones
+ * MAS_COMENTADAS: más comentarios aprobados
+ */
+public enum ReportType {
+    MEJOR_CALIFICADAS("top-rated", "Recetas mejor calificadas"),
+    MAS_CALIFICADAS("most-rated", "Recetas más calificadas"),
+    MAS_COMENTADAS("most-commented", "Recetas más comentadas");
+
+    private final String param;
+    private final String titulo;
+
+    ReportType(String param, String titulo) {
+        this.param = param;
+        this.titulo = titulo;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public String getTitulo() {
+        return titulo;
+    }
+
+    public static ReportType fromParam(String tipo) {
+        if (tipo != null) {
+            for (ReportType type : values()) {
+                if (type.param.equalsIgnoreCase(tipo.trim()) || type.name().equalsIgnoreCase(tipo.trim())) {
+                    return type;
+                }
+            }
+        }
+        throw new BadRequestException("Tipo de reporte inválido: " + tipo);
+    }
+}
@@ -0,0 +1,166 @@
+package com.recipes.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Contadores de actividad por receta en una ventana deslizante de intervalos de tiempo.
+ * Cada receta ocupa un tramo de `window` posiciones en un único float[] usado como anillo:
+ * el intervalo número b (minutos desde la época / tamaño del intervalo) va en la posición b % window.
+ * Los intervalos que salen de la ventana se limpian de forma perezosa al volver a escribir.
+ *
+ * No es thread-safe: TrendingEngine lo usa bajo su lock.
+ */
+final class TrendingCounters {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int window;
+    private final Map<Long, Integer> slotByRecipe = new HashMap<>();
+    private long[] recipeIds = new long[INITIAL_CAPACITY];
+    private long[] categoryIds = new long[INITIAL_CAPACITY];
+    // Último intervalo escrito de cada receta; Long.MIN_VALUE si nunca tuvo actividad
+    private long[] lastBucket = new long[INITIAL_CAPACITY];
+    private float[] buckets;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int maxSlot;
+
+    TrendingCounters(int window) {
+        this.window = window;
+        this.buckets = new float[INITIAL_CAPACITY * window];
+    }
+
+    int size() {
+        return slotByRecipe.size();
+    }
+
+    /**
+     * Da de alta la receta o actualiza su categoría
+     */
+    void register(long recipeId, long categoryId) {
+        Integer slot = slotByRecipe.get(recipeId);
+        if (slot != null) {
+            categoryIds[slot] = categoryId;
+            return;
+        }
+        int newSlot = freeCount > 0 ? freeSlots[--freeCount] : maxSlot++;
+        ensureCapacity(maxSlot);
+        recipeIds[newSlot] = recipeId;
+        categoryIds[newSlot] = categoryId;
+        lastBucket[newSlot] = Long.MIN_VALUE;
+        Arrays.fill(buckets, newSlot * window, (newSlot + 1) * window, 0f);
+        slotByRecipe.put(recipeId, newSlot);
+    }
+
+    void remove(long recipeId) {
+        Integer slot = slotByRecipe.remove(recipeId);
+        if (slot == null) {
+            return;
+        }
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Suma actividad a una receta en un intervalo. Las recetas desconocidas se ignoran
+     * y la actividad más vieja que la ventana se descarta.
+     */
+    void add(long recipeId, long bucket, float weight) {
+        Integer slot = slotByRecipe.get(recipeId);
+        if (slot == null) {
+            return;
+        }
+        int base = slot * window;
+        long last = lastBucket[slot];
+        if (bucket > last) {
+            // Limpiar los intervalos que el anillo reutiliza entre el último escrito y el nuevo
+            if (last == Long.MIN_VALUE || bucket - last >= window) {
+                Arrays.fill(buckets, base, base + window, 0f);
+            } else {
+                for (long b = last + 1; b <= bucket; b++) {
+                    buckets[base + (int) Math.floorMod(b, (long) window)] = 0f;
+                }
+            }
+            lastBucket[slot] = bucket;
+        } else if (bucket <= last - window) {
+            return;
+        }
+        buckets[base + (int) Math.floorMod(bucket, (long) window)] += weight;
+    }
+
+    /**
+     * Las recetas con mayor puntaje en el intervalo actual, la mejor primero.
+     * @param decay decay[k] = factor para actividad de hace k intervalos
+     */
+    Ranking top(long currentBucket, Long categoria, int limit, float[] decay) {
+        long categoryFilter = categoria != null ? categoria : -1L;
+        // puntaje (bits del float, que ordenan igual que el valor si es positivo) | slot
+        long[] keys = new long[Math.min(maxSlot, 1024)];
+        int count = 0;
+
+        for (Map.Entry<Long, Integer> entry : slotByRecipe.entrySet()) {
+            int slot = entry.getValue();
+            long last = lastBucket[slot];
+            if (last == Long.MIN_VALUE || last <= currentBucket - window
+                    || (categoryFilter >= 0 && categoryIds[slot] != categoryFilter)) {
+                continue;
+            }
+            float score = score(slot, currentBucket, decay);
+            if (score <= 0f) {
+                continue;
+            }
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+            }
+            keys[count++] = ((long) Float.floatToIntBits(score) << 32) | slot;
+        }
+
+        Arrays.sort(keys, 0, count);
+        int size = Math.min(limit, count);
+        long[] ids = new long[size];
+        float[] scores = new float[size];
+        for (int i = 0; i < size; i++) {
+            long key = keys[count - 1 - i];
+            int slot = (int) (key & 0xFFFFFFFFL);
+            ids[i] = recipeIds[slot];
+            scores[i] = Float.intBitsToFloat((int) (key >>> 32));
+        }
+        return new Ranking(ids, scores);
+    }
+
+    private float score(int slot, long currentBucket, float[] decay) {
+        int base = slot * window;
+        long last = Math.min(lastBucket[slot], currentBucket);
+        long first = Math.max(lastBucket[slot] - window + 1, currentBucket - window + 1);
+        float score = 0f;
+        for (long b = first; b <= last; b++) {
+            score += buckets[base + (int) Math.floorMod(b, (long) window)] * decay[(int) (currentBucket - b)];
+        }
+        return score;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= recipeIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, recipeIds.length + (recipeIds.length >> 1));
+        recipeIds = Arrays.copyOf(recipeIds, newCapacity);
+        categoryIds = Arrays.copyOf(categoryIds, newCapacity);
+        lastBucket = Arrays.copyOf(lastBucket, newCapacity);
+        buckets = Arrays.copyOf(buckets, newCapacity * window);
+    }
+
+    static final class Ranking {
+        final long[] recipeIds;
+        final float[] scores;
+
+        Ranking(long[] recipeIds, float[] scores) {
+            this.recipeIds = recipeIds;
+            this.scores = scores;
+        }
+    }
+}
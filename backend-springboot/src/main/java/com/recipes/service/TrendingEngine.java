@@ -0,0 +1,357 @@
+package com.recipes.service;
+
+import com.recipes.dto.RecipeDTO;
+import com.recipes.dto.TrendingRecipeDTO;
+import com.recipes.event.CommentChangedEvent;
+import com.recipes.event.ListenerTransactions;
+import com.recipes.event.RatingChangedEvent;
+import com.recipes.event.RecipeChangedEvent;
+import com.recipes.event.RecipeViewedEvent;
+import com.recipes.event.RecipesImportedEvent;
+import com.recipes.exception.ServiceUnavailableException;
+import com.recipes.repository.CommentRepository;
+import com.recipes.repository.RatingRepository;
+import com.recipes.repository.RecipeActivity;
+import com.recipes.repository.RecipeCategoryRef;
+import com.recipes.repository.RecipeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Recetas en tendencia: actividad reciente (vistas, calificaciones, comentarios aprobados)
+ * acumulada en intervalos de tiempo y ponderada con decaimiento exponencial, de modo que
+ * la actividad de hace una vida media cuenta la mitad. Todo se calcula en memoria.
+ *
+ * Al arrancar se reconstruye con las fechas de Calificaciones y Comentarios; las vistas
+ * no se guardan en la base de datos, así que solo cuentan las posteriores al arranque.
+ */
+@Component
+public class TrendingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingEngine.class);
+
+    private static final float VIEW_WEIGHT = 1f;
+    private static final float RATING_WEIGHT = 3f;
+    private static final float COMMENT_WEIGHT = 5f;
+    private static final int MAX_LIMIT = 50;
+
+    private final RecipeRepository recipeRepository;
+    private final RatingRepository ratingRepository;
+    private final CommentRepository commentRepository;
+    private final RecipeAssembler recipeAssembler;
+    private final ExecutorService rebuildExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long chunkSize;
+    private final long bucketMillis;
+    private final int window;
+    private final float[] decay;
+    private final long cacheMillis;
+
+    private TrendingCounters counters;
+    // Actividad recibida durante una reconstrucción; se reaplica antes de publicar los contadores nuevos
+    private List<RecordedActivity> pendingActivity;
+    private List<RecipeChangedEvent> pendingRecipeChanges;
+    // Se pidió otra reconstrucción mientras corría una; se repite al terminar
+    private boolean rebuildRequested;
+    private volatile boolean ready;
+
+    private final Map<String, CachedTrending> cache = new ConcurrentHashMap<>();
+
+    public TrendingEngine(RecipeRepository recipeRepository,
+                          RatingRepository ratingRepository,
+                          CommentRepository commentRepository,
+                          RecipeAssembler recipeAssembler,
+                          @Qualifier("rebuildExecutor") ExecutorService rebuildExecutor,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.aggregates.chunk-size:5000}") long chunkSize,
+                          @Value("${app.trending.bucket-minutes:60}") int bucketMinutes,
+                          @Value("${app.trending.window-buckets:72}") int window,
+                          @Value("${app.trending.half-life-hours:12}") double halfLifeHours,
+                          @Value("${app.trending.cache-seconds:30}") int cacheSeconds) {
+        this.recipeRepository = recipeRepository;
+        this.ratingRepository = ratingRepository;
+        this.commentRepository = commentRepository;
+        this.recipeAssembler = recipeAssembler;
+        this.rebuildExecutor = rebuildExecutor;
+        this.readOnlyTransaction = ListenerTransactions.afterCommitReadTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.bucketMillis = Math.max(1, bucketMinutes) * 60_000L;
+        this.window = Math.max(1, window);
+        this.cacheMillis = Math.max(0, cacheSeconds) * 1000L;
+        this.counters = new TrendingCounters(this.window);
+
+        // decay[k] = 0.5 ^ (antigüedad de k intervalos / vida media)
+        double bucketsPerHalfLife = Math.max(halfLifeHours, 0.01) * 3_600_000d / bucketMillis;
+        this.decay = new float[this.window];
+        for (int k = 0; k < this.window; k++) {
+            decay[k] = (float) Math.pow(0.5, k / bucketsPerHalfLife);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * Registra las recetas importadas (sin actividad todavía)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipesImported(RecipesImportedEvent event) {
+        rebuildExecutor.execute(this::rebuild);
+    }
+
+    public void rebuild() {
+        synchronized (this) {
+            if (pendingActivity != null) {
+                // La reconstrucción en curso pudo leer las recetas antes de este cambio
+                rebuildRequested = true;
+                log.info("Ya hay una reconstrucción de las tendencias en curso; se repetirá al terminar");
+                return;
+            }
+            pendingActivity = new ArrayList<>();
+            pendingRecipeChanges = new ArrayList<>();
+        }
+
+        while (build()) {
+            log.info("Repitiendo la reconstrucción de las tendencias pedida mientras corría la anterior");
+        }
+    }
+
+    /**
+     * Devuelve true si mientras tanto se pidió otra reconstrucción; en ese caso
+     * pendingActivity y pendingRecipeChanges quedan iniciados para ella
+     */
+    private boolean build() {
+        long start = System.currentTimeMillis();
+        try {
+            // Se carga la actividad anterior a este instante; la posterior llega por eventos
+            LocalDateTime hasta = toDateTime(start);
+            LocalDateTime desde = toDateTime((bucketOf(start) - window + 1) * bucketMillis);
+            TrendingCounters fresh = new TrendingCounters(window);
+
+            Long minId = recipeRepository.findMinId();
+            Long maxId = recipeRepository.findMaxId();
+            if (minId != null && maxId != null) {
+                for (long chunkStart = minId; chunkStart <= maxId; chunkStart += chunkSize) {
+                    long from = chunkStart;
+                    long to = Math.min(chunkStart + chunkSize - 1, maxId);
+                    List<RecipeCategoryRef> refs = readOnlyTransaction.execute(status ->
+                            recipeRepository.findCategoryRefsByIdBetween(from, to));
+                    for (RecipeCategoryRef ref : refs) {
+                        fresh.register(ref.getId(), ref.getCategoriaId() != null ? ref.getCategoriaId() : 0L);
+                    }
+                }
+            }
+            // Una calificación o comentario confirmado después de iniciar pendingActivity puede estar
+            // a la vez en la consulta y en pendingActivity: se reaplica solo si la consulta no lo trajo
+            int activity = 0;
+            Set<Long> loadedRatings = new HashSet<>();
+            Set<Long> loadedComments = new HashSet<>();
+            for (RecipeActivity rating : readOnlyTransaction.execute(status ->
+                    ratingRepository.findActivityBetween(desde, hasta))) {
+                fresh.add(rating.getRecipeId(), bucketOf(rating.getFecha()), RATING_WEIGHT);
+                loadedRatings.add(ratingKey(rating.getRecipeId(), rating.getRef()));
+                activity++;
+            }
+            for (RecipeActivity comment : readOnlyTransaction.execute(status ->
+                    commentRepository.findApprovedActivityBetween(desde, hasta))) {
+                fresh.add(comment.getRecipeId(), bucketOf(comment.getFecha()), COMMENT_WEIGHT);
+                loadedComments.add(comment.getRef());
+                activity++;
+            }
+
+            boolean again;
+            synchronized (this) {
+                for (RecipeChangedEvent change : pendingRecipeChanges) {
+                    applyRecipeChange(fresh, change);
+                }
+                for (RecordedActivity pending : pendingActivity) {
+                    if (pending.ratingKey >= 0 && loadedRatings.contains(pending.ratingKey)
+                            || pending.commentId >= 0 && loadedComments.contains(pending.commentId)) {
+                        continue;
+                    }
+                    fresh.add(pending.recipeId, pending.bucket, pending.weight);
+                }
+                counters = fresh;
+                ready = true;
+                again = finishBuild();
+            }
+            cache.clear();
+            log.info("Tendencias reconstruidas: {} recetas, {} eventos en {} ms",
+                    fresh.size(), activity, System.currentTimeMillis() - start);
+            return again;
+        } catch (RuntimeException e) {
+            log.error("No se pudieron reconstruir las tendencias", e);
+            synchronized (this) {
+                return finishBuild();
+            }
+        }
+    }
+
+    /**
+     * Cierra una reconstrucción (con el lock tomado) y deja lista la siguiente si se pidió
+     */
+    private boolean finishBuild() {
+        boolean again = rebuildRequested;
+        rebuildRequested = false;
+        pendingActivity = again ? new ArrayList<>() : null;
+        pendingRecipeChanges = again ? new ArrayList<>() : null;
+        return again;
+    }
+
+    public List<TrendingRecipeDTO> trending(Long categoria, int limite) {
+        if (!ready) {
+            throw new ServiceUnavailableException("Las tendencias se están calculando, intente de nuevo en unos segundos");
+        }
+
+        int limit = Math.max(1, Math.min(limite, MAX_LIMIT));
+        String key = (categoria != null ? categoria : "global") + ":" + limit;
+        long now = System.currentTimeMillis();
+        CachedTrending cached = cache.get(key);
+        if (cached != null && now - cached.calculadoEn < cacheMillis) {
+            return cached.recetas;
+        }
+
+        TrendingCounters.Ranking ranking;
+        synchronized (this) {
+            ranking = counters.top(bucketOf(now), categoria, limit, decay);
+        }
+
+        List<Long> ids = new ArrayList<>(ranking.recipeIds.length);
+        for (long id : ranking.recipeIds) {
+            ids.add(id);
+        }
+        Map<Long, RecipeDTO> byId = new HashMap<>();
+        if (!ids.isEmpty()) {
+            List<RecipeDTO> recipes = readOnlyTransaction.execute(status ->
+                    recipeAssembler.toDTOs(recipeRepository.findAllById(ids)));
+            for (RecipeDTO recipe : recipes) {
+                byId.put(recipe.getId(), recipe);
+            }
+        }
+
+        List<TrendingRecipeDTO> result = new ArrayList<>(ids.size());
+        for (int i = 0; i < ranking.recipeIds.length; i++) {
+            RecipeDTO recipe = byId.get(ranking.recipeIds[i]);
+            if (recipe != null) {
+                result.add(new TrendingRecipeDTO(recipe, (double) ranking.scores[i]));
+            }
+        }
+        List<TrendingRecipeDTO> recetas = List.copyOf(result);
+        cache.put(key, new CachedTrending(now, recetas));
+        return recetas;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeViewed(RecipeViewedEvent event) {
+        record(new RecordedActivity(event.getRecipeId(), VIEW_WEIGHT, -1, -1));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingChanged(RatingChangedEvent event) {
+        // Solo una calificación nueva es una fila que la reconstrucción también puede leer
+        long key = event.getPuntuacionAnterior() == null ? ratingKey(event.getRecipeId(), event.getUsuarioId()) : -1;
+        record(new RecordedActivity(event.getRecipeId(), RATING_WEIGHT, key, -1));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent event) {
+        if ("APROBADO".equals(event.getEstadoNuevo()) && event.cambiaAprobados()) {
+            record(new RecordedActivity(event.getRecipeId(), COMMENT_WEIGHT, -1, event.getCommentId()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRecipeChanged(RecipeChangedEvent event) {
+        applyRecipeChange(counters, event);
+        if (pendingRecipeChanges != null) {
+            pendingRecipeChanges.add(event);
+        }
+    }
+
+    private synchronized void record(RecordedActivity activity) {
+        counters.add(activity.recipeId, activity.bucket, activity.weight);
+        if (pendingActivity != null) {
+            pendingActivity.add(activity);
+        }
+    }
+
+    /**
+     * Identifica una calificación: cada usuario califica una vez cada receta (ids INT de MySQL)
+     */
+    private static long ratingKey(long recipeId, long usuarioId) {
+        return (recipeId << 32) | (usuarioId & 0xFFFFFFFFL);
+    }
+
+    private static void applyRecipeChange(TrendingCounters target, RecipeChangedEvent event) {
+        if (event.getReceta() == null) {
+            target.remove(event.getRecipeId());
+        } else {
+            Long categoryId = event.getReceta().getCategoriaId();
+            target.register(event.getRecipeId(), categoryId != null ? categoryId : 0L);
+        }
+    }
+
+    private long bucketOf(long epochMillis) {
+        return Math.floorDiv(epochMillis, bucketMillis);
+    }
+
+    private long bucketOf(LocalDateTime dateTime) {
+        return bucketOf(dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Actividad registrada por un evento. ratingKey y commentId son -1 si no corresponden a una
+     * fila que la reconstrucción pueda leer (vistas, cambios de una calificación existente)
+     */
+    private final class RecordedActivity {
+        private final long recipeId;
+        private final long bucket;
+        private final float weight;
+        private final long ratingKey;
+        private final long commentId;
+
+        RecordedActivity(long recipeId, float weight, long ratingKey, long commentId) {
+            this.recipeId = recipeId;
+            this.bucket = bucketOf(System.currentTimeMillis());
+            this.weight = weight;
+            this.ratingKey = ratingKey;
+            this.commentId = commentId;
+        }
+    }
+
+    private static final class CachedTrending {
+        private final long calculadoEn;
+        private final List<TrendingRecipeDTO> recetas;
+
+        CachedTrending(long calculadoEn, List<TrendingRecipeDTO> recetas) {
+            this.calculadoEn = calculadoEn;
+            this.recetas = recetas;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.recipes.service;
+
+import com.recipes.dto.UploadSweepDTO;
+import com.recipes.exception.ServiceUnavailableException;
+import com.recipes.repository.RecipeRepository;
+import com.recipes.repository.StoredImageRepository;
+import com.recipes.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+/**
+ * Elimina del directorio de subidas los archivos que ninguna receta ni foto de perfil referencia:
+ * imágenes subidas con /api/files/upload que nunca se asociaron, o las que quedan cuando falla
+ * la creación o actualización de una receta después de guardar la imagen.
+ *
+ * Primero se cargan por rangos de id las URLs referenciadas y después se recorre el directorio
+ * en streaming. Solo se eliminan los huérfanos más antiguos que el periodo de gracia, para no
+ * tocar una subida que el cliente todavía está por asociar a una receta. Para las imágenes
+ * registradas en Imagenes el periodo corre desde su última subida (updated_at), porque subir
+ * de nuevo un contenido repetido reutiliza el archivo sin modificarlo.
+ */
+@Service
+public class UploadSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSweeper.class);
+
+    private final FileStorageService fileStorageService;
+    private final RecipeRepository recipeRepository;
+    private final UserRepository userRepository;
+    private final StoredImageRepository storedImageRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long chunkSize;
+    private final Duration gracePeriod;
+    private final boolean dryRunByDefault;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile UploadSweepDTO lastResult;
+
+    public UploadSweeper(FileStorageService fileStorageService,
+                         RecipeRepository recipeRepository,
+                         UserRepository userRepository,
+                         StoredImageRepository storedImageRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.aggregates.chunk-size:5000}") long chunkSize,
+                         @Value("${app.uploads.sweep-grace-hours:24}") long graceHours,
+                         @Value("${app.uploads.sweep-dry-run:false}") boolean dryRunByDefault) {
+        this.fileStorageService = fileStorageService;
+        this.recipeRepository = recipeRepository;
+        this.userRepository = userRepository;
+        this.storedImageRepository = storedImageRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.gracePeriod = Duration.ofHours(Math.max(1, graceHours));
+        this.dryRunByDefault = dryRunByDefault;
+    }
+
+    @Scheduled(cron = "${app.uploads.sweep-cron:0 15 4 * * *}")
+    public void scheduledSweep() {
+        try {
+            sweep(dryRunByDefault);
+        } catch (ServiceUnavailableException e) {
+            log.info("Se omite el barrido programado de subidas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recorre el directorio de subidas y elimina (o con dryRun solo cuenta) los huérfanos
+     */
+    public UploadSweepDTO sweep(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ServiceUnavailableException("Ya hay un barrido de subidas en curso");
+        }
+        try {
+            UploadSweepDTO result = doSweep(dryRun);
+            lastResult = result;
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Resultado del último barrido desde el arranque, o null si aún no se ha ejecutado
+     */
+    public UploadSweepDTO getLastResult() {
+        return lastResult;
+    }
+
+    private UploadSweepDTO doSweep(boolean dryRun) {
+        long start = System.currentTimeMillis();
+        LocalDateTime startedAt = LocalDateTime.now();
+        // El corte se fija antes de cargar las referencias: lo subido después es siempre reciente
+        Instant cutoff = Instant.now().minus(gracePeriod);
+
+        Set<String> referenced = new HashSet<>();
+        loadReferences(referenced, recipeRepository.findMinId(), recipeRepository.findMaxId(),
+                recipeRepository::findImageUrlsByIdBetween);
+        loadReferences(referenced, userRepository.findMinId(), userRepository.findMaxId(),
+                userRepository::findPhotoUrlsByIdBetween);
+        LocalDateTime since = LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault());
+        Set<String> recentlyUploaded = new HashSet<>(readOnlyTransaction.execute(status ->
+                storedImageRepository.findHashesReferencedSince(since)));
+
+        Path root = fileStorageService.getStorageLocation();
+        long scanned = 0, kept = 0, recent = 0, orphans = 0, deleted = 0, freed = 0, errors = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!Files.isRegularFile(file)) {
+                    // Directorios, o archivos ya eliminados junto con su original
+                    continue;
+                }
+                scanned++;
+                String fileName = file.getFileName().toString();
+                String original = originalName(fileName);
+                if (referenced.contains(original)) {
+                    kept++;
+                    continue;
+                }
+                if (!original.equals(fileName) && Files.exists(file.resolveSibling(original))) {
+                    // Variante de un original sin referencias: se elimina con él
+                    continue;
+                }
+                try {
+                    if (recentlyUploaded.contains(hashOf(original))
+                            || !Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                        recent++;
+                        continue;
+                    }
+                    orphans++;
+                    if (dryRun) {
+                        continue;
+                    }
+                    long bytes = fileStorageService.deleteOrphan(file, cutoff);
+                    if (bytes >= 0) {
+                        deleted++;
+                        freed += bytes;
+                    }
+                } catch (NoSuchFileException e) {
+                    // Eliminado mientras se recorría el directorio
+                } catch (IOException | RuntimeException e) {
+                    errors++;
+                    log.warn("No se pudo eliminar el archivo huérfano {}: {}", fileName, e.getMessage());
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            errors++;
+            log.error("No se pudo recorrer el directorio de subidas {}", root, e);
+        }
+
+        UploadSweepDTO result = new UploadSweepDTO(dryRun, startedAt, scanned, kept, recent, orphans,
+                deleted, freed, errors, System.currentTimeMillis() - start);
+        log.info("Barrido de subidas{}: {} archivos, {} referenciados, {} en periodo de gracia, {} huérfanos, " +
+                        "{} eliminados, {} bytes liberados, {} errores en {} ms",
+                dryRun ? " (simulación)" : "", scanned, kept, recent, orphans, deleted, freed, errors,
+                result.getDuracionMs());
+        return result;
+    }
+
+    private void loadReferences(Set<String> referenced, Long minId, Long maxId,
+                                BiFunction<Long, Long, List<String>> urlsBetween) {
+        if (minId == null || maxId == null) {
+            return;
+        }
+        for (long chunkStart = minId; chunkStart <= maxId; chunkStart += chunkSize) {
+            long from = chunkStart;
+            long to = Math.min(chunkStart + chunkSize - 1, maxId);
+            List<String> urls = readOnlyTransaction.execute(status -> urlsBetween.apply(from, to));
+            for (String url : urls) {
+                referenced.add(fileName(url));
+            }
+        }
+    }
+
+    /**
+     * Nombre de archivo de una URL guardada (/uploads/recipes/x.jpg, o una URL absoluta con query)
+     */
+    private static String fileName(String url) {
+        int query = url.indexOf('?');
+        String path = query < 0 ? url : url.substring(0, query);
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Hash de un archivo direccionado por contenido (hash.jpg -> hash)
+     */
+    private static String hashOf(String fileName) {
+        int dot = fileName.indexOf('.');
+        return dot < 0 ? fileName : fileName.substring(0, dot);
+    }
+
+    /**
+     * Nombre del original de una variante (hash.card.jpg -> hash.jpg); el mismo nombre si no es variante
+     */
+    private static String originalName(String fileName) {
+        if (!ImageSize.isVariantName(fileName)) {
+            return fileName;
+        }
+        int dot = fileName.lastIndexOf('.');
+        int sizeDot = fileName.lastIndexOf('.', dot - 1);
+        return fileName.substring(0, sizeDot) + fileName.substring(dot);
+    }
+}
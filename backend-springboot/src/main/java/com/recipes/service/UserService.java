@@ -3,15 +3,17 @@ package com.recipes.service;
 import com.recipes.dto.ProfileDTO;
 import com.recipes.dto.RecipeDTO;
 import com.recipes.dto.UserDTO;
+import com.recipes.event.UserChangedEvent;
+import com.recipes.exception.ResourceNotFoundException;
 import com.recipes.model.Rating;
 import com.recipes.model.User;
 import com.recipes.repository.CommentRepository;
 import com.recipes.repository.RatingRepository;
 import com.recipes.repository.RecipeRepository;
 import com.recipes.repository.UserRepository;
+import com.recipes.security.CurrentUser;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,6 +28,7 @@ public class UserService {
     private final RecipeRepository recipeRepository;
     private final CommentRepository commentRepository;
     private final RatingRepository ratingRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ProfileDTO getCurrentUserProfile() {
         User user = getCurrentUser();
@@ -54,12 +57,13 @@ public class UserService {
         }
         
         User saved = userRepository.save(user);
+        // Los tokens ya emitidos llevan el email anterior
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Tipo.ACTUALIZADO, saved.getId()));
         return convertToDTO(saved);
     }
 
     public List<RecipeDTO> getFavoriteRecipes() {
-        User user = getCurrentUser();
-        List<Rating> ratings = ratingRepository.findByUsuario_Id(user.getId());
+        List<Rating> ratings = ratingRepository.findByUsuario_Id(CurrentUser.id());
         
         return ratings.stream()
                 .filter(r -> r.getPuntuacion() >= 4)
@@ -83,13 +87,10 @@ public class UserService {
                 .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String usernameOrEmail = authentication.getName();
-        // Usar método que carga roles explícitamente para evitar problemas
-        return userRepository.findByEmailOrUsernameWithRoles(usernameOrEmail)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        // Por id del principal (clave primaria); findById ya carga los roles
+        return userRepository.findById(CurrentUser.id())
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
     }
 
     private UserDTO convertToDTO(User user) {
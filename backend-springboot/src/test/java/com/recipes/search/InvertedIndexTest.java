@@ -0,0 +1,101 @@
+package com.recipes.search;
+
+import com.recipes.dto.RecipeDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTest {
+
+    @Test
+    void puntuaConBm25() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(analyzed(1L, 10L, "Pollo al limón", null));
+        index.add(analyzed(2L, 10L, "Arroz con pollo", null));
+        index.add(analyzed(3L, 20L, "Ensalada", "tomate lechuga"));
+
+        InvertedIndex.SearchResult result = index.search(List.of("limon"), null, 0, 10);
+
+        // Un documento de tres contiene el término, con frecuencia 3 (peso del título) y largo 6
+        double idf = Math.log(1 + (3 - 1 + 0.5) / (1 + 0.5));
+        double avgLength = (6 + 6 + 5) / 3.0;
+        double norm = 1.2 * (1 - 0.75 + 0.75 * 6 / avgLength);
+        double expected = idf * 3 * (1.2 + 1) / (3 + norm);
+
+        assertEquals(1, result.totalHits);
+        assertEquals(1L, result.recipeIds[0]);
+        assertEquals(expected, result.scores[0], 1e-4);
+    }
+
+    @Test
+    void ordenaPorPuntajeYDesempataPorRecetaMasNueva() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(analyzed(1L, 10L, "Pollo al limón", null));
+        index.add(analyzed(2L, 10L, "Arroz con pollo", null));
+        index.add(analyzed(3L, 20L, "Pollo", "pollo"));
+
+        InvertedIndex.SearchResult result = index.search(List.of("poll"), null, 0, 10);
+
+        assertEquals(3, result.totalHits);
+        assertEquals(3L, result.recipeIds[0]);
+        assertEquals(2L, result.recipeIds[1]);
+        assertEquals(1L, result.recipeIds[2]);
+
+        InvertedIndex.SearchResult page = index.search(List.of("poll"), null, 1, 1);
+        assertEquals(1, page.recipeIds.length);
+        assertEquals(2L, page.recipeIds[0]);
+
+        InvertedIndex.SearchResult filtered = index.search(List.of("poll"), 10L, 0, 10);
+        assertEquals(2, filtered.totalHits);
+    }
+
+    @Test
+    void losBorradosNoAparecenYSeCompactan() {
+        InvertedIndex index = new InvertedIndex();
+        int total = 2000;
+        for (long id = 1; id <= total; id++) {
+            index.add(analyzed(id, 10L, id % 2 == 0 ? "Pollo al horno" : "Sopa de pollo", null));
+        }
+
+        index.remove(2L);
+        InvertedIndex.SearchResult beforeCompaction = index.search(List.of("horn"), null, 0, total);
+        assertEquals(total / 2 - 1, beforeCompaction.totalHits);
+
+        // Borrar más de la cuarta parte (y al menos 1024) dispara la compactación
+        for (long id = 4; id <= total; id += 2) {
+            index.remove(id);
+        }
+        for (long id = 1; id <= 399; id += 2) {
+            index.remove(id);
+        }
+
+        int live = total / 2 - 200;
+        assertEquals(live, index.size());
+        assertFalse(index.contains(2L));
+        assertFalse(index.contains(1L));
+        assertTrue(index.contains(401L));
+
+        InvertedIndex.SearchResult afterCompaction = index.search(List.of("poll"), null, 0, total);
+        assertEquals(live, afterCompaction.totalHits);
+        assertEquals(0, index.search(List.of("horn"), null, 0, 10).totalHits);
+
+        // El índice sigue aceptando documentos después de renumerar
+        index.add(analyzed(5000L, 10L, "Pollo al horno", null));
+        InvertedIndex.SearchResult readded = index.search(List.of("horn"), null, 0, 10);
+        assertEquals(1, readded.totalHits);
+        assertEquals(5000L, readded.recipeIds[0]);
+    }
+
+    private static AnalyzedRecipe analyzed(Long id, Long categoriaId, String titulo, String ingredientes) {
+        RecipeDTO recipe = new RecipeDTO();
+        recipe.setId(id);
+        recipe.setCategoriaId(categoriaId);
+        recipe.setTitulo(titulo);
+        recipe.setIngredientes(ingredientes);
+        return AnalyzedRecipe.of(recipe);
+    }
+}
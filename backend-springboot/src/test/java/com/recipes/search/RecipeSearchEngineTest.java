@@ -0,0 +1,112 @@
+package com.recipes.search;
+
+import com.recipes.dto.RecipeDTO;
+import com.recipes.event.RecipeChangedEvent;
+import com.recipes.model.Recipe;
+import com.recipes.repository.RecipeRepository;
+import com.recipes.service.RecipeAssembler;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecipeSearchEngineTest {
+
+    @Test
+    void losResultadosMuestranLosDatosActualesDeLaReceta() {
+        RecipeRepository recipeRepository = mock(RecipeRepository.class);
+        RecipeAssembler recipeAssembler = mock(RecipeAssembler.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        // Promedio y autor que hay en la base de datos en cada momento
+        AtomicReference<Double> promedio = new AtomicReference<>(3.0);
+        AtomicReference<String> autor = new AtomicReference<>("ana");
+        when(recipeRepository.findAllById(List.of(7L))).thenReturn(List.of(new Recipe()));
+        when(recipeAssembler.toDTOs(anyList())).thenAnswer(invocation -> {
+            RecipeDTO recipe = recipe(7L, promedio.get());
+            recipe.setAutorNombre(autor.get());
+            return List.of(recipe);
+        });
+
+        RecipeSearchEngine engine = new RecipeSearchEngine(recipeRepository, recipeAssembler,
+                mock(ExecutorService.class), mock(ExecutorService.class), transactionManager, 100);
+        engine.onRecipeChanged(new RecipeChangedEvent(RecipeChangedEvent.Tipo.CREADA, 7L, recipe(7L, 3.0), null));
+        assertEquals(3.0, search(engine).getCalificacionPromedio());
+
+        // Ni las calificaciones ni los cambios de nombre reindexan la receta
+        promedio.set(4.5);
+        autor.set("ana_cocina");
+
+        RecipeDTO found = search(engine);
+        assertEquals(4.5, found.getCalificacionPromedio());
+        assertEquals("ana_cocina", found.getAutorNombre());
+        assertTrue(found.getRelevancia() > 0);
+    }
+
+    @Test
+    void unaRecetaEliminadaTrasConsultarElIndiceSeOmite() {
+        RecipeRepository recipeRepository = mock(RecipeRepository.class);
+        RecipeAssembler recipeAssembler = mock(RecipeAssembler.class);
+        when(recipeRepository.findAllById(anyList())).thenReturn(List.of());
+        when(recipeAssembler.toDTOs(anyList())).thenReturn(List.of());
+
+        RecipeSearchEngine engine = new RecipeSearchEngine(recipeRepository, recipeAssembler,
+                mock(ExecutorService.class), mock(ExecutorService.class), mock(PlatformTransactionManager.class), 100);
+        engine.onRecipeChanged(new RecipeChangedEvent(RecipeChangedEvent.Tipo.CREADA, 7L, recipe(7L, 3.0), null));
+
+        Page<RecipeDTO> page = engine.search("pollo", null, PageRequest.of(0, 10));
+        assertEquals(0, page.getContent().size());
+        assertEquals(1, page.getTotalElements());
+    }
+
+    @Test
+    void unaReconstruccionPedidaDuranteOtraSeRepiteAlTerminar() {
+        RecipeRepository recipeRepository = mock(RecipeRepository.class);
+        RecipeSearchEngine engine = new RecipeSearchEngine(recipeRepository, mock(RecipeAssembler.class),
+                mock(ExecutorService.class), mock(ExecutorService.class), mock(PlatformTransactionManager.class), 100);
+
+        // Llega una importación mientras la primera construcción lee las recetas
+        AtomicInteger builds = new AtomicInteger();
+        when(recipeRepository.findMinId()).thenAnswer(invocation -> {
+            if (builds.incrementAndGet() == 1) {
+                engine.rebuild();
+            }
+            return null;
+        });
+
+        engine.rebuild();
+
+        verify(recipeRepository, times(2)).findMinId();
+        assertTrue(engine.isReady());
+    }
+
+    private static RecipeDTO search(RecipeSearchEngine engine) {
+        List<RecipeDTO> content = engine.search("pollo", null, PageRequest.of(0, 10)).getContent();
+        assertEquals(1, content.size());
+        return content.get(0);
+    }
+
+    private static RecipeDTO recipe(Long id, Double promedio) {
+        RecipeDTO recipe = new RecipeDTO();
+        recipe.setId(id);
+        recipe.setTitulo("Pollo al limón");
+        recipe.setCalificacionPromedio(promedio);
+        return recipe;
+    }
+}
@@ -0,0 +1,42 @@
+package com.recipes.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpanishAnalyzerTest {
+
+    @Test
+    void foldQuitaAcentosYMayusculas() {
+        assertEquals("pinon", SpanishAnalyzer.fold("Piñón"));
+        assertEquals("aji amarillo", SpanishAnalyzer.fold("AJÍ Amarillo"));
+        assertEquals("", SpanishAnalyzer.fold(null));
+    }
+
+    @Test
+    void stemUnificaSingularPluralYGenero() {
+        assertEquals("tomat", SpanishAnalyzer.stem("tomates"));
+        assertEquals("tomat", SpanishAnalyzer.stem("tomate"));
+        assertEquals("nuez", SpanishAnalyzer.stem("nueces"));
+        assertEquals("limon", SpanishAnalyzer.stem("limones"));
+        assertEquals("pap", SpanishAnalyzer.stem("papas"));
+        assertEquals("pap", SpanishAnalyzer.stem("papa"));
+        assertEquals(SpanishAnalyzer.stem("cebollas"), SpanishAnalyzer.stem("cebolla"));
+    }
+
+    @Test
+    void stemNoRecortaPalabrasCortas() {
+        assertEquals("sal", SpanishAnalyzer.stem("sal"));
+        assertEquals("ajo", SpanishAnalyzer.stem("ajo"));
+    }
+
+    @Test
+    void analyzeDescartaPalabrasVaciasYTokensCortos() {
+        List<String> terms = SpanishAnalyzer.analyze("Arroz con Pollo y 2 limones, al horno");
+        assertEquals(List.of("arroz", "poll", "limon", "horn"), terms);
+        assertTrue(SpanishAnalyzer.analyze("de la y con").isEmpty());
+    }
+}
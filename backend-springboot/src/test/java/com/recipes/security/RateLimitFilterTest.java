@@ -0,0 +1,90 @@
+package com.recipes.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.recipes.config.RateLimitConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private final RateLimitFilter filter = filter();
+
+    @Test
+    void rechazaCon429YRetryAfterRedondeadoHaciaArriba() throws Exception {
+        assertEquals(200, login("203.0.113.5").getStatus());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        MockHttpServletResponse rejected = login("203.0.113.5");
+
+        assertEquals(429, rejected.getStatus());
+        // Faltan 9,5 s para el siguiente token
+        assertEquals("10", rejected.getHeader("Retry-After"));
+    }
+
+    @Test
+    void laCabeceraXForwardedForNoCambiaLaClave() throws Exception {
+        assertEquals(200, login("203.0.113.5").getStatus());
+
+        // Sin un proxy de confianza delante, RemoteIpValve no la aplica y el filtro usa la IP de la conexión
+        MockHttpServletRequest spoofed = request("203.0.113.5");
+        spoofed.addHeader("X-Forwarded-For", "198.51.100.77");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(spoofed, response, new MockFilterChain());
+        assertEquals(429, response.getStatus());
+
+        assertEquals(200, login("203.0.113.6").getStatus());
+    }
+
+    @Test
+    void unaRutaCodificadaOConContextPathSeLimitaIgual() throws Exception {
+        assertEquals(200, login("203.0.113.5").getStatus());
+
+        MockHttpServletRequest encoded = new MockHttpServletRequest("POST", "/api/auth/%6Cogin");
+        encoded.setRemoteAddr("203.0.113.5");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(encoded, response, new MockFilterChain());
+        assertEquals(429, response.getStatus());
+
+        MockHttpServletRequest withContextPath = new MockHttpServletRequest("POST", "/recetas/api/auth/login");
+        withContextPath.setContextPath("/recetas");
+        withContextPath.setRemoteAddr("203.0.113.5");
+        response = new MockHttpServletResponse();
+        filter.doFilter(withContextPath, response, new MockFilterChain());
+        assertEquals(429, response.getStatus());
+    }
+
+    private MockHttpServletResponse login(String remoteAddr) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(remoteAddr), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    private RateLimitFilter filter() {
+        RateLimitConfig config = new RateLimitConfig();
+        RateLimitConfig.Limit limit = new RateLimitConfig.Limit();
+        limit.setCapacity(1);
+        limit.setPerMinute(6);
+        config.getRoutes().put("login", limit);
+
+        RateLimitFilter rateLimitFilter = new RateLimitFilter();
+        ReflectionTestUtils.setField(rateLimitFilter, "rateLimiter", new RateLimiter(config, now::get));
+        ReflectionTestUtils.setField(rateLimitFilter, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+        return rateLimitFilter;
+    }
+}
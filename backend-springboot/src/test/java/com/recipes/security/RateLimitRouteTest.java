@@ -0,0 +1,34 @@
+package com.recipes.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RateLimitRouteTest {
+
+    @Test
+    void reconoceLasRutasDeAutenticacion() {
+        assertEquals(RateLimitRoute.LOGIN, RateLimitRoute.match("/api/auth/login"));
+        assertEquals(RateLimitRoute.REGISTER, RateLimitRoute.match("/api/auth/register"));
+        assertEquals(RateLimitRoute.REFRESH, RateLimitRoute.match("/api/auth/refresh"));
+        assertNull(RateLimitRoute.match("/api/auth/logout"));
+        assertNull(RateLimitRoute.match("/api/auth/login/extra"));
+    }
+
+    @Test
+    void reconoceComentariosYCalificacionesDeUnaReceta() {
+        assertEquals(RateLimitRoute.COMMENTS, RateLimitRoute.match("/api/recipes/42/comments"));
+        assertEquals(RateLimitRoute.RATINGS, RateLimitRoute.match("/api/recipes/7/ratings"));
+    }
+
+    @Test
+    void ignoraOtrasRutas() {
+        assertNull(RateLimitRoute.match("/api/recipes"));
+        assertNull(RateLimitRoute.match("/api/recipes/42"));
+        assertNull(RateLimitRoute.match("/api/recipes//comments"));
+        assertNull(RateLimitRoute.match("/api/recipes/abc/comments"));
+        assertNull(RateLimitRoute.match("/api/recipes/42/comments/5"));
+        assertNull(RateLimitRoute.match("/api/categories/1/comments"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.recipes.security;
+
+import com.recipes.config.RateLimitConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    // 6 por minuto: un token cada 10 s
+    private static final long INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void admiteUnaRafagaDeHastaLaCapacidad() {
+        RateLimiter limiter = limiter(true, 3, 6);
+
+        assertEquals(0, limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1"));
+        assertTrue(limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1") > 0);
+
+        // Cada cliente tiene su propio cubo
+        assertEquals(0, limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.2"));
+    }
+
+    @Test
+    void elRechazoIndicaCuantoFaltaParaElSiguienteToken() {
+        RateLimiter limiter = limiter(true, 2, 6);
+        limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1");
+        limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1");
+
+        assertEquals(INTERVAL, limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(4));
+        assertEquals(INTERVAL - TimeUnit.SECONDS.toNanos(4), limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1"));
+    }
+
+    @Test
+    void seRecuperaUnTokenPorIntervalo() {
+        RateLimiter limiter = limiter(true, 2, 6);
+        limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1");
+        limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1");
+
+        now.addAndGet(INTERVAL);
+        assertEquals(0, limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1"));
+        assertTrue(limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1") > 0);
+
+        // Tras mucho tiempo el cubo vuelve a estar lleno, pero no acumula más que la capacidad
+        now.addAndGet(100 * INTERVAL);
+        assertEquals(0, limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1"));
+        assertTrue(limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1") > 0);
+    }
+
+    @Test
+    void rutasSinLimiteOLimitadorDeshabilitado() {
+        RateLimiter limiter = limiter(true, 1, 6);
+        assertTrue(limiter.isLimited(RateLimitRoute.LOGIN));
+        assertFalse(limiter.isLimited(RateLimitRoute.COMMENTS));
+        assertEquals(0, limiter.tryAcquire(RateLimitRoute.COMMENTS, 1L));
+
+        RateLimiter disabled = limiter(false, 1, 6);
+        assertFalse(disabled.isLimited(RateLimitRoute.LOGIN));
+        assertEquals(0, disabled.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1"));
+        assertEquals(0, disabled.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1"));
+    }
+
+    @Test
+    void olvidaLosCubosInactivos() {
+        RateLimiter limiter = limiter(true, 1, 6);
+        limiter.tryAcquire(RateLimitRoute.LOGIN, "10.0.0.1");
+        assertEquals(1L, limiter.stats().get(0).getClientes());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(60) + INTERVAL + 1);
+        limiter.evictIdle();
+
+        assertEquals(0L, limiter.stats().get(0).getClientes());
+    }
+
+    private RateLimiter limiter(boolean enabled, int capacity, int perMinute) {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setEnabled(enabled);
+        config.setIdleExpirySeconds(60);
+        RateLimitConfig.Limit limit = new RateLimitConfig.Limit();
+        limit.setCapacity(capacity);
+        limit.setPerMinute(perMinute);
+        config.getRoutes().put("login", limit);
+        return new RateLimiter(config, now::get);
+    }
+}
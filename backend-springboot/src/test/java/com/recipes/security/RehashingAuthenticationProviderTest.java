@@ -0,0 +1,68 @@
+package com.recipes.security;
+
+import com.recipes.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RehashingAuthenticationProviderTest {
+
+    private final AuthenticatedUser user = new AuthenticatedUser(1L, "ana@example.com", "ana", "$2a$04$old",
+            Set.<GrantedAuthority>of(new SimpleGrantedAuthority("ROLE_USER")));
+
+    @Test
+    void conElPoolLlenoElLoginCorrectoIgualEntra() {
+        UserDetailsServiceImpl userDetailsService = mock(UserDetailsServiceImpl.class);
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(userDetailsService.loadUserByUsername("ana@example.com")).thenReturn(user);
+        when(encoder.matches("secreto", "$2a$04$old")).thenReturn(true);
+        when(encoder.upgradeEncoding("$2a$04$old")).thenReturn(true);
+        when(encoder.encode("secreto")).thenThrow(new TooManyRequestsException("Pool lleno", 1));
+
+        Authentication result = provider(userDetailsService, encoder).authenticate(
+                new UsernamePasswordAuthenticationToken("ana@example.com", "secreto"));
+
+        assertTrue(result.isAuthenticated());
+        assertSame(user, result.getPrincipal());
+        verify(userDetailsService, never()).updatePassword(any(), anyString());
+    }
+
+    @Test
+    void guardaElHashRecalculado() {
+        UserDetailsServiceImpl userDetailsService = mock(UserDetailsServiceImpl.class);
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(userDetailsService.loadUserByUsername("ana@example.com")).thenReturn(user);
+        when(encoder.matches("secreto", "$2a$04$old")).thenReturn(true);
+        when(encoder.upgradeEncoding("$2a$04$old")).thenReturn(true);
+        when(encoder.encode("secreto")).thenReturn("$2a$10$new");
+        when(userDetailsService.updatePassword(user, "$2a$10$new")).thenReturn(user);
+
+        Authentication result = provider(userDetailsService, encoder).authenticate(
+                new UsernamePasswordAuthenticationToken("ana@example.com", "secreto"));
+
+        assertTrue(result.isAuthenticated());
+        verify(userDetailsService).updatePassword(user, "$2a$10$new");
+    }
+
+    private static RehashingAuthenticationProvider provider(UserDetailsServiceImpl userDetailsService,
+                                                            PasswordEncoder encoder) {
+        RehashingAuthenticationProvider provider = new RehashingAuthenticationProvider(userDetailsService);
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(encoder);
+        return provider;
+    }
+}
@@ -0,0 +1,60 @@
+package com.recipes.service;
+
+import com.recipes.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BooleanSearchExpressionTest {
+
+    @Test
+    void sinOperadoresExigeTodasLasPalabrasComoPrefijo() {
+        assertEquals("+pollo* +limon*", BooleanSearchExpression.parse("pollo  limon"));
+    }
+
+    @Test
+    void unaPalabraAMedioEscribirSeBuscaComoPrefijo() {
+        assertEquals("+poll*", BooleanSearchExpression.parse("poll"));
+    }
+
+    @Test
+    void sinOperadoresOmiteLasPalabrasQueMysqlNoIndexa() {
+        assertEquals("+arroz* +pollo*", BooleanSearchExpression.parse("arroz al pollo"));
+        assertNull(BooleanSearchExpression.parse("de la"));
+        // Con operadores la expresión se respeta tal cual
+        assertEquals("+al -ajo", BooleanSearchExpression.parse("+al -ajo"));
+    }
+
+    @Test
+    void guionDentroDeUnaPalabraNoEsExclusion() {
+        assertEquals("+\"ají amarillo\" +pollo*", BooleanSearchExpression.parse("ají-amarillo pollo"));
+        assertEquals("+pollo -\"ají amarillo\"", BooleanSearchExpression.parse("+pollo -ají-amarillo"));
+    }
+
+    @Test
+    void conservaOperadoresFrasesYGrupos() {
+        assertEquals("+pollo -cerdo limon* ~ajo", BooleanSearchExpression.parse("+pollo -cerdo limon* ~ajo"));
+        assertEquals("+\"arroz con pollo\" >(papa camote)",
+                BooleanSearchExpression.parse("+\"arroz, con  pollo\" >(papa camote)"));
+    }
+
+    @Test
+    void descartaPuntuacionSuelta() {
+        assertEquals("+pollo* +limon*", BooleanSearchExpression.parse("pollo, limon!"));
+        assertEquals("+pollo -limon", BooleanSearchExpression.parse("+pollo @ -limon"));
+    }
+
+    @Test
+    void rechazaExpresionesMalFormadas() {
+        assertThrows(BadRequestException.class, () -> BooleanSearchExpression.parse("(pollo limon"));
+        assertThrows(BadRequestException.class, () -> BooleanSearchExpression.parse("pollo) limon"));
+        assertThrows(BadRequestException.class, () -> BooleanSearchExpression.parse("\"arroz con pollo"));
+        assertThrows(BadRequestException.class, () -> BooleanSearchExpression.parse("pollo + limon"));
+        assertThrows(BadRequestException.class, () -> BooleanSearchExpression.parse("pollo *"));
+        assertThrows(BadRequestException.class, () -> BooleanSearchExpression.parse("+()"));
+        assertThrows(BadRequestException.class, () -> BooleanSearchExpression.parse("!!"));
+        assertThrows(BadRequestException.class, () -> BooleanSearchExpression.parse("((((((((((pollo))))))))))"));
+    }
+}
@@ -0,0 +1,104 @@
+package com.recipes.service;
+
+import com.recipes.dto.RecipeDTO;
+import com.recipes.event.CategoryChangedEvent;
+import com.recipes.event.RatingChangedEvent;
+import com.recipes.event.UserChangedEvent;
+import com.recipes.model.Recipe;
+import com.recipes.repository.RecipeRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FeaturedRecipeCacheTest {
+
+    @Test
+    void unaCalificacionActualizaElPromedioDeLosDestacados() {
+        RecipeRepository recipeRepository = mock(RecipeRepository.class);
+        RecipeAssembler recipeAssembler = mock(RecipeAssembler.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        // Promedio que hay en la base de datos en cada momento
+        AtomicReference<Double> promedio = new AtomicReference<>(3.0);
+        when(recipeRepository.findFeaturedRecipes()).thenReturn(List.of(new Recipe()));
+        when(recipeAssembler.toDTOs(anyList())).thenAnswer(invocation -> List.of(recipe(7L, promedio.get())));
+
+        FeaturedRecipeCache cache = new FeaturedRecipeCache(recipeRepository, recipeAssembler, transactionManager);
+        assertEquals(3.0, cache.get().get(0).getCalificacionPromedio());
+
+        promedio.set(4.5);
+        cache.onRatingChanged(new RatingChangedEvent(7L, 1L, null, 5));
+
+        assertEquals(4.5, cache.get().get(0).getCalificacionPromedio());
+
+        // La recarga corre después del commit: no debe unirse a la transacción que ya escribió
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, atLeastOnce()).getTransaction(definition.capture());
+        for (TransactionDefinition used : definition.getAllValues()) {
+            assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, used.getPropagationBehavior());
+        }
+    }
+
+    @Test
+    void renombrarLaCategoriaOElAutorActualizaLosDestacadosYSuVersion() {
+        RecipeRepository recipeRepository = mock(RecipeRepository.class);
+        RecipeAssembler recipeAssembler = mock(RecipeAssembler.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        AtomicReference<String> categoria = new AtomicReference<>("Postres");
+        AtomicReference<String> autor = new AtomicReference<>("ana");
+        when(recipeRepository.findFeaturedRecipes()).thenReturn(List.of(new Recipe()));
+        when(recipeAssembler.toDTOs(anyList())).thenAnswer(invocation -> {
+            RecipeDTO recipe = recipe(7L, 3.0);
+            recipe.setCategoriaId(2L);
+            recipe.setCategoriaNombre(categoria.get());
+            recipe.setAutorId(5L);
+            recipe.setAutorNombre(autor.get());
+            return List.of(recipe);
+        });
+
+        FeaturedRecipeCache cache = new FeaturedRecipeCache(recipeRepository, recipeAssembler, transactionManager);
+        assertEquals("Postres", cache.get().get(0).getCategoriaNombre());
+        long version = cache.version();
+
+        categoria.set("Dulces");
+        cache.onCategoryChanged(new CategoryChangedEvent(CategoryChangedEvent.Tipo.ACTUALIZADA, 2L, "Dulces"));
+        assertEquals("Dulces", cache.get().get(0).getCategoriaNombre());
+        assertNotEquals(version, cache.version());
+        version = cache.version();
+
+        // Otra categoría u otro usuario no invalidan la lista
+        cache.onCategoryChanged(new CategoryChangedEvent(CategoryChangedEvent.Tipo.ACTUALIZADA, 3L, "Sopas"));
+        cache.onUserChanged(new UserChangedEvent(UserChangedEvent.Tipo.ACTUALIZADO, 6L));
+        assertEquals(version, cache.version());
+
+        autor.set("ana_cocina");
+        cache.onUserChanged(new UserChangedEvent(UserChangedEvent.Tipo.ACTUALIZADO, 5L));
+        assertEquals("ana_cocina", cache.get().get(0).getAutorNombre());
+        assertNotEquals(version, cache.version());
+    }
+
+    private static RecipeDTO recipe(Long id, Double promedio) {
+        RecipeDTO recipe = new RecipeDTO();
+        recipe.setId(id);
+        recipe.setTitulo("Pollo al limón");
+        recipe.setCalificacionPromedio(promedio);
+        return recipe;
+    }
+}
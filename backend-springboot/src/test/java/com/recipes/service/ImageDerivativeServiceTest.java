@@ -0,0 +1,136 @@
+package com.recipes.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ImageDerivativeServiceTest {
+
+    @TempDir
+    Path uploads;
+
+    @Test
+    void leeLaOrientacionDelExif() {
+        assertEquals(6, ImageDerivativeService.exifOrientation(exif(6, false)));
+        assertEquals(8, ImageDerivativeService.exifOrientation(exif(8, true)));
+        assertEquals(0, ImageDerivativeService.exifOrientation("http://ns.adobe.com/xap/1.0/".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(0, ImageDerivativeService.exifOrientation(new byte[] {'E', 'x', 'i', 'f', 0, 0, 'M', 'M', 0, 42, 0, 0, 0x7F, 0}));
+    }
+
+    @Test
+    void orientacionSeisGiraUnCuartoEnSentidoHorario() {
+        BufferedImage source = new BufferedImage(2, 1, BufferedImage.TYPE_INT_RGB);
+        source.setRGB(0, 0, Color.RED.getRGB());
+        source.setRGB(1, 0, Color.BLUE.getRGB());
+
+        BufferedImage oriented = ImageDerivativeService.orient(source, 6, false);
+
+        assertEquals(1, oriented.getWidth());
+        assertEquals(2, oriented.getHeight());
+        assertEquals(Color.RED.getRGB(), oriented.getRGB(0, 0));
+        assertEquals(Color.BLUE.getRGB(), oriented.getRGB(0, 1));
+    }
+
+    @Test
+    void lasVariantesSalenYaOrientadas() throws IOException {
+        Path original = uploads.resolve("foto.jpg");
+        Files.write(original, withApp1(jpeg(40, 20), exif(6, false)));
+
+        service(directExecutor()).schedule(original);
+
+        BufferedImage hero = ImageIO.read(uploads.resolve(ImageSize.HERO.variantName("foto.jpg")).toFile());
+        assertEquals(20, hero.getWidth());
+        assertEquals(40, hero.getHeight());
+    }
+
+    @Test
+    void unOriginalQueNoSeDecodificaNoSeVuelveAProgramar() throws IOException {
+        Path original = uploads.resolve("rota.jpg");
+        Files.write(original, new byte[] {1, 2, 3, 4});
+        ExecutorService executor = directExecutor();
+        ImageDerivativeService service = service(executor);
+
+        assertNull(service.findVariant(original, ImageSize.CARD));
+        assertFalse(service.supports(original));
+        assertNull(service.findVariant(original, ImageSize.CARD));
+
+        verify(executor, times(1)).execute(any());
+        assertTrue(Files.exists(original));
+    }
+
+    private static ImageDerivativeService service(ExecutorService executor) {
+        return new ImageDerivativeService(mock(FileStorageService.class), executor, mock(ImageByteCache.class), 0.85f);
+    }
+
+    private static ExecutorService directExecutor() {
+        ExecutorService executor = mock(ExecutorService.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any());
+        return executor;
+    }
+
+    private static byte[] jpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    /** Inserta un segmento APP1 después del APP0 (JFIF), como lo dejan muchas cámaras y editores */
+    private static byte[] withApp1(byte[] jpeg, byte[] app1) {
+        int afterApp0 = 4 + (((jpeg[4] & 0xFF) << 8) | (jpeg[5] & 0xFF));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, afterApp0);
+        out.write(0xFF);
+        out.write(0xE1);
+        out.write((app1.length + 2) >> 8);
+        out.write((app1.length + 2) & 0xFF);
+        out.write(app1, 0, app1.length);
+        out.write(jpeg, afterApp0, jpeg.length - afterApp0);
+        return out.toByteArray();
+    }
+
+    /** "Exif\0\0" + cabecera TIFF con un IFD0 de una sola entrada: Orientation */
+    private static byte[] exif(int orientation, boolean littleEndian) {
+        byte[] data = new byte[6 + 8 + 2 + 12 + 4];
+        data[0] = 'E';
+        data[1] = 'x';
+        data[2] = 'i';
+        data[3] = 'f';
+        ByteBuffer buffer = ByteBuffer.wrap(data)
+                .order(littleEndian ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        buffer.put(6, (byte) (littleEndian ? 'I' : 'M'));
+        buffer.put(7, (byte) (littleEndian ? 'I' : 'M'));
+        buffer.putShort(8, (short) 42);
+        buffer.putInt(10, 8);
+        buffer.putShort(14, (short) 1);
+        buffer.putShort(16, (short) 0x0112);
+        buffer.putShort(18, (short) 3);
+        buffer.putInt(20, 1);
+        buffer.putShort(24, (short) orientation);
+        return data;
+    }
+}
@@ -0,0 +1,74 @@
+package com.recipes.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recipes.repository.CategoryRepository;
+import com.recipes.repository.RecipeRelevance;
+import com.recipes.repository.RecipeRepository;
+import com.recipes.repository.UserRepository;
+import com.recipes.search.PantryMatcher;
+import com.recipes.search.RecipeSearchEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecipeServiceTest {
+
+    private final Pageable pageable = PageRequest.of(0, 12);
+    private RecipeRepository recipeRepository;
+    private RecipeSearchEngine recipeSearchEngine;
+    private RecipeService service;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository = mock(RecipeRepository.class);
+        recipeSearchEngine = mock(RecipeSearchEngine.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        Page<RecipeRelevance> noMatches = new PageImpl<>(List.of(), pageable, 0);
+        when(recipeRepository.searchBoolean(anyString(), any())).thenReturn(noMatches);
+
+        service = new RecipeService(recipeRepository, mock(CategoryRepository.class), mock(UserRepository.class),
+                mock(RecipeAssembler.class), mock(FeaturedRecipeCache.class), mock(CategoryCatalog.class),
+                recipeSearchEngine, mock(PantryMatcher.class), new ObjectMapper(),
+                mock(ApplicationEventPublisher.class), transactionManager);
+    }
+
+    @Test
+    void porDefectoUnaPalabraAMedioEscribirSeBuscaComoPrefijo() {
+        service.findAll(null, "poll", pageable);
+
+        verify(recipeRepository).searchBoolean("+poll*", pageable);
+    }
+
+    @Test
+    void mientrasSeConstruyeElIndiceLaBusquedaUsaPrefijos() {
+        when(recipeSearchEngine.isReady()).thenReturn(false);
+
+        service.findAll(null, "arroz con poll", RecipeSearchMode.INDICE, pageable);
+
+        verify(recipeRepository).searchBoolean("+arroz* +con* +poll*", pageable);
+    }
+
+    @Test
+    void sinPalabrasIndexablesSeBuscaConLike() {
+        service.findAll(null, "de la", pageable);
+
+        verify(recipeRepository).findByTituloContainingIgnoreCase("de la", pageable);
+        verify(recipeRepository, never()).searchBoolean(anyString(), any());
+    }
+}
@@ -0,0 +1,94 @@
+package com.recipes.service;
+
+import com.recipes.dto.RecipeDTO;
+import com.recipes.event.RatingChangedEvent;
+import com.recipes.model.Recipe;
+import com.recipes.repository.RecipeRepository;
+import com.recipes.repository.RecipeStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReportServiceTest {
+
+    @Test
+    void unTopSucioSeRecalculaEnSegundoPlanoYSeReemplaza() {
+        RecipeRepository recipeRepository = mock(RecipeRepository.class);
+        RecipeAssembler recipeAssembler = mock(RecipeAssembler.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        // Promedios 5, 4 y 3; el top tiene lugar para dos
+        when(recipeRepository.findMinId()).thenReturn(1L);
+        when(recipeRepository.findMaxId()).thenReturn(3L);
+        List<RecipeStats> rows = List.of(stats(1L, 15, 3), stats(2L, 8, 2), stats(3L, 3, 1));
+        when(recipeRepository.findStatsByIdBetween(anyLong(), anyLong())).thenReturn(rows);
+        when(recipeRepository.findAllById(anyList())).thenAnswer(invocation -> {
+            List<Recipe> recipes = new ArrayList<>();
+            for (Object id : (List<?>) invocation.getArgument(0)) {
+                Recipe recipe = new Recipe();
+                recipe.setId((Long) id);
+                recipes.add(recipe);
+            }
+            return recipes;
+        });
+        when(recipeAssembler.toDTOs(anyList())).thenAnswer(invocation -> {
+            List<RecipeDTO> dtos = new ArrayList<>();
+            for (Object recipe : (List<?>) invocation.getArgument(0)) {
+                RecipeDTO dto = new RecipeDTO();
+                dto.setId(((Recipe) recipe).getId());
+                dtos.add(dto);
+            }
+            return dtos;
+        });
+
+        // El recálculo de los tops sucios corre en el mismo hilo
+        ExecutorService batchExecutor = mock(ExecutorService.class);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(batchExecutor).execute(any());
+
+        ReportService service = new ReportService(recipeRepository, recipeAssembler, batchExecutor,
+                mock(ExecutorService.class), transactionManager, 100, 2, 1);
+        assertEquals(3, service.recompute());
+        assertEquals(List.of(1L, 2L), topRated(service));
+
+        // La receta 1 baja a 11/3 con el top lleno: la 3 (fuera del top) podría superarla
+        service.onRatingChanged(new RatingChangedEvent(1L, 9L, 5, 1));
+
+        // La lectura que lo encuentra sucio sirve el top anterior y pide recalcularlo
+        assertEquals(List.of(1L, 2L), topRated(service));
+        assertEquals(List.of(2L, 1L), topRated(service));
+    }
+
+    private static List<Long> topRated(ReportService service) {
+        List<Long> ids = new ArrayList<>();
+        for (RecipeDTO recipe : service.getReport(ReportType.MEJOR_CALIFICADAS, null, 10).getTopRecipes()) {
+            ids.add(recipe.getId());
+        }
+        return ids;
+    }
+
+    private static RecipeStats stats(Long id, int suma, int total) {
+        RecipeStats stats = mock(RecipeStats.class);
+        when(stats.getId()).thenReturn(id);
+        when(stats.getCategoriaId()).thenReturn(1L);
+        when(stats.getSumaCalificaciones()).thenReturn(suma);
+        when(stats.getTotalCalificaciones()).thenReturn(total);
+        when(stats.getTotalComentariosAprobados()).thenReturn(0);
+        return stats;
+    }
+}
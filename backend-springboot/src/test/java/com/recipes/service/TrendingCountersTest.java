@@ -0,0 +1,74 @@
+package com.recipes.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrendingCountersTest {
+
+    private static final float[] SIN_DECAIMIENTO = {1f, 1f, 1f, 1f};
+
+    @Test
+    void alAvanzarElAnilloSeLimpianLosIntervalosReutilizados() {
+        TrendingCounters counters = new TrendingCounters(4);
+        counters.register(1L, 10L);
+
+        counters.add(1L, 100, 1f);
+        counters.add(1L, 101, 2f);
+        // El intervalo 104 reutiliza la posición del 100, que sale de la ventana
+        counters.add(1L, 104, 4f);
+
+        TrendingCounters.Ranking ranking = counters.top(104, null, 10, SIN_DECAIMIENTO);
+        assertArrayEquals(new long[] {1L}, ranking.recipeIds);
+        assertEquals(6f, ranking.scores[0], 1e-6);
+
+        // Un salto mayor que la ventana deja solo la actividad nueva
+        counters.add(1L, 200, 1f);
+        assertEquals(1f, counters.top(200, null, 10, SIN_DECAIMIENTO).scores[0], 1e-6);
+    }
+
+    @Test
+    void laActividadFueraDeLaVentanaSeDescarta() {
+        TrendingCounters counters = new TrendingCounters(4);
+        counters.register(1L, 10L);
+        counters.register(2L, 10L);
+
+        counters.add(1L, 100, 1f);
+        // Más vieja que la ventana del último intervalo escrito
+        counters.add(1L, 96, 5f);
+        // Receta desconocida
+        counters.add(3L, 100, 5f);
+        // La receta 2 solo tuvo actividad que ya salió de la ventana al consultar
+        counters.add(2L, 90, 5f);
+
+        TrendingCounters.Ranking ranking = counters.top(100, null, 10, SIN_DECAIMIENTO);
+        assertArrayEquals(new long[] {1L}, ranking.recipeIds);
+        assertEquals(1f, ranking.scores[0], 1e-6);
+    }
+
+    @Test
+    void elTopOrdenaConDecaimientoFiltraPorCategoriaYRespetaElLimite() {
+        TrendingCounters counters = new TrendingCounters(4);
+        counters.register(1L, 10L);
+        counters.register(2L, 10L);
+        counters.register(3L, 20L);
+        float[] decay = {1f, 0.5f, 0.25f, 0.125f};
+
+        // La 1 tuvo más actividad pero hace tres intervalos; la 2 y la 3, en el actual
+        counters.add(1L, 97, 8f);
+        counters.add(2L, 100, 2f);
+        counters.add(3L, 100, 3f);
+
+        TrendingCounters.Ranking ranking = counters.top(100, null, 10, decay);
+        assertArrayEquals(new long[] {3L, 2L, 1L}, ranking.recipeIds);
+        assertEquals(1f, ranking.scores[2], 1e-6);
+
+        assertArrayEquals(new long[] {2L, 1L}, counters.top(100, 10L, 10, decay).recipeIds);
+        assertArrayEquals(new long[] {3L}, counters.top(100, null, 1, decay).recipeIds);
+
+        // Al darse de baja deja de aparecer
+        counters.remove(3L);
+        assertArrayEquals(new long[] {2L, 1L}, counters.top(100, null, 10, decay).recipeIds);
+    }
+}
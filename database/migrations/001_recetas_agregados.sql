@@ -0,0 +1,26 @@
+/* ============================================================
+   Agregados mantenidos en Recetas
+   (para bases creadas antes de agregarlos a schema.sql)
+   ============================================================ */
+USE RecetasDB;
+
+ALTER TABLE Recetas
+	ADD COLUMN suma_calificaciones INT NOT NULL DEFAULT 0 AFTER puntuacion_promedio,
+	ADD COLUMN total_calificaciones INT NOT NULL DEFAULT 0 AFTER suma_calificaciones,
+	ADD COLUMN total_comentarios_aprobados INT NOT NULL DEFAULT 0 AFTER total_calificaciones;
+
+-- Carga inicial de los agregados
+UPDATE Recetas r
+LEFT JOIN (SELECT id_receta, SUM(puntuacion) AS suma, COUNT(*) AS total
+           FROM Calificaciones GROUP BY id_receta) cal
+	ON cal.id_receta = r.id_receta
+LEFT JOIN (SELECT c.id_receta, COUNT(*) AS total
+           FROM Comentarios c
+           JOIN Estados_Comentario e ON e.id_estado = c.id_estado
+           WHERE e.nombre_estado = 'APROBADO'
+           GROUP BY c.id_receta) com
+	ON com.id_receta = r.id_receta
+SET r.suma_calificaciones = COALESCE(cal.suma, 0),
+    r.total_calificaciones = COALESCE(cal.total, 0),
+    r.puntuacion_promedio = IF(COALESCE(cal.total, 0) > 0, cal.suma / cal.total, 0),
+    r.total_comentarios_aprobados = COALESCE(com.total, 0);
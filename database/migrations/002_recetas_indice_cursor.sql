@@ -0,0 +1,6 @@
+/* ============================================================
+   Índice para la paginación por cursor filtrada por categoría
+   ============================================================ */
+USE RecetasDB;
+
+CREATE INDEX idx_recetas_categoria_fecha ON Recetas(id_categoria, fecha_creacion);
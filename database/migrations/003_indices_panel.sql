@@ -0,0 +1,9 @@
+/* ============================================================
+   Índices por fecha de alta para las tendencias de 24 h
+   del panel de administración
+   ============================================================ */
+USE RecetasDB;
+
+CREATE INDEX idx_usuarios_created ON Usuarios(created_at);
+CREATE INDEX idx_comentarios_created ON Comentarios(created_at);
+CREATE INDEX idx_calificaciones_created ON Calificaciones(created_at);
@@ -0,0 +1,15 @@
+/* ============================================================
+   Imágenes direccionadas por contenido: cada archivo subido se
+   guarda una sola vez con el SHA-256 como nombre, y se cuenta
+   cuántas veces se ha referenciado para borrarlo con la última
+   ============================================================ */
+USE RecetasDB;
+
+CREATE TABLE Imagenes (
+	hash CHAR(64) NOT NULL PRIMARY KEY, -- SHA-256 en hexadecimal
+	extension VARCHAR(10) NOT NULL, -- según el contenido: jpg, png, gif, webp
+	tamano_bytes BIGINT NOT NULL,
+	referencias INT NOT NULL DEFAULT 0,
+	created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+	updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
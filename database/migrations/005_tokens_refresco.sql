@@ -0,0 +1,27 @@
+/* ============================================================
+   Refresh tokens con rotación. Los access tokens duran poco y
+   los revocados (cierre de sesión) se cargan en memoria al
+   arrancar, así el filtro JWT no consulta la base de datos
+   ============================================================ */
+USE RecetasDB;
+
+CREATE TABLE Tokens_Refresco (
+	id_token BIGINT AUTO_INCREMENT PRIMARY KEY,
+	token_hash CHAR(64) NOT NULL UNIQUE, -- SHA-256 del refresh token; el token no se guarda
+	id_usuario INT NOT NULL,
+	familia CHAR(36) NOT NULL, -- cadena de rotaciones que empieza en un login
+	jti_acceso CHAR(36) NOT NULL, -- id del access token emitido junto a este refresh token
+	acceso_expira_en DATETIME NOT NULL,
+	expira_en DATETIME NOT NULL,
+	reemplazado_en DATETIME NULL, -- rotado: se usó para obtener el siguiente par
+	revocado_en DATETIME NULL, -- cierre de sesión o reutilización detectada
+	created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+	CONSTRAINT fk_token_usuario FOREIGN KEY (id_usuario)
+		REFERENCES Usuarios(id_usuario)
+		ON DELETE CASCADE ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE INDEX idx_tokens_familia ON Tokens_Refresco(familia);
+CREATE INDEX idx_tokens_jti ON Tokens_Refresco(jti_acceso);
+CREATE INDEX idx_tokens_revocados ON Tokens_Refresco(revocado_en, acceso_expira_en);
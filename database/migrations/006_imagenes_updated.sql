@@ -0,0 +1,8 @@
+/* ============================================================
+   El barrido de subidas cuenta el periodo de gracia desde la
+   última referencia a la imagen (updated_at), no desde la fecha
+   del archivo, que no se modifica para no cambiar su ETag
+   ============================================================ */
+USE RecetasDB;
+
+CREATE INDEX idx_imagenes_updated ON Imagenes(updated_at);
@@ -39,6 +39,7 @@ CREATE TABLE Usuarios (
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 CREATE INDEX idx_usuario_nombre ON Usuarios(nombre_usuario);
+CREATE INDEX idx_usuarios_created ON Usuarios(created_at);
 
 
 /* ============================================================
@@ -84,6 +85,9 @@ CREATE TABLE Recetas (
 	pais_origen VARCHAR(100),
 	image_url VARCHAR(255),
 	puntuacion_promedio FLOAT NOT NULL DEFAULT 0,
+	suma_calificaciones INT NOT NULL DEFAULT 0,
+	total_calificaciones INT NOT NULL DEFAULT 0,
+	total_comentarios_aprobados INT NOT NULL DEFAULT 0,
 	fecha_creacion DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
 	updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
 	
@@ -98,6 +102,7 @@ CREATE TABLE Recetas (
 CREATE INDEX idx_recetas_categoria ON Recetas(id_categoria);
 CREATE INDEX idx_recetas_puntuacion ON Recetas(puntuacion_promedio);
 CREATE INDEX idx_recetas_fecha ON Recetas(fecha_creacion);
+CREATE INDEX idx_recetas_categoria_fecha ON Recetas(id_categoria, fecha_creacion);
 CREATE FULLTEXT INDEX ft_recetas_busqueda
 	ON Recetas(nombre_receta, descripcion_corta, ingredientes_text);
 
@@ -126,6 +131,8 @@ CREATE TABLE Comentarios (
 		ON DELETE RESTRICT ON UPDATE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+CREATE INDEX idx_comentarios_created ON Comentarios(created_at);
+
 
 /* ============================================================
    Tabla: Calificaciones
@@ -148,6 +155,7 @@ CREATE TABLE Calificaciones (
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 CREATE INDEX idx_calificaciones_receta ON Calificaciones(id_receta);
+CREATE INDEX idx_calificaciones_created ON Calificaciones(created_at);
 
 
 /* ============================================================
@@ -169,4 +177,44 @@ CREATE TABLE Recetas_Destacadas (
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 CREATE INDEX idx_destacadas_usuario ON Recetas_Destacadas(id_usuario);
-CREATE INDEX idx_destacadas_receta ON Recetas_Destacadas(id_receta);
\ No newline at end of file
+CREATE INDEX idx_destacadas_receta ON Recetas_Destacadas(id_receta);
+
+
+/* ============================================================
+   Tabla: Imagenes
+   ============================================================ */
+CREATE TABLE Imagenes (
+	hash CHAR(64) NOT NULL PRIMARY KEY, -- SHA-256 en hexadecimal
+	extension VARCHAR(10) NOT NULL, -- según el contenido: jpg, png, gif, webp
+	tamano_bytes BIGINT NOT NULL,
+	referencias INT NOT NULL DEFAULT 0,
+	created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+	updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE INDEX idx_imagenes_updated ON Imagenes(updated_at);
+
+
+/* ============================================================
+   Tabla: Tokens_Refresco
+   ============================================================ */
+CREATE TABLE Tokens_Refresco (
+	id_token BIGINT AUTO_INCREMENT PRIMARY KEY,
+	token_hash CHAR(64) NOT NULL UNIQUE, -- SHA-256 del refresh token; el token no se guarda
+	id_usuario INT NOT NULL,
+	familia CHAR(36) NOT NULL, -- cadena de rotaciones que empieza en un login
+	jti_acceso CHAR(36) NOT NULL, -- id del access token emitido junto a este refresh token
+	acceso_expira_en DATETIME NOT NULL,
+	expira_en DATETIME NOT NULL,
+	reemplazado_en DATETIME NULL, -- rotado: se usó para obtener el siguiente par
+	revocado_en DATETIME NULL, -- cierre de sesión o reutilización detectada
+	created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+	CONSTRAINT fk_token_usuario FOREIGN KEY (id_usuario)
+		REFERENCES Usuarios(id_usuario)
+		ON DELETE CASCADE ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE INDEX idx_tokens_familia ON Tokens_Refresco(familia);
+CREATE INDEX idx_tokens_jti ON Tokens_Refresco(jti_acceso);
+CREATE INDEX idx_tokens_revocados ON Tokens_Refresco(revocado_en, acceso_expira_en);